@@ -0,0 +1,102 @@
+package emitter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The AsmWriter writes an InstructionBuffer as the text of a .asm file: Labels on
+ * their own lines and everything else indented by a tab. The whole program is first
+ * rendered into one StringBuilder, which the AsmWriter keeps and reuses, and is then
+ * handed over in a single write, so a large program costs one system call instead of
+ * one flush for every line. It is one way of writing the buffer out; nothing in the
+ * buffer depends on it.
+ * @author Rakesh Nori
+ * @version 7/6/2018
+ * Usage:
+ * AsmWriter writer = new AsmWriter();
+ * writer.write(code, channel);
+ */
+public class AsmWriter
+{
+	/**
+	 * About how many characters one line of MIPS takes, used to size the buffer.
+	 */
+	private static final int LINE_GUESS = 24;
+
+	private static final String NEWLINE = System.lineSeparator();
+
+	private StringBuilder text = new StringBuilder();
+
+	/**
+	 * Renders every Instruction in a buffer into the AsmWriter's StringBuilder,
+	 * replacing what was in it.
+	 * @param code the InstructionBuffer.
+	 * @return the StringBuilder holding the text of the program.
+	 */
+	public CharSequence render(InstructionBuffer code)
+	{
+		text.setLength(0);
+		text.ensureCapacity(code.size() * LINE_GUESS);
+		for (int i = 0; i < code.size(); i++)
+		{
+			Instruction ins = code.get(i);
+			if (!ins.isLabel())
+				text.append('\t');
+			ins.appendTo(text);
+			text.append(NEWLINE);
+		}
+		return text;
+	}
+
+	/**
+	 * Writes a buffer to an Appendable, such as a StringBuilder or a Writer.
+	 * @param code the InstructionBuffer.
+	 * @param out where the text goes.
+	 * @throws IOException if the Appendable cannot be written to.
+	 */
+	public void write(InstructionBuffer code, Appendable out) throws IOException
+	{
+		out.append(render(code));
+	}
+
+	/**
+	 * Writes a buffer to an OutputStream, as UTF-8, in one write.
+	 * @param code the InstructionBuffer.
+	 * @param out where the bytes go, which is flushed but not closed.
+	 * @throws IOException if the stream cannot be written to.
+	 */
+	public void write(InstructionBuffer code, OutputStream out) throws IOException
+	{
+		ByteBuffer bytes = encode(code);
+		out.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+		out.flush();
+	}
+
+	/**
+	 * Writes a buffer to a FileChannel, as UTF-8. A channel may write fewer bytes
+	 * than it is given, so this keeps writing until all of them are written.
+	 * @param code the InstructionBuffer.
+	 * @param out the channel, which is not closed.
+	 * @throws IOException if the channel cannot be written to.
+	 */
+	public void write(InstructionBuffer code, FileChannel out) throws IOException
+	{
+		ByteBuffer bytes = encode(code);
+		while (bytes.hasRemaining())
+			out.write(bytes);
+	}
+
+	/**
+	 * Renders a buffer and encodes the text as UTF-8.
+	 * @param code the InstructionBuffer.
+	 * @return the bytes, between the position and the limit of a ByteBuffer.
+	 */
+	private ByteBuffer encode(InstructionBuffer code)
+	{
+		return StandardCharsets.UTF_8.encode(CharBuffer.wrap(render(code)));
+	}
+}
@@ -1,6 +1,13 @@
 package ast;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
 import emitter.Emitter;
+import emitter.Operand;
 import environment.Environment;
+import environment.Frame;
+import vm.BytecodeEmitter;
 /**
  * Class does the task of associating an expression with a variable. 
  * @author Rakesh Nori
@@ -10,6 +17,8 @@ public class Assignment extends Statement
 {
 	private Expression exp; 
 	private String var;
+	private int depth;
+	private int slot;
 	/**
 	 * Instantiates the exp and var instance variables, which are the two components 
 	 * of an Assignment object.
@@ -34,6 +43,126 @@ public class Assignment extends Statement
 		env.setVariable(var, exp.eval(env));
 	}
 	
+	/**
+	 * Resolves the expression and finds the Frame slot of the variable.
+	 * @param r the Resolver that knows where every variable lives.
+	 */
+	public void resolve(Resolver r)
+	{
+		exp.resolve(r);
+		depth = r.getDepth(var);
+		slot = r.getSlot(var);
+	}
+	
+	/**
+	 * Parallelizes the expression being assigned.
+	 * @param pure the pure procedures, as found by Purity.
+	 * @param cutoff how many forks can enclose each other before evaluation 
+	 * 		  turns sequential.
+	 */
+	public void parallelize(Set<ProcedureDeclaration> pure, int cutoff)
+	{
+		exp = exp.parallelize(pure, cutoff);
+	}
+	
+	/**
+	 * Stores the value of the expression in the variable's resolved Frame slot.
+	 * @param frame the Frame of the procedure or program being run.
+	 */
+	public void exec(Frame frame)
+	{
+		frame.set(depth, slot, exp.eval(frame));
+	}
+	
+	/**
+	 * Links the assignment into a closure that writes the slot directly. Adding a 
+	 * constant to the same variable, such as x := x + 1, becomes an in-place add.
+	 * @return a closure that runs the assignment in a Frame.
+	 */
+	public Consumer<Frame> link()
+	{
+		int s = slot;
+		if (exp instanceof AddConstantNode || exp instanceof SubtractConstantNode)
+		{
+			BinOp b = (BinOp)exp;
+			if (b.getLeft() instanceof Variable && ((Variable)b.getLeft()).getDepth() == depth
+				&& ((Variable)b.getLeft()).getSlot() == slot)
+			{
+				int k = ((Number)b.getRight()).getValue();
+				int amount = b instanceof SubtractConstantNode ? -k : k;
+				if (depth == 0)
+					return f -> f.getSlots()[s] += amount;
+				return f -> f.getPadre().getSlots()[s] += amount;
+			}
+		}
+		ToIntFunction<Frame> value = exp.link();
+		if (depth == 0)
+			return f -> f.getSlots()[s] = value.applyAsInt(f);
+		return f -> f.getPadre().getSlots()[s] = value.applyAsInt(f);
+	}
+	
+	/**
+	 * Gets how many Frames up the variable lives, as found by the Resolver.
+	 * @return the depth of the variable.
+	 */
+	public int getDepth()
+	{
+		return depth;
+	}
+	
+	/**
+	 * Gets the Frame slot of the variable, as found by the Resolver.
+	 * @return the slot of the variable.
+	 */
+	public int getSlot()
+	{
+		return slot;
+	}
+	
+	/**
+	 * Pushes the expression and stores it in the variable's resolved slot.
+	 * @param b the BytecodeEmitter that collects the instructions.
+	 */
+	public void compile(BytecodeEmitter b)
+	{
+		exp.compile(b);
+		b.emitStore(depth, slot);
+	}
+	
+	/**
+	 * Compiles the assignment as the last statement of a procedure. Assigning a 
+	 * call of the procedure itself to its own name, such as f := f(n - 1), is a 
+	 * self tail call, which reuses the current frame and jumps back to the start 
+	 * of the procedure instead of calling it.
+	 * @param b the BytecodeEmitter that collects the instructions.
+	 */
+	public void compileTail(BytecodeEmitter b)
+	{
+		if (depth == 0 && slot == 0 && exp instanceof ProcedureCall
+			&& ((ProcedureCall)exp).getDeclaration() == b.getCurrentProcedure())
+			((ProcedureCall)exp).compileTailCall(b);
+		else
+			compile(b);
+	}
+	
+	/**
+	 * Gets the expression being assigned.
+	 * @return the Expression whose value is stored.
+	 */
+	public Expression getExpression()
+	{
+		return exp;
+	}
+	
+	/**
+	 * Gets the name of the variable being assigned to.
+	 * @return the name of the variable.
+	 */
+	public String getName()
+	{
+		return var;
+	}
+	
 	/**
 	 * Converts the code for the assignemnt operation from the current language to MIPS.
 	 * @param e the Emitter that writes to the MIPS file.
@@ -42,8 +171,8 @@ public class Assignment extends Statement
 	{
 		exp.compile(e);
 		if (e.isLocalVariable(var))
-			e.emit("sw $v0, "+ e.getOffset(var) + "($sp)");
+			e.emit("sw", Operand.register("$v0"), Operand.memory(e.getOffset(var), "$sp"));
 		else
-			e.emit("sw $v0, var" + var);
+			e.emit("sw", Operand.register("$v0"), Operand.symbol("var" + var));
 	}
 }
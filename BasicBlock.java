@@ -0,0 +1,95 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A BasicBlock is a run of Quads that is only ever entered at its first Quad and
+ * left at its last one, which is always a JUMP, BRANCH or RETURN once the IrFunction
+ * holding it is finished. Its successors are the blocks its last Quad can go to.
+ * @author Rakesh Nori
+ * @version 7/6/2018
+ */
+public class BasicBlock
+{
+	private final int id;
+	private final List<Quad> quads = new ArrayList<Quad>();
+
+	/**
+	 * Creates an empty BasicBlock. Only IrFunction.newBlock calls this, so the number
+	 * is unique in the function.
+	 * @param number the number of the block in its function.
+	 */
+	BasicBlock(int number)
+	{
+		id = number;
+	}
+
+	/**
+	 * Gets the number of the block in its function.
+	 * @return the number.
+	 */
+	public int getId()
+	{
+		return id;
+	}
+
+	/**
+	 * Gets the name of the block in the IR dump.
+	 * @return "L" followed by the number.
+	 */
+	public String getName()
+	{
+		return "L" + id;
+	}
+
+	/**
+	 * Adds a Quad to the end of the block.
+	 * @param q the Quad.
+	 * @throws IllegalStateException if the block already ends in a JUMP, BRANCH or RETURN.
+	 */
+	public void add(Quad q)
+	{
+		if (isTerminated())
+			throw new IllegalStateException("Block " + getName() + " is already terminated.");
+		quads.add(q);
+	}
+
+	/**
+	 * Gets the Quads of the block.
+	 * @return the Quads, in order, which cannot be changed through this list.
+	 */
+	public List<Quad> getQuads()
+	{
+		return Collections.unmodifiableList(quads);
+	}
+
+	/**
+	 * Checks if the block ends in a JUMP, BRANCH or RETURN.
+	 * @return true if it does; otherwise, false.
+	 */
+	public boolean isTerminated()
+	{
+		return !quads.isEmpty() && quads.get(quads.size() - 1).isTerminator();
+	}
+
+	/**
+	 * Gets the blocks the last Quad can go to.
+	 * @return the successors: none after a RETURN, one after a JUMP, and the true
+	 * 		   block then the false block after a BRANCH.
+	 */
+	public List<BasicBlock> getSuccessors()
+	{
+		List<BasicBlock> next = new ArrayList<BasicBlock>();
+		if (isTerminated())
+		{
+			Quad last = quads.get(quads.size() - 1);
+			if (last.getTarget() != null)
+				next.add(last.getTarget());
+			if (last.getOther() != null)
+				next.add(last.getOther());
+		}
+		return next;
+	}
+}
@@ -1,6 +1,13 @@
 package ast;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
 import emitter.Emitter;
+import emitter.Operand;
 import environment.Environment;
+import environment.Frame;
+import vm.Bytecode;
+import vm.BytecodeEmitter;
 /**
  * The BinOp class manages operators like +, -, and % 
  * between the values of two expressions.
@@ -11,8 +18,8 @@ import environment.Environment;
 public class BinOp extends Expression
 {
 	private String op;
-	private Expression exp1;
-	private Expression exp2;
+	protected Expression exp1;
+	protected Expression exp2;
 	/**
 	 * The constructor for BinOp
 	 * @param in the actual operand that identifies the expression to be used 
@@ -27,6 +34,43 @@ public class BinOp extends Expression
 		exp2 = b;
 	}
 	
+	/**
+	 * Makes the node for a binary operator, specialized to the operator so its eval
+	 * never compares Strings. Each subclass applies its operator directly in its own 
+	 * eval, link and apply, so evaluating it never looks at the operator. Two Numbers 
+	 * are folded into one Number, unless the operator divides by zero, which is left 
+	 * to fail when it is evaluated. A Number on the right of + or - is kept as a 
+	 * constant inside the node.
+	 * @param in the operator (ex: "*", "/").
+	 * @param a the first / left expression.
+	 * @param b the second / right expression.
+	 * @return the specialized node, or a Number if both sides are Numbers.
+	 */
+	public static Expression create(String in, Expression a, Expression b)
+	{
+		BinOp node;
+		if (in.equals("+"))
+			node = b instanceof Number ? new AddConstantNode(a, (Number)b) : new AddNode(a, b);
+		else if (in.equals("-"))
+			node = b instanceof Number ? new SubtractConstantNode(a, (Number)b) 
+									   : new SubtractNode(a, b);
+		else if (in.equals("*"))
+			node = new MultiplyNode(a, b);
+		else if (in.equals("/"))
+			node = new DivideNode(a, b);
+		else if (in.equals("%"))
+			node = new ModNode(a, b);
+		else
+			return new BinOp(in, a, b);
+		if (a instanceof Number && b instanceof Number)
+		{
+			int right = ((Number)b).getValue();
+			if (right != 0 || in.equals("+") || in.equals("-") || in.equals("*"))
+				return new Number(node.apply(((Number)a).getValue(), right));
+		}
+		return node;
+	}
+	
 	/**
 	 * @Override
 	 * Identifies the binary operator being used and uses it to evaluate the two expressions.
@@ -35,45 +79,318 @@ public class BinOp extends Expression
 	 * 		   the operator has been used.
 	 */
 	public int eval(Environment env)
+	{
+		int a = exp1.eval(env);
+		return apply(a, exp2.eval(env));
+	}
+	
+	/**
+	 * Resolves both expressions.
+	 * @param r the Resolver being used.
+	 */
+	public void resolve(Resolver r)
+	{
+		exp1.resolve(r);
+		exp2.resolve(r);
+	}
+	
+	/**
+	 * Parallelizes both expressions, and wraps the BinOp in a ForkNode if both sides 
+	 * only call pure procedures.
+	 * @param pure the pure procedures, as found by Purity.
+	 * @param cutoff how many forks can enclose each other before evaluation 
+	 * 		  turns sequential.
+	 * @return the ForkNode, or this BinOp if its sides are not independent calls.
+	 */
+	public Expression parallelize(Set<ProcedureDeclaration> pure, int cutoff)
+	{
+		boolean fork = ForkNode.independent(exp1, exp2, pure);
+		exp1 = exp1.parallelize(pure, cutoff);
+		exp2 = exp2.parallelize(pure, cutoff);
+		return fork ? new ForkNode(this, cutoff) : this;
+	}
+	
+	/**
+	 * Evaluates the two expressions in a Frame and uses the operator on them.
+	 * @param frame the Frame containing variables that can be used.
+	 * @return the Integer result between the two expressions after 
+	 * 		   the operator has been used.
+	 */
+	public int eval(Frame frame)
+	{
+		int a = exp1.eval(frame);
+		return apply(a, exp2.eval(frame));
+	}
+	
+	/**
+	 * Links the two expressions into a closure that uses the operator on them.
+	 * @return a closure that evaluates the operation in a Frame.
+	 */
+	public ToIntFunction<Frame> link()
+	{
+		ToIntFunction<Frame> a = exp1.link();
+		ToIntFunction<Frame> b = exp2.link();
+		return f -> apply(a.applyAsInt(f), b.applyAsInt(f));
+	}
+	
+	/**
+	 * Pushes both expressions and then the instruction for the operator.
+	 * @param b the BytecodeEmitter that collects the instructions.
+	 */
+	public void compile(BytecodeEmitter b)
+	{
+		exp1.compile(b);
+		exp2.compile(b);
+		if (op.equals("+"))
+			b.emit(Bytecode.ADD);
+		else if (op.equals("-"))
+			b.emit(Bytecode.SUB);
+		else if (op.equals("*"))
+			b.emit(Bytecode.MUL);
+		else if (op.equals("/"))
+			b.emit(Bytecode.DIV);
+		else if (op.equals("%"))
+			b.emit(Bytecode.MOD);
+		else
+			throw new IllegalArgumentException("Unknown operator " + op + ".");
+	}
+	
+	/**
+	 * Uses the binary operator on two values that have already been evaluated.
+	 * @param a the value of the first / left expression.
+	 * @param b the value of the second / right expression.
+	 * @return the result of the operator, or 0 if the operator is unknown.
+	 */
+	public int apply(int a, int b)
 	{
 		if (op.equals("%"))
-			return (exp1).eval(env) % (exp2).eval(env);
+			return a % b;
 		else if (op.equals("*"))
-			return (exp1).eval(env) * (exp2).eval(env);
+			return a * b;
 		else if (op.equals("/"))
-			return (exp1).eval(env) /(exp2).eval(env);
+			return a / b;
 		else if (op.equals("-"))
-			return (exp1).eval(env) - (exp2).eval(env);
+			return a - b;
 		else if (op.equals("+"))
-			return (exp1).eval(env) + (exp2).eval(env);
+			return a + b;
 		else return 0;
 	}
 	
 	/**
-	 * Converts the operation for a BinOp from the current language to MIPS.
+	 * Gets the operator of the BinOp.
+	 * @return the operator, such as "+" or "%".
+	 */
+	public String getOperator()
+	{
+		return op;
+	}
+	
+	/**
+	 * Gets the first / left expression.
+	 * @return the left Expression.
+	 */
+	public Expression getLeft()
+	{
+		return exp1;
+	}
+	
+	/**
+	 * Gets the second / right expression.
+	 * @return the right Expression.
+	 */
+	public Expression getRight()
+	{
+		return exp2;
+	}
+	
+	/**
+	 * Converts the operation for a BinOp from the current language to MIPS, 
+	 * leaving the result in $v0.
 	 * @param e the Emitter that writes to the MIPS file.
 	 */
 	public void compile(Emitter e)
 	{
-		exp1.compile(e);
-		e.emitPush("$v0");
-		exp2.compile(e);
-		e.emitPush("$v0");
-		e.emitPop("$t1");
-		e.emitPop("$t0");
+		compileTo(e, "$v0");
+	}
+	
+	/**
+	 * Converts the operation to MIPS that leaves the result in a register. The side 
+	 * that needs more registers is evaluated first, so the other side has as many 
+	 * free registers as it can, and a Number added or subtracted on the right 
+	 * becomes an immediate.
+	 * @param e the Emitter that writes to the MIPS file.
+	 * @param reg the register to leave the result in.
+	 */
+	public void compileTo(Emitter e, String reg)
+	{
+		if (isImmediate())
+		{
+			int k = ((Number)exp2).getValue();
+			exp1.compileTo(e, reg);
+			e.emit("addiu", Operand.register(reg), Operand.register(reg), 
+				   Operand.immediate(op.equals("+") ? k : -k));
+			return;
+		}
+		String[] regs = compileOperands(e, exp1, exp2, reg);
+		Operand target = Operand.register(reg);
+		Operand left = Operand.register(regs[0]);
+		Operand right = Operand.register(regs[1]);
 		if (op.equals("*"))
 		{
-			e.emit("mult $t0, $t1");
-			e.emit("mflo $v0");
+			e.emit("mult", left, right);
+			e.emit("mflo", target);
 		}
-		if (op.equals("+"))
-			e.emit("addu $v0, $t0, $t1");
+		else if (op.equals("+"))
+			e.emit("addu", target, left, right);
 		else if (op.equals("-"))
-			e.emit("subu, $v0, $t0, $t1");
-		else if (op.equals("/"))
+			e.emit("subu", target, left, right);
+		else if (op.equals("/") || op.equals("%"))
+		{
+			e.emit("div", left, right);
+			e.emit(op.equals("/") ? "mflo" : "mfhi", target);
+		}
+		release(e, regs, reg);
+	}
+	
+	/**
+	 * Checks if the BinOp adds or subtracts a Number that fits in the 16 bits of an 
+	 * immediate, so the Number does not need a register.
+	 * @return true if the right side can be an immediate; otherwise, false.
+	 */
+	private boolean isImmediate()
+	{
+		if (!(exp2 instanceof Number) || !(op.equals("+") || op.equals("-")))
+			return false;
+		int k = ((Number)exp2).getValue();
+		return k > Short.MIN_VALUE && k <= Short.MAX_VALUE;
+	}
+	
+	/**
+	 * Gets the Sethi-Ullman number of the BinOp. Two sides that need the same number 
+	 * of registers need one more, since the value of the first is held while the 
+	 * second is evaluated; otherwise the side that needs more is evaluated first, 
+	 * unless the sides have to stay in source order.
+	 * @return the number of registers.
+	 */
+	public int registerNeed()
+	{
+		if (isImmediate())
+			return exp1.registerNeed();
+		return need(exp1, exp2);
+	}
+	
+	/**
+	 * Combines the Sethi-Ullman numbers of two sides. When the right side needs more 
+	 * but the sides cannot be reordered, the left value is held while the right side 
+	 * is evaluated, which takes one more register.
+	 * @param left the left side.
+	 * @param right the right side.
+	 * @return the number of the operation on them.
+	 */
+	static int need(Expression left, Expression right)
+	{
+		int l = left.registerNeed();
+		int r = right.registerNeed();
+		if (l == r || (r > l && !canReorder(left, right)))
+			return r + 1;
+		return Math.max(l, r);
+	}
+	
+	/**
+	 * Checks if the right side of an operation can be evaluated before the left side. 
+	 * A procedure call can change the globals the other side reads, so a side with a 
+	 * call is only moved ahead of a Number; otherwise the sides stay left to right, 
+	 * the same order every interpreter uses.
+	 * @param left the left side.
+	 * @param right the right side.
+	 * @return true if the order of the sides does not change the result; 
+	 * 		   otherwise, false.
+	 */
+	static boolean canReorder(Expression left, Expression right)
+	{
+		return left instanceof Number || (!hasCall(left) && !hasCall(right));
+	}
+	
+	/**
+	 * Checks if an Expression calls a procedure anywhere inside it.
+	 * @param e the Expression.
+	 * @return true if it contains a ProcedureCall; otherwise, false.
+	 */
+	static boolean hasCall(Expression e)
+	{
+		if (e instanceof ProcedureCall)
+			return true;
+		if (e instanceof BinOp)
+			return hasCall(((BinOp)e).getLeft()) || hasCall(((BinOp)e).getRight());
+		if (e instanceof Condition)
+			return hasCall(((Condition)e).getLeft()) || hasCall(((Condition)e).getRight());
+		if (e instanceof Negate)
+			return hasCall(((Negate)e).getExpression());
+		return false;
+	}
+	
+	/**
+	 * Evaluates the two sides of an operation into registers, the side that needs more 
+	 * registers first when canReorder allows it and left to right otherwise. The first 
+	 * side goes into the target register when it is one the Emitter hands out, since a 
+	 * procedure call in the second side would overwrite $v0. A value held in a register 
+	 * across a procedure call is saved by the call. When no register is free the first 
+	 * value is pushed while the second is evaluated and popped into $v1, the way every 
+	 * operand used to go on the stack.
+	 * @param e the Emitter that writes to the MIPS file.
+	 * @param left the left side.
+	 * @param right the right side.
+	 * @param target the register the result goes into, or null if there is none.
+	 * @return the registers holding the left and the right values, which are 
+	 * 		   given back with release once the operation has been emitted.
+	 */
+	static String[] compileOperands(Emitter e, Expression left, Expression right, 
+									String target)
+	{
+		boolean swap = right.registerNeed() > left.registerNeed() && canReorder(left, right);
+		Expression first = swap ? right : left;
+		Expression second = swap ? left : right;
+		String a = target != null && e.isRegister(target) ? target : e.allocate();
+		String b;
+		if (a == null)
+		{
+			first.compileTo(e, "$v0");
+			e.emitPush("$v0");
+			second.compileTo(e, "$v0");
+			e.emitPop("$v1");
+			a = "$v1";
+			b = "$v0";
+		}
+		else
+		{
+			first.compileTo(e, a);
+			b = e.allocate();
+			if (b == null)
+			{
+				e.emitPush(a);
+				second.compileTo(e, a);
+				e.emitPop("$v1");
+				b = a;
+				a = "$v1";
+			}
+			else
+				second.compileTo(e, b);
+		}
+		return swap ? new String[] {b, a} : new String[] {a, b};
+	}
+	
+	/**
+	 * Gives back the registers compileOperands took, except the target.
+	 * @param e the Emitter that writes to the MIPS file.
+	 * @param regs the registers compileOperands returned.
+	 * @param target the register the result went into, or null if there is none.
+	 */
+	static void release(Emitter e, String[] regs, String target)
+	{
+		for (String r : regs)
 		{
-			e.emit("div $t0, $t1");
-			e.emit("mflo $v0");
+			if (!r.equals(target))
+				e.free(r);
 		}
 	}
 	
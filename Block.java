@@ -1,8 +1,11 @@
 package ast;
 import java.util.*;
+import java.util.function.Consumer;
 
 import emitter.Emitter;
 import environment.Environment;
+import environment.Frame;
+import vm.BytecodeEmitter;
 
 /**
  * The Block class contains an ArrayList of statements located between its 
@@ -35,6 +38,15 @@ public class Block extends Statement
 		stmnts.add(s);
 	}
 
+	/**
+	 * Gets the statements in the Block.
+	 * @return the List of statements, in order.
+	 */
+	public List<Statement> getStatements()
+	{
+		return stmnts;
+	}
+
 	/**
 	 * @Override
 	 * Executes all the statements in the Block's List.
@@ -49,6 +61,80 @@ public class Block extends Statement
 		}
 	}
 	
+	/**
+	 * Resolves every statement in the block.
+	 * @param r the Resolver being used.
+	 */
+	public void resolve(Resolver r)
+	{
+		for (Statement s : stmnts)
+			s.resolve(r);
+	}
+	
+	/**
+	 * Parallelizes every statement in the block.
+	 * @param pure the pure procedures, as found by Purity.
+	 * @param cutoff how many forks can enclose each other before evaluation 
+	 * 		  turns sequential.
+	 */
+	public void parallelize(Set<ProcedureDeclaration> pure, int cutoff)
+	{
+		for (Statement s : stmnts)
+			s.parallelize(pure, cutoff);
+	}
+	
+	/**
+	 * Executes every statement in the block in a Frame, in order. The statements are 
+	 * walked by index, so no Iterator is allocated.
+	 * @param frame the Frame holding the variables the statements use.
+	 */
+	public void exec(Frame frame)
+	{
+		for (int i = 0; i < stmnts.size(); i++)
+			stmnts.get(i).exec(frame);
+	}
+	
+	/**
+	 * Links every statement in the block and runs the closures in order.
+	 * @return a closure that runs the block in a Frame.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public Consumer<Frame> link()
+	{
+		if (stmnts.size() == 1)
+			return stmnts.get(0).link();
+		Consumer<Frame>[] parts = new Consumer[stmnts.size()];
+		for (int i = 0; i < parts.length; i++)
+			parts[i] = stmnts.get(i).link();
+		return f -> {
+			for (Consumer<Frame> part : parts)
+				part.accept(f);
+		};
+	}
+	
+	/**
+	 * Compiles every statement in the block, in order.
+	 * @param b the BytecodeEmitter that collects the instructions.
+	 */
+	public void compile(BytecodeEmitter b)
+	{
+		for (Statement s : stmnts)
+			s.compile(b);
+	}
+	
+	/**
+	 * Compiles every statement in the block, in order, with the last one in 
+	 * tail position.
+	 * @param b the BytecodeEmitter that collects the instructions.
+	 */
+	public void compileTail(BytecodeEmitter b)
+	{
+		for (int i = 0; i < stmnts.size() - 1; i++)
+			stmnts.get(i).compile(b);
+		if (!stmnts.isEmpty())
+			stmnts.get(stmnts.size() - 1).compileTail(b);
+	}
+	
 	/**
 	 * Converts the statements inside the block from the current language to MIPS.
 	 * @param e the Emitter that writes to the MIPS file.
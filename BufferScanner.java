@@ -0,0 +1,435 @@
+package scanner;
+import java.io.*;
+
+/**
+ * BufferScanner is a scanner that works over a SourceBuffer instead of a stream.
+ * It accepts the same language as Scanner, but a token is only a start and an
+ * end offset into the buffer, so scanning does not copy or allocate anything.
+ * A String for the lexeme is made only when getLexeme or nextToken is called.
+ * As a TokenStream it also gives the kind of every token, looking identifiers
+ * up in its SymbolTable so reserved words are resolved once, here.
+ * Comments and numbers that are too large are handled the way Scanner handles
+ * them. The one difference is a block comment that is never closed: Scanner
+ * never returns from it, and BufferScanner ends it at the end of the input.
+ * @author Rakesh Nori
+ * @version 6/8/2018
+ * Usage:
+ * BufferScanner lex = new BufferScanner(SourceBuffer.map(new File(<file name>)));
+ * while (lex.advance())
+ *     System.out.println(lex.getLexeme());
+ */
+public class BufferScanner implements TokenStream
+{
+    private SourceBuffer src;
+    private SymbolTable symbols;
+    private TokenKind kind;
+    private String symbol;
+    private int value;
+    private int pos;
+    private int limit;
+    private int line;
+    private int tokenStart;
+    private int tokenEnd;
+    private int tokenLine;
+
+    /**
+     * Creates a BufferScanner over a SourceBuffer.
+     * @param source the text to scan.
+     */
+    public BufferScanner(SourceBuffer source)
+    {
+        this(source, 0, source.length(), 1);
+    }
+
+    /**
+     * Creates a BufferScanner over a part of a SourceBuffer.
+     * @param source the text to scan.
+     * @param from the offset where scanning starts.
+     * @param to the offset where scanning stops.
+     * @param firstLine the line number at offset from.
+     */
+    public BufferScanner(SourceBuffer source, int from, int to, int firstLine)
+    {
+        src = source;
+        pos = from;
+        limit = to;
+        line = firstLine;
+        tokenStart = from;
+        tokenEnd = from;
+        symbols = new SymbolTable();
+        kind = TokenKind.EOF;
+    }
+
+    /**
+     * Creates a BufferScanner over the given characters.
+     * @param text the characters to scan.
+     */
+    public BufferScanner(char[] text)
+    {
+        this(new SourceBuffer(text));
+    }
+
+    /**
+     * Gets the character at the given offset, treating a '.' like the end of
+     * the input the same way Scanner does.
+     * @param index the offset of the character.
+     * @return the character, or 0 if the input has ended.
+     */
+    private char peek(int index)
+    {
+        if (index >= limit)
+            return 0;
+        char c = src.charAt(index);
+        if (c == '.')
+        {
+            limit = index;
+            return 0;
+        }
+        return c;
+    }
+
+    /**
+     * Skips whitespace and all three kinds of comments, counting lines as it goes.
+     * Like Scanner, it looks for the end of a block comment starting at the '*' of
+     * the opening, so "(*)" is a whole comment, and so is "/*" followed right away
+     * by a '/'. Either closing ends either opening.
+     * @postcondition pos is at the start of a token or at the end of the input.
+     */
+    private void skipIgnored()
+    {
+        while (true)
+        {
+            char c = peek(pos);
+            if (c == ' ' || c == '\t' || c == '\r')
+                pos++;
+            else if (c == '\n')
+            {
+                pos++;
+                line++;
+            }
+            else if (c == '/' && peek(pos + 1) == '/')
+            {
+                pos += 2;
+                while ((c = peek(pos)) != 0 && c != '\n')
+                    pos++;
+            }
+            else if ((c == '/' || c == '(') && peek(pos + 1) == '*')
+            {
+                pos++;
+                while ((c = peek(pos)) != 0 &&
+                       !(c == '*' && (peek(pos + 1) == '/' || peek(pos + 1) == ')')))
+                {
+                    if (c == '\n')
+                        line++;
+                    pos++;
+                }
+                if (c != 0)
+                    pos += 2;
+            }
+            else
+                return;
+        }
+    }
+
+    /**
+     * Moves to the next token.
+     * @return true if a token was found; otherwise,
+     * 		   false, because the end of the input was reached.
+     * @throws ScanErrorException if an illegal character is present.
+     */
+    public boolean advance() throws ScanErrorException
+    {
+        skipIgnored();
+        tokenStart = pos;
+        tokenLine = line;
+        char c = peek(pos);
+        if (c == 0)
+        {
+            tokenEnd = pos;
+            return false;
+        }
+        if (Scanner.isLetter(c))
+        {
+            pos++;
+            while (Scanner.isLetter(c = peek(pos)) || Scanner.isDigit(c))
+                pos++;
+        }
+        else if (Scanner.isDigit(c))
+        {
+            pos++;
+            while (Scanner.isDigit(peek(pos)))
+                pos++;
+        }
+        else if (Scanner.isOperand(c))
+        {
+            pos++;
+            char next = peek(pos);
+            if ((c == ':' && next == '=') || (c == '>' && next == '=')
+                || (c == '<' && (next == '=' || next == '>')))
+                pos++;
+        }
+        else
+            throw new ScanErrorException("Illegal character on line " + line + ": " + c);
+        tokenEnd = pos;
+        return true;
+    }
+
+    /**
+     * Moves to the next token and works out its kind. Identifiers and reserved words
+     * are looked up in the SymbolTable, numbers are converted straight from the buffer.
+     * @return the kind of the new current token, EOF at the end of the input.
+     * @throws ScanErrorException if an illegal character is present.
+     * @throws NumberFormatException if a number is too large, as in Scanner.
+     */
+    public TokenKind next() throws ScanErrorException
+    {
+        symbol = null;
+        if (!advance())
+            kind = TokenKind.EOF;
+        else
+        {
+            char c = src.charAt(tokenStart);
+            if (Scanner.isLetter(c))
+            {
+                int entry = symbols.find(src, tokenStart, tokenEnd);
+                kind = symbols.getKind(entry);
+                symbol = symbols.getName(entry);
+            }
+            else if (Scanner.isDigit(c))
+            {
+                kind = TokenKind.NUMBER;
+                value = toInt(tokenStart, tokenEnd);
+            }
+            else
+            {
+                kind = operatorKind(c, tokenEnd - tokenStart == 2 ? src.charAt(tokenStart + 1) : 0);
+                symbol = kind.getText();
+            }
+        }
+        return kind;
+    }
+
+    /**
+     * Converts the digits between start and end to an int. A number that does not
+     * fit is handed to Integer.parseInt, so it fails the same way it does in Scanner.
+     * @param start the offset of the first digit.
+     * @param end the offset after the last digit.
+     * @return the value of the digits.
+     * @throws NumberFormatException if the number does not fit in an int.
+     */
+    private int toInt(int start, int end)
+    {
+        long n = 0;
+        for (int i = start; i < end; i++)
+        {
+            n = n * 10 + (src.charAt(i) - '0');
+            if (n > Integer.MAX_VALUE)
+                return Integer.parseInt(src.substring(start, end));
+        }
+        return (int)n;
+    }
+
+    /**
+     * Gets the kind of an operator from its one or two characters.
+     * @param first the first character of the operator.
+     * @param second the second character, or 0 for a one character operator.
+     * @return the kind of the operator.
+     */
+    static TokenKind operatorKind(char first, char second)
+    {
+        switch (first)
+        {
+            case ':':
+                return second == '=' ? TokenKind.ASSIGN : TokenKind.COLON;
+            case '<':
+                if (second == '=')
+                    return TokenKind.LESS_EQUAL;
+                return second == '>' ? TokenKind.NOT_EQUAL : TokenKind.LESS;
+            case '>':
+                return second == '=' ? TokenKind.GREATER_EQUAL : TokenKind.GREATER;
+            case '=':
+                return TokenKind.EQUAL;
+            case '+':
+                return TokenKind.PLUS;
+            case '-':
+                return TokenKind.MINUS;
+            case '*':
+                return TokenKind.TIMES;
+            case '/':
+                return TokenKind.DIVIDE;
+            case '%':
+                return TokenKind.MOD;
+            case '(':
+                return TokenKind.LPAREN;
+            case ')':
+                return TokenKind.RPAREN;
+            case ';':
+                return TokenKind.SEMICOLON;
+            default:
+                return TokenKind.COMMA;
+        }
+    }
+
+    /**
+     * Gets the kind of the current token.
+     * @return the kind of the current token.
+     */
+    public TokenKind getKind()
+    {
+        return kind;
+    }
+
+    /**
+     * Gets the interned name of the current identifier, or the spelling
+     * of the current reserved word or operator.
+     * @return the symbol of the current token, null for a number.
+     */
+    public String getSymbol()
+    {
+        return symbol;
+    }
+
+    /**
+     * Gets the value of the current token if it is a number.
+     * @return the value of the current number.
+     */
+    public int getValue()
+    {
+        return value;
+    }
+
+    /**
+     * Gets the line the current token is on.
+     * @return the line number of the current token.
+     */
+    public int getTokenLine()
+    {
+        return tokenLine;
+    }
+
+    /**
+     * Gets the SymbolTable that identifiers are interned in.
+     * @return the SymbolTable of this scanner.
+     */
+    public SymbolTable getSymbols()
+    {
+        return symbols;
+    }
+
+    /**
+     * Checks if the input still has tokens in it.
+     * @return true if the end of the input has not been reached; otherwise,
+     * 		   false.
+     */
+    public boolean hasNext()
+    {
+        skipIgnored();
+        return peek(pos) != 0;
+    }
+
+    /**
+     * Gets the offset of the first character of the current token.
+     * @return the start offset of the current token.
+     */
+    public int getTokenStart()
+    {
+        return tokenStart;
+    }
+
+    /**
+     * Gets the offset after the last character of the current token.
+     * @return the end offset of the current token.
+     */
+    public int getTokenEnd()
+    {
+        return tokenEnd;
+    }
+
+    /**
+     * Gets the line the scanner has reached.
+     * @return the line number at the scanner's position.
+     */
+    public int getLine()
+    {
+        return line;
+    }
+
+    /**
+     * Gets the offset the scanner has reached.
+     * @return the offset of the next character to be scanned.
+     */
+    public int getPosition()
+    {
+        return pos;
+    }
+
+    /**
+     * Gets the buffer being scanned.
+     * @return the SourceBuffer of this scanner.
+     */
+    public SourceBuffer getSource()
+    {
+        return src;
+    }
+
+    /**
+     * Makes a String out of the current token.
+     * @return the lexeme of the current token, or "EOF" at the end of the input.
+     */
+    public String getLexeme()
+    {
+        if (tokenStart == tokenEnd)
+            return "EOF";
+        return src.substring(tokenStart, tokenEnd);
+    }
+
+    /**
+     * Checks if the current token is the given String without making a new String.
+     * @param s the String being compared.
+     * @return true if the current token is s; otherwise,
+     * 		   false.
+     */
+    public boolean lexemeEquals(String s)
+    {
+        return src.regionEquals(tokenStart, tokenEnd, s);
+    }
+
+    /**
+     * nextToken works like Scanner.nextToken, so a BufferScanner can replace a Scanner.
+     * An identifier or number right at the end of the input gets "\nEOF" appended
+     * to it, just as Scanner does.
+     * @return the next token as a String.
+     * @throws ScanErrorException if an illegal character is present.
+     */
+    public String nextToken() throws ScanErrorException
+    {
+        if (!advance())
+            return "EOF";
+        String lexeme = getLexeme();
+        if (Scanner.isDigit(lexeme.charAt(0)) || Scanner.isLetter(lexeme.charAt(0)))
+        {
+            if (peek(pos) == 0)
+                lexeme = lexeme + "\nEOF";
+        }
+        return lexeme;
+    }
+
+    /**
+     * The main method that scans a file by memory-mapping it.
+     * @param args list of arguments from the command line, the first one
+     * 		  being the name of the file to scan.
+     * @throws ScanErrorException if an illegal character is present in the file.
+     * @throws IOException if the file cannot be mapped.
+     */
+    public static void main(String [] args) throws ScanErrorException, IOException
+    {
+        String name = "ScannerTest.txt";
+        if (args.length > 0)
+            name = args[0];
+        BufferScanner sc = new BufferScanner(SourceBuffer.map(new File(name)));
+        while (sc.advance())
+        {
+            System.out.println(sc.getLexeme());
+        }
+    }
+}
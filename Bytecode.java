@@ -0,0 +1,208 @@
+package vm;
+
+/**
+ * Bytecode holds a compiled program for the VirtualMachine: one int array of
+ * instructions for the main statement and every procedure, and a table that gives
+ * the entry point, argument count and frame size of each procedure. Every
+ * instruction is an opcode followed by its operands, which are also ints.
+ * Variables are addressed by slot, either in the current procedure's frame (LOAD,
+ * STORE) or in the globals (GLOAD, GSTORE). The conditional jumps compare the top two
+ * values of the stack and jump when the relation holds, so a Condition in an IF
+ * compiles to a single jump on the opposite relation, and the one of a WHILE or FOR
+ * to a single jump back on the relation itself, at the bottom of the loop.
+ * Every operator and jump takes its values from the stack.
+ * @author Rakesh Nori
+ * @version 6/24/2018
+ */
+public class Bytecode
+{
+	/** CONST n: pushes n. */
+	public static final int CONST = 0;
+	/** LOAD s: pushes slot s of the current frame. */
+	public static final int LOAD = 1;
+	/** STORE s: pops into slot s of the current frame. */
+	public static final int STORE = 2;
+	/** GLOAD s: pushes global slot s. */
+	public static final int GLOAD = 3;
+	/** GSTORE s: pops into global slot s. */
+	public static final int GSTORE = 4;
+	/** ADD: pops b and a, pushes a + b. */
+	public static final int ADD = 5;
+	/** SUB: pops b and a, pushes a - b. */
+	public static final int SUB = 6;
+	/** MUL: pops b and a, pushes a * b. */
+	public static final int MUL = 7;
+	/** DIV: pops b and a, pushes a / b. */
+	public static final int DIV = 8;
+	/** MOD: pops b and a, pushes a % b. */
+	public static final int MOD = 9;
+	/** NEG: negates the top of the stack. */
+	public static final int NEG = 10;
+	/** EQ: pops b and a, pushes 1 if a = b, otherwise 0. */
+	public static final int EQ = 11;
+	/** NE: pops b and a, pushes 1 if a <> b, otherwise 0. */
+	public static final int NE = 12;
+	/** LT: pops b and a, pushes 1 if a < b, otherwise 0. */
+	public static final int LT = 13;
+	/** GT: pops b and a, pushes 1 if a > b, otherwise 0. */
+	public static final int GT = 14;
+	/** LE: pops b and a, pushes 1 if a <= b, otherwise 0. */
+	public static final int LE = 15;
+	/** GE: pops b and a, pushes 1 if a >= b, otherwise 0. */
+	public static final int GE = 16;
+	/** JUMP t: goes to t. */
+	public static final int JUMP = 17;
+	/** JEQ t: pops b and a, goes to t if a = b. */
+	public static final int JEQ = 18;
+	/** JNE t: pops b and a, goes to t if a <> b. */
+	public static final int JNE = 19;
+	/** JLT t: pops b and a, goes to t if a < b. */
+	public static final int JLT = 20;
+	/** JGT t: pops b and a, goes to t if a > b. */
+	public static final int JGT = 21;
+	/** JLE t: pops b and a, goes to t if a <= b. */
+	public static final int JLE = 22;
+	/** JGE t: pops b and a, goes to t if a >= b. */
+	public static final int JGE = 23;
+	/** CALL p: calls procedure p, whose return slot and arguments are on the stack. */
+	public static final int CALL = 24;
+	/** RET: leaves the procedure, leaving its return slot on top of the stack. */
+	public static final int RET = 25;
+	/** PRINT: pops a value and prints it on its own line. */
+	public static final int PRINT = 26;
+	/** READ: reads an int from the input and pushes it. */
+	public static final int READ = 27;
+	/** HALT: stops the program. */
+	public static final int HALT = 28;
+	private static final String[] NAMES = {"CONST", "LOAD", "STORE", "GLOAD", "GSTORE",
+		"ADD", "SUB", "MUL", "DIV", "MOD", "NEG", "EQ", "NE", "LT", "GT", "LE", "GE",
+		"JUMP", "JEQ", "JNE", "JLT", "JGT", "JLE", "JGE", "CALL", "RET", "PRINT", "READ",
+		"HALT"};
+
+	private int[] code;
+	private int[] entries;
+	private int[] argCounts;
+	private int[] frameSizes;
+	private int[] maxStacks;
+	private int mainStack;
+	private int globalCount;
+
+	/**
+	 * Creates a Bytecode.
+	 * @param instructions the instructions and their operands.
+	 * @param entry the address of the first instruction of every procedure.
+	 * @param args the number of arguments of every procedure.
+	 * @param frames the number of frame slots of every procedure.
+	 * @param stacks the deepest the stack gets above the frame of every procedure.
+	 * @param main the deepest the stack gets in the main statement.
+	 * @param globals the number of global slots.
+	 */
+	public Bytecode(int[] instructions, int[] entry, int[] args, int[] frames, int[] stacks,
+					int main, int globals)
+	{
+		code = instructions;
+		entries = entry;
+		argCounts = args;
+		frameSizes = frames;
+		maxStacks = stacks;
+		mainStack = main;
+		globalCount = globals;
+	}
+
+	/**
+	 * Gets the instructions.
+	 * @return the instructions and their operands.
+	 */
+	public int[] getCode()
+	{
+		return code;
+	}
+
+	/**
+	 * Gets the entry points of the procedures.
+	 * @return the address of the first instruction of every procedure.
+	 */
+	public int[] getEntries()
+	{
+		return entries;
+	}
+
+	/**
+	 * Gets the argument counts of the procedures.
+	 * @return the number of arguments of every procedure.
+	 */
+	public int[] getArgCounts()
+	{
+		return argCounts;
+	}
+
+	/**
+	 * Gets the frame sizes of the procedures.
+	 * @return the number of frame slots of every procedure.
+	 */
+	public int[] getFrameSizes()
+	{
+		return frameSizes;
+	}
+
+	/**
+	 * Gets how deep the stack gets above the frame of each procedure.
+	 * @return the deepest stack of every procedure.
+	 */
+	public int[] getMaxStacks()
+	{
+		return maxStacks;
+	}
+
+	/**
+	 * Gets how deep the stack gets in the main statement.
+	 * @return the deepest stack of the main statement.
+	 */
+	public int getMainStack()
+	{
+		return mainStack;
+	}
+
+	/**
+	 * Gets the number of global slots.
+	 * @return the number of global variables.
+	 */
+	public int getGlobalCount()
+	{
+		return globalCount;
+	}
+
+	/**
+	 * Gets the number of operands an opcode takes.
+	 * @param op the opcode.
+	 * @return the number of ints that follow the opcode.
+	 */
+	public static int operandCount(int op)
+	{
+		if (op <= GSTORE || (op >= JUMP && op <= CALL))
+			return 1;
+		return 0;
+	}
+
+	/**
+	 * Lists the instructions one per line with their addresses, for debugging.
+	 * @return the disassembled program.
+	 */
+	public String toString()
+	{
+		StringBuilder sb = new StringBuilder();
+		for (int pc = 0; pc < code.length; pc += 1 + operandCount(code[pc]))
+		{
+			for (int p = 0; p < entries.length; p++)
+			{
+				if (entries[p] == pc)
+					sb.append("proc").append(p).append(":\n");
+			}
+			sb.append(pc).append('\t').append(NAMES[code[pc]]);
+			for (int i = 1; i <= operandCount(code[pc]); i++)
+				sb.append(' ').append(code[pc + i]);
+			sb.append('\n');
+		}
+		return sb.toString();
+	}
+}
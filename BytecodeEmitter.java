@@ -0,0 +1,282 @@
+package vm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import ast.ProcedureDeclaration;
+
+/**
+ * The BytecodeEmitter is what the AST compiles itself into when it is run on the
+ * VirtualMachine, the same way it compiles into MIPS through the Emitter. It appends
+ * instructions to a growing int array, hands out labels for jumps and fills them in
+ * once every label has been placed, and numbers the procedures so calls can be
+ * compiled before the procedure they call. It also keeps track of how deep the stack
+ * can get in the main statement and in every procedure, so the VirtualMachine only
+ * has to check for room once per call. A procedure that ends by assigning a call of
+ * itself to its own name jumps back to its start instead, so such self tail calls do
+ * not use up the stack. The program must be resolved first, because variables are
+ * compiled from the slots the Resolver gave them.
+ * @author Rakesh Nori
+ * @version 6/24/2018
+ * Usage:
+ * prog.resolve(new Resolver());
+ * BytecodeEmitter b = new BytecodeEmitter();
+ * prog.compile(b);
+ * new VirtualMachine(b.finish()).run();
+ */
+public class BytecodeEmitter
+{
+	private int[] code = new int[256];
+	private int size;
+	private List<Integer> labels = new ArrayList<Integer>();
+	private List<Integer> patches = new ArrayList<Integer>();
+	private HashMap<String, Integer> procIndex = new HashMap<String, Integer>();
+	private List<ProcedureDeclaration> procs = new ArrayList<ProcedureDeclaration>();
+	private int[] entries = new int[0];
+	private int[] maxStacks = new int[0];
+	private boolean inProcedure;
+	private ProcedureDeclaration current;
+	private int entryLabel = -1;
+	private int globalCount;
+	private int stack;
+	private int maxStack;
+	private int mainStack;
+
+	/**
+	 * Adds one int to the code.
+	 * @param value the opcode or operand.
+	 */
+	private void add(int value)
+	{
+		if (size == code.length)
+			code = Arrays.copyOf(code, size * 2);
+		code[size++] = value;
+	}
+
+	/**
+	 * Keeps track of how an instruction changes the depth of the stack.
+	 * @param op the opcode.
+	 * @param operand the operand, which is the procedure number for CALL.
+	 */
+	private void track(int op, int operand)
+	{
+		if (op == Bytecode.CONST || op == Bytecode.LOAD || op == Bytecode.GLOAD
+			|| op == Bytecode.READ)
+			stack++;
+		else if (op >= Bytecode.JEQ && op <= Bytecode.JGE)
+			stack -= 2;
+		else if (op == Bytecode.CALL)
+			stack -= procs.get(operand).getArgs().size();
+		else if (op != Bytecode.NEG && op != Bytecode.JUMP && op != Bytecode.HALT)
+			stack--;
+		maxStack = Math.max(maxStack, stack);
+	}
+
+	/**
+	 * Emits an instruction with no operand.
+	 * @param op the opcode.
+	 */
+	public void emit(int op)
+	{
+		track(op, 0);
+		add(op);
+	}
+
+	/**
+	 * Emits an instruction with one operand.
+	 * @param op the opcode.
+	 * @param operand the operand.
+	 */
+	public void emit(int op, int operand)
+	{
+		track(op, operand);
+		add(op);
+		add(operand);
+	}
+
+	/**
+	 * Gets the address the next instruction will have.
+	 * @return the current size of the code.
+	 */
+	public int getAddress()
+	{
+		return size;
+	}
+
+	/**
+	 * Makes a new label that has not been placed yet.
+	 * @return the number of the label.
+	 */
+	public int newLabel()
+	{
+		labels.add(-1);
+		return labels.size() - 1;
+	}
+
+	/**
+	 * Places a label at the address of the next instruction.
+	 * @param label the number of the label.
+	 */
+	public void placeLabel(int label)
+	{
+		labels.set(label, size);
+	}
+
+	/**
+	 * Emits a jump to a label, which is filled in by finish.
+	 * @param op JUMP or one of the conditional jumps.
+	 * @param label the number of the label to jump to.
+	 */
+	public void emitJump(int op, int label)
+	{
+		track(op, 0);
+		add(op);
+		patches.add(size);
+		add(label);
+	}
+
+	/**
+	 * Emits a read of a resolved variable.
+	 * @param depth the depth the Resolver gave the variable.
+	 * @param slot the slot the Resolver gave the variable.
+	 */
+	public void emitLoad(int depth, int slot)
+	{
+		if (inProcedure && depth == 0)
+			emit(Bytecode.LOAD, slot);
+		else
+			emit(Bytecode.GLOAD, slot);
+	}
+
+	/**
+	 * Emits a write of a resolved variable, taking the value from the stack.
+	 * @param depth the depth the Resolver gave the variable.
+	 * @param slot the slot the Resolver gave the variable.
+	 */
+	public void emitStore(int depth, int slot)
+	{
+		if (inProcedure && depth == 0)
+			emit(Bytecode.STORE, slot);
+		else
+			emit(Bytecode.GSTORE, slot);
+	}
+
+	/**
+	 * Gives a procedure its number, so calls to it can be compiled.
+	 * @param p the ProcedureDeclaration.
+	 */
+	public void declareProcedure(ProcedureDeclaration p)
+	{
+		procIndex.put(p.getName(), procs.size());
+		procs.add(p);
+		entries = Arrays.copyOf(entries, procs.size());
+		maxStacks = Arrays.copyOf(maxStacks, procs.size());
+	}
+
+	/**
+	 * Gets the number of a declared procedure.
+	 * @param name the name of the procedure.
+	 * @return the number used by the CALL instruction.
+	 * @throws IllegalArgumentException if the procedure was never declared.
+	 */
+	public int getProcedureIndex(String name)
+	{
+		Integer i = procIndex.get(name);
+		if (i == null)
+			throw new IllegalArgumentException("Procedure " + name + " was never declared.");
+		return i;
+	}
+
+	/**
+	 * Starts compiling the body of a procedure at the current address.
+	 * @param p the ProcedureDeclaration.
+	 */
+	public void beginProcedure(ProcedureDeclaration p)
+	{
+		entries[getProcedureIndex(p.getName())] = size;
+		entryLabel = newLabel();
+		placeLabel(entryLabel);
+		current = p;
+		inProcedure = true;
+		stack = 0;
+		maxStack = 0;
+	}
+
+	/**
+	 * Finishes compiling the body of a procedure.
+	 * @param p the ProcedureDeclaration.
+	 */
+	public void endProcedure(ProcedureDeclaration p)
+	{
+		maxStacks[getProcedureIndex(p.getName())] = maxStack;
+		inProcedure = false;
+		current = null;
+		entryLabel = -1;
+	}
+
+	/**
+	 * Gets the procedure being compiled.
+	 * @return the ProcedureDeclaration, or null in the main statement.
+	 */
+	public ProcedureDeclaration getCurrentProcedure()
+	{
+		return current;
+	}
+
+	/**
+	 * Gets the label at the start of the procedure being compiled, for self tail calls.
+	 * @return the number of the label.
+	 * @throws IllegalStateException if no procedure is being compiled.
+	 */
+	public int getEntryLabel()
+	{
+		if (entryLabel < 0)
+			throw new IllegalStateException("No procedure is being compiled.");
+		return entryLabel;
+	}
+
+	/**
+	 * Finishes compiling the main statement of the program.
+	 */
+	public void endMain()
+	{
+		mainStack = maxStack;
+	}
+
+	/**
+	 * Sets the number of global slots the program needs.
+	 * @param count the number of global variables.
+	 */
+	public void setGlobalCount(int count)
+	{
+		globalCount = count;
+	}
+
+	/**
+	 * Fills in every jump and packs the code into a Bytecode.
+	 * @return the compiled program.
+	 * @throws IllegalStateException if a jump goes to a label that was never placed.
+	 */
+	public Bytecode finish()
+	{
+		for (int at : patches)
+		{
+			int target = labels.get(code[at]);
+			if (target < 0)
+				throw new IllegalStateException("Label " + code[at] + " was never placed.");
+			code[at] = target;
+		}
+		patches.clear();
+		int[] args = new int[procs.size()];
+		int[] frames = new int[procs.size()];
+		for (int i = 0; i < procs.size(); i++)
+		{
+			args[i] = procs.get(i).getArgs().size();
+			frames[i] = procs.get(i).getFrameSize();
+		}
+		return new Bytecode(Arrays.copyOf(code, size), entries.clone(), args, frames,
+							maxStacks.clone(), mainStack, globalCount);
+	}
+}
@@ -0,0 +1,268 @@
+package vm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * The ClassFileWriter builds the bytes of a JVM class file: its constant pool, its
+ * static int fields and its static methods. It writes version 49 class files, which
+ * the JVM verifies by type inference, so the methods do not need stack map frames.
+ * Constants are shared, so asking for the same constant twice gives the same index.
+ * @author Rakesh Nori
+ * @version 6/26/2018
+ */
+public class ClassFileWriter
+{
+	/** The access flags for a public static member. */
+	public static final int PUBLIC_STATIC = 0x0009;
+	/** The access flags for a private static member. */
+	public static final int PRIVATE_STATIC = 0x000A;
+
+	private static final int UTF8 = 1;
+	private static final int INTEGER = 3;
+	private static final int CLASS = 7;
+	private static final int STRING = 8;
+	private static final int FIELD = 9;
+	private static final int METHOD = 10;
+	private static final int NAME_AND_TYPE = 12;
+
+	private ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+	private DataOutputStream pool = new DataOutputStream(poolBytes);
+	private HashMap<String, Integer> constants = new HashMap<String, Integer>();
+	private int poolCount = 1;
+	private String name;
+	private ByteArrayOutputStream memberBytes = new ByteArrayOutputStream();
+	private DataOutputStream fields = new DataOutputStream(memberBytes);
+	private int fieldCount;
+	private List<byte[]> methods = new ArrayList<byte[]>();
+
+	/**
+	 * Creates a ClassFileWriter for a class that extends Object.
+	 * @param internalName the name of the class with / between packages, such as vm/Program.
+	 */
+	public ClassFileWriter(String internalName)
+	{
+		name = internalName;
+	}
+
+	/**
+	 * Gets the name of the class being written.
+	 * @return the internal name of the class.
+	 */
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * Adds a constant to the pool unless it is there already.
+	 * @param key what identifies the constant.
+	 * @param tag the kind of constant.
+	 * @param a the first index or value of the constant.
+	 * @param b the second index of the constant, if it has one.
+	 * @param text the text of a Utf8 constant.
+	 * @return the index of the constant.
+	 */
+	private int constant(String key, int tag, int a, int b, String text)
+	{
+		Integer index = constants.get(key);
+		if (index != null)
+			return index;
+		try
+		{
+			pool.writeByte(tag);
+			if (tag == UTF8)
+				pool.writeUTF(text);
+			else if (tag == INTEGER)
+				pool.writeInt(a);
+			else if (tag == CLASS || tag == STRING)
+				pool.writeShort(a);
+			else
+			{
+				pool.writeShort(a);
+				pool.writeShort(b);
+			}
+		}
+		catch (IOException e)
+		{
+			throw new IllegalStateException(e);
+		}
+		constants.put(key, poolCount);
+		return poolCount++;
+	}
+
+	/**
+	 * Gets the index of a Utf8 constant.
+	 * @param text the text.
+	 * @return the index of the constant.
+	 */
+	public int utf8(String text)
+	{
+		return constant("U" + text, UTF8, 0, 0, text);
+	}
+
+	/**
+	 * Gets the index of an int constant, for ldc.
+	 * @param value the value.
+	 * @return the index of the constant.
+	 */
+	public int integer(int value)
+	{
+		return constant("I" + value, INTEGER, value, 0, null);
+	}
+
+	/**
+	 * Gets the index of a String constant, for ldc.
+	 * @param text the text of the String.
+	 * @return the index of the constant.
+	 */
+	public int string(String text)
+	{
+		return constant("S" + text, STRING, utf8(text), 0, null);
+	}
+
+	/**
+	 * Gets the index of a class constant.
+	 * @param internalName the name of the class with / between packages.
+	 * @return the index of the constant.
+	 */
+	public int classRef(String internalName)
+	{
+		return constant("C" + internalName, CLASS, utf8(internalName), 0, null);
+	}
+
+	/**
+	 * Gets the index of a name and type constant.
+	 * @param member the name of the field or method.
+	 * @param descriptor its type descriptor.
+	 * @return the index of the constant.
+	 */
+	private int nameAndType(String member, String descriptor)
+	{
+		return constant("N" + member + ":" + descriptor, NAME_AND_TYPE, utf8(member),
+						utf8(descriptor), null);
+	}
+
+	/**
+	 * Gets the index of a field reference, for getstatic and putstatic.
+	 * @param owner the internal name of the class the field is in.
+	 * @param member the name of the field.
+	 * @param descriptor the type of the field, such as I.
+	 * @return the index of the constant.
+	 */
+	public int fieldRef(String owner, String member, String descriptor)
+	{
+		return constant("F" + owner + "." + member + ":" + descriptor, FIELD, classRef(owner),
+						nameAndType(member, descriptor), null);
+	}
+
+	/**
+	 * Gets the index of a method reference, for invokestatic and invokevirtual.
+	 * @param owner the internal name of the class the method is in.
+	 * @param member the name of the method.
+	 * @param descriptor the type of the method, such as (I)V.
+	 * @return the index of the constant.
+	 */
+	public int methodRef(String owner, String member, String descriptor)
+	{
+		return constant("M" + owner + "." + member + ":" + descriptor, METHOD, classRef(owner),
+						nameAndType(member, descriptor), null);
+	}
+
+	/**
+	 * Adds a field to the class.
+	 * @param access the access flags, such as PRIVATE_STATIC.
+	 * @param member the name of the field.
+	 * @param descriptor the type of the field, such as I.
+	 */
+	public void addField(int access, String member, String descriptor)
+	{
+		try
+		{
+			fields.writeShort(access);
+			fields.writeShort(utf8(member));
+			fields.writeShort(utf8(descriptor));
+			fields.writeShort(0);
+		}
+		catch (IOException e)
+		{
+			throw new IllegalStateException(e);
+		}
+		fieldCount++;
+	}
+
+	/**
+	 * Adds a method with the given code to the class.
+	 * @param access the access flags, such as PUBLIC_STATIC.
+	 * @param member the name of the method.
+	 * @param descriptor the type of the method, such as ()V.
+	 * @param code the finished code of the method.
+	 * @param maxLocals the number of local variable slots the method uses.
+	 */
+	public void addMethod(int access, String member, String descriptor, CodeBuffer code,
+						  int maxLocals)
+	{
+		byte[] body = code.toByteArray();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		try
+		{
+			out.writeShort(access);
+			out.writeShort(utf8(member));
+			out.writeShort(utf8(descriptor));
+			out.writeShort(1);
+			out.writeShort(utf8("Code"));
+			out.writeInt(12 + body.length);
+			out.writeShort(code.getMaxStack());
+			out.writeShort(maxLocals);
+			out.writeInt(body.length);
+			out.write(body);
+			out.writeShort(0);
+			out.writeShort(0);
+		}
+		catch (IOException e)
+		{
+			throw new IllegalStateException(e);
+		}
+		methods.add(bytes.toByteArray());
+	}
+
+	/**
+	 * Writes out the whole class file.
+	 * @return the bytes of the class file.
+	 */
+	public byte[] toByteArray()
+	{
+		int thisClass = classRef(name);
+		int superClass = classRef("java/lang/Object");
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		try
+		{
+			out.writeInt(0xCAFEBABE);
+			out.writeShort(0);
+			out.writeShort(49);
+			out.writeShort(poolCount);
+			out.write(poolBytes.toByteArray());
+			out.writeShort(0x0031);
+			out.writeShort(thisClass);
+			out.writeShort(superClass);
+			out.writeShort(0);
+			out.writeShort(fieldCount);
+			out.write(memberBytes.toByteArray());
+			out.writeShort(methods.size());
+			for (byte[] m : methods)
+				out.write(m);
+			out.writeShort(0);
+		}
+		catch (IOException e)
+		{
+			throw new IllegalStateException(e);
+		}
+		return bytes.toByteArray();
+	}
+}
@@ -0,0 +1,366 @@
+package vm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The CodeBuffer collects the JVM instructions of one method for a ClassFileWriter.
+ * It picks the shortest instruction for pushing a constant or using a local variable,
+ * fills in jumps once their labels have been placed, and keeps track of how deep the
+ * operand stack gets so the method's max_stack can be written.
+ * @author Rakesh Nori
+ * @version 6/26/2018
+ */
+public class CodeBuffer
+{
+	/** Pops b and a, pushes a + b. */
+	public static final int IADD = 0x60;
+	/** Pops b and a, pushes a - b. */
+	public static final int ISUB = 0x64;
+	/** Pops b and a, pushes a * b. */
+	public static final int IMUL = 0x68;
+	/** Pops b and a, pushes a / b. */
+	public static final int IDIV = 0x6C;
+	/** Pops b and a, pushes a % b. */
+	public static final int IREM = 0x70;
+	/** Negates the top of the stack. */
+	public static final int INEG = 0x74;
+	/** Pops b and a, jumps if a = b. */
+	public static final int IF_ICMPEQ = 0x9F;
+	/** Pops b and a, jumps if a <> b. */
+	public static final int IF_ICMPNE = 0xA0;
+	/** Pops b and a, jumps if a < b. */
+	public static final int IF_ICMPLT = 0xA1;
+	/** Pops b and a, jumps if a >= b. */
+	public static final int IF_ICMPGE = 0xA2;
+	/** Pops b and a, jumps if a > b. */
+	public static final int IF_ICMPGT = 0xA3;
+	/** Pops b and a, jumps if a <= b. */
+	public static final int IF_ICMPLE = 0xA4;
+	/** Always jumps. */
+	public static final int GOTO = 0xA7;
+	/** Returns the int on top of the stack. */
+	public static final int IRETURN = 0xAC;
+	/** Returns nothing. */
+	public static final int RETURN = 0xB1;
+	/** Pops an index and an int array, pushes the element. */
+	public static final int IALOAD = 0x2E;
+	/** Pops a value, an index and an int array, and stores the element. */
+	public static final int IASTORE = 0x4F;
+
+	private static final int ICONST_0 = 0x03;
+	private static final int BIPUSH = 0x10;
+	private static final int SIPUSH = 0x11;
+	private static final int LDC = 0x12;
+	private static final int LDC_W = 0x13;
+	private static final int ILOAD = 0x15;
+	private static final int ISTORE = 0x36;
+	private static final int ALOAD = 0x19;
+	private static final int IINC = 0x84;
+	private static final int GETSTATIC = 0xB2;
+	private static final int PUTSTATIC = 0xB3;
+	private static final int INVOKEVIRTUAL = 0xB6;
+	private static final int INVOKESTATIC = 0xB8;
+	private static final int WIDE = 0xC4;
+
+	private ClassFileWriter owner;
+	private byte[] code = new byte[256];
+	private int size;
+	private int stack;
+	private int maxStack;
+	private List<Integer> labels = new ArrayList<Integer>();
+	private List<Integer> jumps = new ArrayList<Integer>();
+
+	/**
+	 * Creates a CodeBuffer.
+	 * @param writer the ClassFileWriter whose constant pool the instructions use.
+	 */
+	public CodeBuffer(ClassFileWriter writer)
+	{
+		owner = writer;
+	}
+
+	/**
+	 * Adds one byte of code.
+	 * @param b the byte.
+	 */
+	private void add(int b)
+	{
+		if (size == code.length)
+			code = Arrays.copyOf(code, size * 2);
+		code[size++] = (byte)b;
+	}
+
+	/**
+	 * Adds two bytes of code, high byte first.
+	 * @param s the value of the two bytes.
+	 */
+	private void addShort(int s)
+	{
+		add(s >> 8);
+		add(s);
+	}
+
+	/**
+	 * Keeps track of how deep the operand stack is.
+	 * @param change how many values the last instruction pushed, minus how many it popped.
+	 */
+	private void track(int change)
+	{
+		stack += change;
+		maxStack = Math.max(maxStack, stack);
+	}
+
+	/**
+	 * Emits an instruction that has no operands.
+	 * @param opcode the opcode, such as IADD.
+	 * @param change how many values it pushes, minus how many it pops.
+	 */
+	public void emit(int opcode, int change)
+	{
+		add(opcode);
+		track(change);
+	}
+
+	/**
+	 * Emits the shortest instruction that pushes an int.
+	 * @param value the int to push.
+	 */
+	public void pushInt(int value)
+	{
+		if (value >= -1 && value <= 5)
+			add(ICONST_0 + value);
+		else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE)
+		{
+			add(BIPUSH);
+			add(value);
+		}
+		else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE)
+		{
+			add(SIPUSH);
+			addShort(value);
+		}
+		else
+		{
+			int index = owner.integer(value);
+			if (index < 256)
+			{
+				add(LDC);
+				add(index);
+			}
+			else
+			{
+				add(LDC_W);
+				addShort(index);
+			}
+		}
+		track(1);
+	}
+
+	/**
+	 * Emits an instruction that uses a local variable, widened if the index needs it.
+	 * @param opcode ILOAD, ISTORE or ALOAD.
+	 * @param local the index of the local variable.
+	 */
+	private void local(int opcode, int local)
+	{
+		if (local < 256)
+		{
+			add(opcode);
+			add(local);
+		}
+		else
+		{
+			add(WIDE);
+			add(opcode);
+			addShort(local);
+		}
+	}
+
+	/**
+	 * Emits a push of an int local variable.
+	 * @param local the index of the local variable.
+	 */
+	public void load(int local)
+	{
+		local(ILOAD, local);
+		track(1);
+	}
+
+	/**
+	 * Emits a push of a reference local variable, such as an int array parameter.
+	 * @param local the index of the local variable.
+	 */
+	public void loadReference(int local)
+	{
+		local(ALOAD, local);
+		track(1);
+	}
+
+	/**
+	 * Emits a pop into an int local variable.
+	 * @param local the index of the local variable.
+	 */
+	public void store(int local)
+	{
+		local(ISTORE, local);
+		track(-1);
+	}
+
+	/**
+	 * Emits an increment of an int local variable by a constant.
+	 * @param local the index of the local variable.
+	 * @param amount the constant, which must fit in a short.
+	 */
+	public void increment(int local, int amount)
+	{
+		if (local < 256 && amount >= Byte.MIN_VALUE && amount <= Byte.MAX_VALUE)
+		{
+			add(IINC);
+			add(local);
+			add(amount);
+		}
+		else
+		{
+			add(WIDE);
+			add(IINC);
+			addShort(local);
+			addShort(amount);
+		}
+	}
+
+	/**
+	 * Emits a push of a static field.
+	 * @param field the index of the field reference.
+	 * @param change 1 for an int field.
+	 */
+	public void getStatic(int field, int change)
+	{
+		add(GETSTATIC);
+		addShort(field);
+		track(change);
+	}
+
+	/**
+	 * Emits a pop into a static int field.
+	 * @param field the index of the field reference.
+	 */
+	public void putStatic(int field)
+	{
+		add(PUTSTATIC);
+		addShort(field);
+		track(-1);
+	}
+
+	/**
+	 * Emits a call of a static method.
+	 * @param method the index of the method reference.
+	 * @param change how many values the call pushes, minus how many arguments it pops.
+	 */
+	public void invokeStatic(int method, int change)
+	{
+		add(INVOKESTATIC);
+		addShort(method);
+		track(change);
+	}
+
+	/**
+	 * Emits a call of an instance method.
+	 * @param method the index of the method reference.
+	 * @param change how many values the call pushes, minus how many it pops,
+	 * 		  counting the object it is called on.
+	 */
+	public void invokeVirtual(int method, int change)
+	{
+		add(INVOKEVIRTUAL);
+		addShort(method);
+		track(change);
+	}
+
+	/**
+	 * Makes a new label that has not been placed yet.
+	 * @return the number of the label.
+	 */
+	public int newLabel()
+	{
+		labels.add(-1);
+		return labels.size() - 1;
+	}
+
+	/**
+	 * Places a label at the next instruction.
+	 * @param label the number of the label.
+	 */
+	public void placeLabel(int label)
+	{
+		labels.set(label, size);
+	}
+
+	/**
+	 * Emits a jump to a label, which is filled in by toByteArray.
+	 * @param opcode GOTO or one of the IF_ICMP jumps.
+	 * @param label the number of the label.
+	 */
+	public void jump(int opcode, int label)
+	{
+		jumps.add(size);
+		add(opcode);
+		addShort(label);
+		track(opcode == GOTO ? 0 : -2);
+	}
+
+	/**
+	 * Gets how deep the operand stack is after the last instruction.
+	 * @return the number of values on the operand stack.
+	 */
+	public int getStack()
+	{
+		return stack;
+	}
+
+	/**
+	 * Sets how deep the operand stack is, for code placed after a GOTO, where the
+	 * depth comes from the jumps to it rather than the instruction before it.
+	 * @param depth the number of values on the operand stack.
+	 */
+	public void setStack(int depth)
+	{
+		stack = depth;
+	}
+
+	/**
+	 * Gets the deepest the operand stack gets.
+	 * @return the max_stack of the method.
+	 */
+	public int getMaxStack()
+	{
+		return maxStack;
+	}
+
+	/**
+	 * Fills in every jump and returns the code.
+	 * @return the bytes of the code.
+	 * @throws IllegalStateException if a label was never placed, or a jump or the
+	 * 		   method is too long for the class file format.
+	 */
+	public byte[] toByteArray()
+	{
+		if (size > 65535)
+			throw new IllegalStateException("The method is too large for the JVM.");
+		for (int at : jumps)
+		{
+			int label = ((code[at + 1] & 0xFF) << 8) | (code[at + 2] & 0xFF);
+			int target = labels.get(label);
+			if (target < 0)
+				throw new IllegalStateException("Label " + label + " was never placed.");
+			int offset = target - at;
+			if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE)
+				throw new IllegalStateException("The jump at " + at + " is too long.");
+			code[at + 1] = (byte)(offset >> 8);
+			code[at + 2] = (byte)offset;
+		}
+		jumps.clear();
+		return Arrays.copyOf(code, size);
+	}
+}
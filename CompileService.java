@@ -0,0 +1,175 @@
+package parser;
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ast.Program;
+import emitter.Emitter;
+import scanner.ScanErrorException;
+import scanner.SourceBuffer;
+import scanner.TableScanner;
+
+/**
+ * The CompileService parses and compiles many programs at the same time on a bounded
+ * pool of threads. Every request gets its own scanner, SymbolTable, Parser, AST and
+ * Emitter, so requests share nothing and an error in one of them only fails its own
+ * Future.
+ * @author Rakesh Nori
+ * @version 7/6/2018
+ * Usage:
+ * CompileService service = new CompileService(4);
+ * List<Future<Program>> programs = service.parseAll(sources);
+ * service.shutdown();
+ */
+public class CompileService
+{
+	private ExecutorService pool;
+
+	/**
+	 * Creates a CompileService with one thread for every processor.
+	 */
+	public CompileService()
+	{
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates a CompileService.
+	 * @param threads the largest number of requests that run at once.
+	 */
+	public CompileService(int threads)
+	{
+		AtomicInteger count = new AtomicInteger();
+		pool = Executors.newFixedThreadPool(threads, r -> {
+			Thread t = new Thread(r, "compile-" + count.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	/**
+	 * Parses one program on the calling thread, with nothing shared with other requests.
+	 * @param source the text of the program.
+	 * @return the parsed Program.
+	 * @throws IOException if the source cannot be read.
+	 * @throws ScanErrorException if a scanning error occurs.
+	 */
+	public static Program parse(String source) throws ScanErrorException, IOException
+	{
+		Parser p = new Parser(new TableScanner(new SourceBuffer(source.toCharArray())));
+		return p.parseProgram();
+	}
+
+	/**
+	 * Parses one program from a file on the calling thread, with nothing shared with
+	 * other requests.
+	 * @param file the file holding the program, which is memory-mapped.
+	 * @return the parsed Program.
+	 * @throws IOException if the file cannot be mapped.
+	 * @throws ScanErrorException if a scanning error occurs.
+	 */
+	public static Program parse(File file) throws ScanErrorException, IOException
+	{
+		Parser p = new Parser(new TableScanner(SourceBuffer.map(file)));
+		return p.parseProgram();
+	}
+
+	/**
+	 * Parses and compiles one program to MIPS on the calling thread, without touching
+	 * the disk.
+	 * @param source the text of the program.
+	 * @param out where the MIPS text goes, such as a StringBuilder.
+	 * @return the compiled Program.
+	 * @throws IOException if the source cannot be read.
+	 * @throws ScanErrorException if a scanning error occurs.
+	 */
+	public static Program compile(String source, Appendable out)
+		throws ScanErrorException, IOException
+	{
+		Program prog = parse(source);
+		Emitter e = new Emitter(out);
+		try
+		{
+			prog.compile(e);
+		}
+		finally
+		{
+			e.close();
+		}
+		return prog;
+	}
+
+	/**
+	 * Queues one program to be parsed.
+	 * @param source the text of the program.
+	 * @return the Future that will hold the parsed Program.
+	 */
+	public Future<Program> submit(String source)
+	{
+		return pool.submit(() -> parse(source));
+	}
+
+	/**
+	 * Queues many programs to be parsed at once.
+	 * @param sources the texts of the programs.
+	 * @return the Futures of the parsed Programs, in the same order as the sources.
+	 */
+	public List<Future<Program>> parseAll(List<String> sources)
+	{
+		List<Future<Program>> results = new ArrayList<Future<Program>>();
+		for (String source : sources)
+			results.add(submit(source));
+		return results;
+	}
+
+	/**
+	 * Queues one program to be parsed and compiled to MIPS.
+	 * @param source the text of the program.
+	 * @param outputFileName the name of the .asm file to write.
+	 * @return the Future that will hold the compiled Program.
+	 */
+	public Future<Program> submitCompile(String source, String outputFileName)
+	{
+		return pool.submit(() -> {
+			Program prog = parse(source);
+			Emitter e = new Emitter(outputFileName);
+			try
+			{
+				prog.compile(e);
+			}
+			finally
+			{
+				e.close();
+			}
+			return prog;
+		});
+	}
+
+	/**
+	 * Queues many programs to be parsed and compiled to MIPS at once.
+	 * @param sources the texts of the programs.
+	 * @param outputFileNames the .asm file to write for each program.
+	 * @return the Futures of the compiled Programs, in the same order as the sources.
+	 */
+	public List<Future<Program>> compileAll(List<String> sources, List<String> outputFileNames)
+	{
+		if (sources.size() != outputFileNames.size())
+			throw new IllegalArgumentException("Every source needs one output file.");
+		List<Future<Program>> results = new ArrayList<Future<Program>>();
+		for (int i = 0; i < sources.size(); i++)
+			results.add(submitCompile(sources.get(i), outputFileNames.get(i)));
+		return results;
+	}
+
+	/**
+	 * Stops accepting requests. Requests already queued still finish.
+	 */
+	public void shutdown()
+	{
+		pool.shutdown();
+	}
+}
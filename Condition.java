@@ -1,7 +1,14 @@
 package ast;
 
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
 import emitter.Emitter;
+import emitter.Operand;
 import environment.Environment;
+import environment.Frame;
+import vm.Bytecode;
+import vm.BytecodeEmitter;
 
 /**
  * The class that is responsible for using a relative operator in order 
@@ -12,8 +19,8 @@ import environment.Environment;
  */
 public class Condition extends Expression
 {
-	private Expression e1;
-	private Expression e2;
+	protected Expression e1;
+	protected Expression e2;
 	private String relop;
 	/**
 	 * Instantiates the expressions and the relative operator being used in the
@@ -29,6 +36,33 @@ public class Condition extends Expression
 		e2 = b;
 	}
 	
+	/**
+	 * Makes the Condition for a relative operator, specialized to the operator so 
+	 * its eval never compares Strings. Each subclass compares its two expressions 
+	 * directly and has its own eval, link and compare, so each of them is compiled 
+	 * with its one operator and evaluating it never looks at the relative operator.
+	 * @param a the first Expression being compared.
+	 * @param op the String representing the relative operator being used.
+	 * @param b the second Expression being compared.
+	 * @return the specialized Condition.
+	 */
+	public static Condition create(Expression a, String op, Expression b)
+	{
+		if (op.equals("="))
+			return new EqualNode(a, b);
+		if (op.equals("<>"))
+			return new NotEqualNode(a, b);
+		if (op.equals("<"))
+			return new LessThanNode(a, b);
+		if (op.equals(">"))
+			return new GreaterThanNode(a, b);
+		if (op.equals("<="))
+			return new LessEqualNode(a, b);
+		if (op.equals(">="))
+			return new GreaterEqualNode(a, b);
+		return new Condition(a, op, b);
+	}
+	
 	/**
 	 * @Override
 	 * Evaluates the two expressions determines their relation.
@@ -37,77 +71,219 @@ public class Condition extends Expression
 	 * 		   (1 = true, 0 = false).
 	 */
 	public int eval(Environment env)
+	{
+		int a = e1.eval(env);
+		return compare(a, e2.eval(env));
+	}
+	
+	/**
+	 * Resolves both expressions being compared.
+	 * @param r the Resolver being used.
+	 */
+	public void resolve(Resolver r)
+	{
+		e1.resolve(r);
+		e2.resolve(r);
+	}
+	
+	/**
+	 * Parallelizes both expressions, and wraps the Condition in a ForkCondition if 
+	 * both sides only call pure procedures.
+	 * @param pure the pure procedures, as found by Purity.
+	 * @param cutoff how many forks can enclose each other before evaluation 
+	 * 		  turns sequential.
+	 * @return the ForkCondition, or this Condition if its sides are not 
+	 * 		   independent calls.
+	 */
+	public Condition parallelize(Set<ProcedureDeclaration> pure, int cutoff)
+	{
+		boolean fork = ForkNode.independent(e1, e2, pure);
+		e1 = e1.parallelize(pure, cutoff);
+		e2 = e2.parallelize(pure, cutoff);
+		return fork ? new ForkCondition(this, cutoff) : this;
+	}
+	
+	/**
+	 * Evaluates the two expressions in a Frame and determines their relation.
+	 * @param frame the Frame containing all the variables that can be used.
+	 * @return The boolean result of the expression in form of an integer
+	 * 		   (1 = true, 0 = false).
+	 */
+	public int eval(Frame frame)
+	{
+		int a = e1.eval(frame);
+		return compare(a, e2.eval(frame));
+	}
+	
+	/**
+	 * Links the two expressions into a closure that compares them.
+	 * @return a closure that evaluates the comparison in a Frame, to 1 or 0.
+	 */
+	public ToIntFunction<Frame> link()
+	{
+		ToIntFunction<Frame> a = e1.link();
+		ToIntFunction<Frame> b = e2.link();
+		return f -> compare(a.applyAsInt(f), b.applyAsInt(f));
+	}
+	
+	/**
+	 * Pushes 1 if the relation holds, otherwise 0.
+	 * @param b the BytecodeEmitter that collects the instructions.
+	 */
+	public void compile(BytecodeEmitter b)
+	{
+		e1.compile(b);
+		e2.compile(b);
+		b.emit(Bytecode.EQ + opcodeOffset());
+	}
+	
+	/**
+	 * Compiles the Condition as a jump that is taken when the relation does not hold,
+	 * the same way compile(Emitter, String) branches to its target label.
+	 * @param b the BytecodeEmitter that collects the instructions.
+	 * @param falseLabel the label to jump to when the Condition is false.
+	 */
+	public void compile(BytecodeEmitter b, int falseLabel)
+	{
+		compile(b, falseLabel, false);
+	}
+	
+	/**
+	 * Compiles the Condition as a single jump that is taken when the Condition has 
+	 * the given value, which lets a loop check its Condition at the bottom.
+	 * @param b the BytecodeEmitter that collects the instructions.
+	 * @param label the label to jump to.
+	 * @param when true to jump when the relation holds, false to jump when it does not.
+	 */
+	public void compile(BytecodeEmitter b, int label, boolean when)
+	{
+		e1.compile(b);
+		e2.compile(b);
+		int[] opposite = {Bytecode.JNE, Bytecode.JEQ, Bytecode.JGE, 
+						  Bytecode.JLE, Bytecode.JGT, Bytecode.JLT};
+		b.emitJump(when ? Bytecode.JEQ + opcodeOffset() : opposite[opcodeOffset()], label);
+	}
+	
+	/**
+	 * Finds the position of the relative operator in the order =, <>, <, >, <=, >=, 
+	 * which is the order of the comparison instructions in Bytecode.
+	 * @return the position of the relative operator.
+	 */
+	private int opcodeOffset()
+	{
+		String[] order = {"=", "<>", "<", ">", "<=", ">="};
+		for (int i = 0; i < order.length; i++)
+		{
+			if (order[i].equals(relop))
+				return i;
+		}
+		throw new IllegalArgumentException("Unknown relative operator " + relop + ".");
+	}
+	
+	/**
+	 * Uses the relative operator on two values that have already been evaluated.
+	 * @param a the value of the first expression.
+	 * @param b the value of the second expression.
+	 * @return 1 if the relation holds, otherwise 0.
+	 */
+	public int compare(int a, int b)
 	{
 		if (relop.equals("="))
 		{
-			if (e1.eval(env) == e2.eval(env))
+			if (a == b)
 				return 1;
 		}
 		else if (relop.equals("<>"))
 		{
-			if (e1.eval(env) != e2.eval(env))
+			if (a != b)
 				return 1;
 		}
 		else if (relop.equals("<"))
 		{
-			if (e1.eval(env) < e2.eval(env))
+			if (a < b)
 				return 1;
 		}
 		else if (relop.equals(">"))
 		{
-			if (e1.eval(env) > e2.eval(env))
+			if (a > b)
 				return 1;
 		}
 		else if (relop.equals("<="))
 		{
-			if (e1.eval(env) <= e2.eval(env))
+			if (a <= b)
 				return 1;
 		}
 		else if (relop.equals(">="))
 		{
-			if (e1.eval(env) >= e2.eval(env))
+			if (a >= b)
 				return 1;
 		}
 		return 0;
 	}
 	
+	/**
+	 * Gets the relative operator.
+	 * @return the relative operator, such as "<" or "<>".
+	 */
+	public String getRelop()
+	{
+		return relop;
+	}
+	
+	/**
+	 * Gets the first expression being compared.
+	 * @return the left Expression.
+	 */
+	public Expression getLeft()
+	{
+		return e1;
+	}
+	
+	/**
+	 * Gets the second expression being compared.
+	 * @return the right Expression.
+	 */
+	public Expression getRight()
+	{
+		return e2;
+	}
+	
 	/**
 	 * Converts code of a condition to MIPS and uses the targetlabel 
-	 * for its conditional statements as a label.
+	 * for its conditional statements as a label. Both sides are evaluated into 
+	 * registers, in the order BinOp.compileOperands picks.
 	 * @param e the Emitter that converts the curreng language to the target one.
 	 * @param targetLabel the name of the label that is used for 
 	 * 		  the conditional statement in MIPS.
 	 */
 	public void compile(Emitter e, String targetLabel)
 	{
-		e1.compile(e);
-		e.emitPush("$v0");
-		e2.compile(e);
-		e.emitPop("$t0");
+		String[] regs = BinOp.compileOperands(e, e1, e2, null);
+		String branch = null;
 		if (relop.equals("="))
-		{
-			e.emit("bne $t0, $v0, " + targetLabel);
-		}
+			branch = "bne";
 		else if (relop.equals("<>"))
-		{
-			e.emit("beq $t0, $v0, " + targetLabel);
-		}
+			branch = "beq";
 		else if (relop.equals("<"))
-		{
-			e.emit("bge $t0, $v0, " + targetLabel);
-		}
+			branch = "bge";
 		else if (relop.equals(">"))
-		{
-			e.emit("ble $t0, $v0, " + targetLabel);
-		}
+			branch = "ble";
 		else if (relop.equals("<="))
-		{
-			e.emit("bgt $t0, $v0, " + targetLabel);
-		}
+			branch = "bgt";
 		else if (relop.equals(">="))
-		{
-			e.emit("blt $t0, $v0, " + targetLabel);
-		}
-		
+			branch = "blt";
+		if (branch != null)
+			e.emit(branch, Operand.register(regs[0]), Operand.register(regs[1]), 
+				   Operand.symbol(targetLabel));
+		BinOp.release(e, regs, null);
+	}
+	
+	/**
+	 * Gets the Sethi-Ullman number of the Condition, the same way as for a BinOp.
+	 * @return the number of registers.
+	 */
+	public int registerNeed()
+	{
+		return BinOp.need(e1, e2);
 	}
 }
@@ -0,0 +1,66 @@
+package ast;
+
+import java.util.function.ToIntFunction;
+
+import environment.Environment;
+import environment.Frame;
+
+/**
+ * The DivideNode is the BinOp for "/".
+ * @author Rakesh Nori
+ * @version 6/25/2018
+ */
+public class DivideNode extends BinOp
+{
+	/**
+	 * Creates a DivideNode.
+	 * @param a the first / left expression.
+	 * @param b the second / right expression.
+	 */
+	public DivideNode(Expression a, Expression b)
+	{
+		super("/", a, b);
+	}
+	
+	/**
+	 * Evaluates both expressions and returns the quotient.
+	 * @param env the environment containing variables that can be used.
+	 * @return the quotient of the two expressions.
+	 */
+	public int eval(Environment env)
+	{
+		return exp1.eval(env) / exp2.eval(env);
+	}
+	
+	/**
+	 * Evaluates both expressions in a Frame and returns the quotient.
+	 * @param frame the Frame containing variables that can be used.
+	 * @return the quotient of the two expressions.
+	 */
+	public int eval(Frame frame)
+	{
+		return exp1.eval(frame) / exp2.eval(frame);
+	}
+	
+	/**
+	 * Links the two expressions into a closure that divides the first by the second.
+	 * @return a closure that evaluates the quotient in a Frame.
+	 */
+	public ToIntFunction<Frame> link()
+	{
+		ToIntFunction<Frame> a = exp1.link();
+		ToIntFunction<Frame> b = exp2.link();
+		return f -> a.applyAsInt(f) / b.applyAsInt(f);
+	}
+	
+	/**
+	 * Returns the quotient of two values that have already been evaluated.
+	 * @param a the value of the first / left expression.
+	 * @param b the value of the second / right expression.
+	 * @return a / b.
+	 */
+	public int apply(int a, int b)
+	{
+		return a / b;
+	}
+}
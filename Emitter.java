@@ -1,5 +1,10 @@
 package emitter;
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
 
 import ast.ProcedureDeclaration;
 
@@ -11,22 +16,49 @@ import ast.ProcedureDeclaration;
  */
 public class Emitter
 {
-	private PrintWriter out;
+	/**
+	 * The registers expressions are evaluated in. Every one of them is saved by the 
+	 * caller around a procedure call, so a procedure never has to save any.
+	 */
+	private static final String[] REGISTERS = {"$t0", "$t1", "$t2", "$t3", "$t4", 
+		"$t5", "$t6", "$t7", "$t8", "$t9", "$s0", "$s1", "$s2", "$s3", "$s4", "$s5", 
+		"$s6", "$s7"};
+
+	/**
+	 * The number of registers expressions are evaluated in.
+	 */
+	public static final int REGISTER_COUNT = REGISTERS.length;
+
+	private static final Operand SP = Operand.register("$sp");
+	private static final Operand TOP = Operand.memory(0, "$sp");
+	private static final Operand FOUR = Operand.immediate(4);
+
+	private FileChannel channel;
+	private OutputStream stream;
+	private Appendable text;
+	private AsmWriter writer = new AsmWriter();
 	private int start = 1;
 	private int loopstart = 1;
 	private int loopend = 1;
 	private int excessStackHeight = 0;
 	private ProcedureDeclaration remember;
+	private boolean[] busy = new boolean[REGISTERS.length];
+	private InstructionBuffer code = new InstructionBuffer();
+	private boolean optimizing = true;
+	private int removed;
+	private boolean closed;
 
 	/**
-	 * Creates a new Emitter object.
+	 * Creates a new Emitter object that writes a file. Nothing is written until 
+	 * close is called, and then the whole file is written at once.
 	 * @param outputFileName the name of the output file.
 	 */
 	public Emitter(String outputFileName)
 	{
 		try
 		{
-			out = new PrintWriter(new FileWriter(outputFileName), true);
+			channel = FileChannel.open(Paths.get(outputFileName), StandardOpenOption.CREATE, 
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
 		}
 		catch(IOException e)
 		{
@@ -35,14 +67,60 @@ public class Emitter
 	}
 
 	/**
-	 * prints one line of code to file (with non-labels indented)
-	 * @param code the MIPS code.
+	 * Creates a new Emitter object that writes the MIPS text to an Appendable, such as 
+	 * a StringBuilder, so a program can be compiled without touching the disk.
+	 * @param out where the text goes when close is called.
+	 */
+	public Emitter(Appendable out)
+	{
+		text = out;
+	}
+
+	/**
+	 * Creates a new Emitter object that writes the MIPS text to an OutputStream, 
+	 * as UTF-8. The stream is flushed but not closed by close.
+	 * @param out where the bytes go when close is called.
 	 */
-	public void emit(String code)
+	public Emitter(OutputStream out)
 	{
-		if (!code.endsWith(":"))
-			code = "\t" + code;
-		out.println(code);
+		stream = out;
+	}
+
+	/**
+	 * Adds an Instruction to the file.
+	 * @param ins the Instruction.
+	 */
+	public void emit(Instruction ins)
+	{
+		code.add(ins);
+	}
+	
+	/**
+	 * Adds an instruction to the file.
+	 * @param op the instruction, such as "addu".
+	 * @param operands the operands, in the order they are written.
+	 */
+	public void emit(String op, Operand... operands)
+	{
+		code.add(new Instruction(op, operands));
+	}
+	
+	/**
+	 * Adds a Label to the file.
+	 * @param name the name of the label, without the ':'.
+	 */
+	public void emitLabel(String name)
+	{
+		code.add(new Label(name));
+	}
+	
+	/**
+	 * Adds a comment on a line of its own to the file.
+	 * @param text the comment, without the '#'.
+	 */
+	public void emitComment(String text)
+	{
+		code.add(Instruction.comment(text));
 	}
 
 	/**
@@ -51,8 +129,9 @@ public class Emitter
 	 */
 	public void emitPush(String reg)
 	{
-		emit("subu $sp, $sp, 4" + "  #stores register " + reg +" onto the stack.");
-		emit("sw " + reg +", ($sp)");
+		code.add(new Instruction("subu", "stores register " + reg + " onto the stack.", 
+				SP, SP, FOUR));
+		code.add(new Instruction("sw", Operand.register(reg), TOP));
 		excessStackHeight++;
 	}
 	
@@ -62,16 +141,136 @@ public class Emitter
 	 */
 	public void emitPop(String reg)
 	{
-		emit("lw " + reg +", ($sp)" + "  #removes register " + reg + " from the stack.");
-		emit("addu $sp, $sp, 4");
+		code.add(new Instruction("lw", "removes register " + reg + " from the stack.", 
+				Operand.register(reg), TOP));
+		code.add(new Instruction("addu", SP, SP, FOUR));
 		excessStackHeight--;
 	}
 	/**
-	 * Closes the file after all emit calls have been completed.
+	 * Takes a free register for an expression to be evaluated in.
+	 * @return the name of the register, or null if every register is in use, 
+	 * 		   in which case the value has to go on the stack.
+	 */
+	public String allocate()
+	{
+		for (int i = 0; i < REGISTERS.length; i++)
+		{
+			if (!busy[i])
+			{
+				busy[i] = true;
+				return REGISTERS[i];
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Gives back a register taken by allocate. Registers that allocate does not hand 
+	 * out, such as $v0, are ignored.
+	 * @param reg the name of the register.
+	 */
+	public void free(String reg)
+	{
+		for (int i = 0; i < REGISTERS.length; i++)
+		{
+			if (REGISTERS[i].equals(reg))
+				busy[i] = false;
+		}
+	}
+	
+	/**
+	 * Checks if a register is one that allocate hands out.
+	 * @param reg the name of the register.
+	 * @return true if it is; otherwise, false.
+	 */
+	public boolean isRegister(String reg)
+	{
+		for (String r : REGISTERS)
+		{
+			if (r.equals(reg))
+				return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Lists the registers that hold values, which a procedure call has to save.
+	 * @return the registers in use, in the order allocate hands them out.
+	 */
+	public List<String> getLiveRegisters()
+	{
+		List<String> live = new ArrayList<String>();
+		for (int i = 0; i < REGISTERS.length; i++)
+		{
+			if (busy[i])
+				live.add(REGISTERS[i]);
+		}
+		return live;
+	}
+	
+	/**
+	 * Runs the Peephole optimizer over the Instructions, unless it was turned off, 
+	 * then writes them as text with the AsmWriter, in one write, and closes the file 
+	 * after all emit calls have been completed. Nothing is written before this is 
+	 * called, so every Emitter has to be closed; closing it again does nothing.
 	 */
 	public void close()
 	{
-		out.close();
+		if (closed)
+			return;
+		closed = true;
+		if (optimizing)
+		{
+			InstructionBuffer optimized = Peephole.optimize(code);
+			removed = code.countExecutable() - optimized.countExecutable();
+			code = optimized;
+		}
+		try
+		{
+			if (channel != null)
+			{
+				try (FileChannel out = channel)
+				{
+					writer.write(code, out);
+				}
+			}
+			else if (stream != null)
+				writer.write(code, stream);
+			else
+				writer.write(code, text);
+		}
+		catch(IOException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+	
+	/**
+	 * Gets the Instructions emitted so far, or after close, the ones written.
+	 * @return the InstructionBuffer.
+	 */
+	public InstructionBuffer getInstructions()
+	{
+		return code;
+	}
+	
+	/**
+	 * Turns the Peephole optimizer on or off. It is on unless this is called.
+	 * @param on true to optimize the lines when the file is closed; otherwise, false.
+	 */
+	public void setOptimizing(boolean on)
+	{
+		optimizing = on;
+	}
+	
+	/**
+	 * Gets how many instructions the Peephole optimizer removed.
+	 * @return the number of instructions removed when the file was closed, 
+	 * 		   or 0 if it has not been closed.
+	 */
+	public int getRemovedCount()
+	{
+		return removed;
 	}
 	
 	/**
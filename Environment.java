@@ -1,30 +1,58 @@
 package environment;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import ast.ProcedureDeclaration;
 
 /**
  * The Environment class is responsible for Storing and setting the values of
- * Variables through its HashMap. It uses child and parent environments 
- * to establish a hierarchy of local and global variables.
+ * Variables through its SymbolMap, which keeps them as ints. It uses child and 
+ * parent environments to establish a hierarchy of local and global variables.
+ * A variable found in a parent is remembered in a small cache, along with where 
+ * it is in the parent's map, and so is the global environment, so repeated lookups 
+ * do not walk the chain of parents again. The caches are thrown away whenever any 
+ * environment in the same hierarchy gets a new variable or a new parent, which is 
+ * counted by an epoch that the whole hierarchy shares. Giving an environment a parent 
+ * from another hierarchy merges the two epochs, so that a change on either side 
+ * reaches the caches of both.
  * @author Rakesh Nori
- * @version 3/20/2018
+ * @version 6/29/2018
  */
 public class Environment 
 {
-	private HashMap<String, Integer> map;
+	private static final int MEMO_SIZE = 8;
+	
+	private SymbolMap map;
 	private HashMap<String, ProcedureDeclaration> proMap;
 	private Environment padre;
+	private Epoch epoch;
+	private int memoEpoch = -1;
+	private String[] memoNames;
+	private Environment[] memoOwners;
+	private int[] memoIndexes;
+	private Environment root;
+	
+	/**
+	 * The count of changes to a hierarchy. An epoch that has been merged into another 
+	 * one points to it, and is only read through it from then on.
+	 */
+	private static class Epoch
+	{
+		int count;
+		Epoch merged;
+	}
+	
 	/**
 	 * Instantiates the Map & procedure Map object by making 
-	 * a new HashMap that uses String and Integers for the Key Value pair.
+	 * a new SymbolMap for the variables and a HashMap for the procedures.
 	 * @param parent the parent Environment of the current one.
 	 */
 	public Environment(Environment parent)
 	{
-		 map = new HashMap<String, Integer>();
+		 map = new SymbolMap();
 		 proMap = new HashMap<String, ProcedureDeclaration>();
 		 padre = parent;
+		 epoch = parent == null ? new Epoch() : parent.epoch();
 	}
 	
 	/**
@@ -43,37 +71,120 @@ public class Environment
 	public void setPadre(Environment other)
 	{
 		padre = other;
+		Epoch mine = epoch();
+		mine.count++;
+		if (other != null)
+		{
+			Epoch theirs = other.epoch();
+			if (theirs != mine)
+			{
+				theirs.count = Math.max(theirs.count, mine.count) + 1;
+				mine.merged = theirs;
+				epoch = theirs;
+			}
+		}
+	}
+	
+	/**
+	 * Gets the epoch of the hierarchy, following any merges.
+	 * @return the epoch that is counted now.
+	 */
+	private Epoch epoch()
+	{
+		while (epoch.merged != null)
+			epoch = epoch.merged;
+		return epoch;
 	}
 	
 	/**
 	 * Retrieves the map of the environment.
-	 * @return the HashMap containing variables and their values 
+	 * @return the SymbolMap containing variables and their values 
 	 * 		   (not the procedure map).
 	 */
-	public HashMap<String, Integer> getMap()
+	public SymbolMap getMap()
 	{
 		return map;
 	}
 	
 	/**
-	 * Associates the given variable name with the given value.
-	 * @param variable name of the variable
-	 * @param value its value of an Integer type.
+	 * Clears the caches if anything in the hierarchy has changed since they were filled.
 	 */
-	public void setVariable(String variable, int value)
+	private void checkMemo()
+	{
+		int now = epoch().count;
+		if (memoEpoch != now)
+		{
+			if (memoNames == null)
+			{
+				memoNames = new String[MEMO_SIZE];
+				memoOwners = new Environment[MEMO_SIZE];
+				memoIndexes = new int[MEMO_SIZE];
+			}
+			else
+			{
+				Arrays.fill(memoNames, null);
+				Arrays.fill(memoOwners, null);
+			}
+			root = null;
+			memoEpoch = now;
+		}
+	}
+	
+	/**
+	 * Finds the parent that holds a variable, using the cache when it can.
+	 * @param name the name of the variable.
+	 * @return the index of the cache entry for the variable, 
+	 * 		   or -1 if no parent holds it.
+	 */
+	private int lookup(String name)
 	{
-		if (!map.containsKey(variable))
+		checkMemo();
+		int j = name.hashCode() & (MEMO_SIZE - 1);
+		if (memoNames[j] == name)
+			return j;
+		for (Environment e = padre; e != null; e = e.padre)
 		{
-			Environment lol = this;
-			while (lol.getPadre() != null)
+			int i = e.map.find(name);
+			if (i >= 0)
 			{
-				lol = lol.getPadre();
+				memoNames[j] = name;
+				memoOwners[j] = e;
+				memoIndexes[j] = i;
+				return j;
 			}
-			lol.declareVariable(variable, value);
 		}
+		return -1;
+	}
+	
+	/**
+	 * Gets the global environment, which is at the top of the chain of parents.
+	 * @return the global environment.
+	 */
+	private Environment getRoot()
+	{
+		checkMemo();
+		if (root == null)
+		{
+			Environment e = this;
+			while (e.padre != null)
+				e = e.padre;
+			root = e;
+		}
+		return root;
+	}
+	
+	/**
+	 * Associates the given variable name with the given value.
+	 * @param variable name of the variable
+	 * @param value its value of an Integer type.
+	 */
+	public void setVariable(String variable, int value)
+	{
+		int i = map.find(variable);
+		if (i < 0)
+			getRoot().declareVariable(variable, value);
 		else
-			map.put(variable, value);
-		
+			map.setAt(i, value);
 	}
 	
 	/**
@@ -83,7 +194,8 @@ public class Environment
 	 */
 	public void declareVariable(String variable, int value)
 	{
-		map.put(variable, value);
+		if (map.put(variable, value))
+			epoch().count++;
 	}
 	
 	/**
@@ -106,15 +218,12 @@ public class Environment
 	 */
 	public int getVariable(String name)
 	{
-		if (map.containsKey(name))
-		{
-			return map.get(name);
-		}
-		else if (padre != null)
-		{
-
-			return padre.getVariable(name);
-		}
+		int i = map.find(name);
+		if (i >= 0)
+			return map.getAt(i);
+		int j = lookup(name);
+		if (j >= 0)
+			return memoOwners[j].map.getAt(memoIndexes[j]);
 		throw new IllegalArgumentException("Variable for the corresponding String "
 				+ "does not exist.");
 	}
@@ -1,6 +1,12 @@
 package ast;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
 import emitter.Emitter;
+import emitter.Operand;
 import environment.Environment;
+import environment.Frame;
+import vm.BytecodeEmitter;
 /**
  * 
  * @author Rakesh Nori
@@ -17,6 +23,47 @@ public abstract class Expression
 	 */
 	public abstract int eval(Environment env);
 	
+	/**
+	 * Binds the variables in the expression to their Frame slots.
+	 * @param r the Resolver that knows the slot of every variable.
+	 */
+	public abstract void resolve(Resolver r);
+	
+	/**
+	 * Evaluates an expression that has been resolved.
+	 * @param frame the Frame holding the variables the expression can use.
+	 * @return the Integer result after the evaluation has occurred.
+	 */
+	public abstract int eval(Frame frame);
+	
+	/**
+	 * Converts a resolved Expression once into a closure that evaluates it in a Frame. 
+	 * Operators, slots and procedures are bound when the closure is made, so 
+	 * evaluating it does not look at any of them again.
+	 * @return the closure.
+	 */
+	public abstract ToIntFunction<Frame> link();
+	
+	/**
+	 * Replaces every BinOp and Condition in the expression whose two sides call only 
+	 * pure procedures, and at least one each, with a node that evaluates the sides 
+	 * at the same time. Expressions with nothing to replace return themselves.
+	 * @param pure the pure procedures, as found by Purity.
+	 * @param cutoff how many forks can enclose each other before evaluation 
+	 * 		  turns sequential.
+	 * @return the expression to use in place of this one.
+	 */
+	public Expression parallelize(Set<ProcedureDeclaration> pure, int cutoff)
+	{
+		return this;
+	}
+	
+	/**
+	 * Compiles the expression to bytecode for the VirtualMachine.
+	 * @param b the BytecodeEmitter that collects the instructions.
+	 */
+	public abstract void compile(BytecodeEmitter b);
+	
 	/**
 	 * Converts the instructions to MIPS. 
 	 * @param e the Emitter that writes the file.
@@ -25,5 +72,29 @@ public abstract class Expression
 	{
 		throw new RuntimeException("not implemented yet.");
 	}
+	
+	/**
+	 * Converts the instructions to MIPS that leave the value in a given register. 
+	 * Expressions that only know how to leave it in $v0 are moved from there.
+	 * @param e the Emitter that writes the file.
+	 * @param reg the register to leave the value in, which is $v0 or one taken 
+	 * 		  from the Emitter's allocate.
+	 */
+	public void compileTo(Emitter e, String reg)
+	{
+		compile(e);
+		if (!reg.equals("$v0"))
+			e.emit("move", Operand.register(reg), Operand.register("$v0"));
+	}
+	
+	/**
+	 * Gets the Sethi-Ullman number of the expression: how many registers it takes to 
+	 * evaluate it without putting anything on the stack.
+	 * @return the number of registers, which is 1 for an expression with no operators.
+	 */
+	public int registerNeed()
+	{
+		return 1;
+	}
 
 }
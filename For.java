@@ -1,11 +1,25 @@
 package ast;
 
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
 import environment.Environment;
+import environment.Frame;
+import vm.Bytecode;
+import vm.BytecodeEmitter;
 
 /**
  * The For Class uses assignment and conditions in tandem to execute loops. 
+ * A loop whose limit does not read the loop variable, and whose body cannot change 
+ * the loop variable or anything the limit depends on, is a counted loop: the limit 
+ * is evaluated once and the count is kept in an int, which is written back to the 
+ * loop variable every iteration for the body to read. 
+ * Any other loop checks the loop variable against the limit before every iteration. 
+ * Neither kind allocates anything per iteration.
  * @author Rakesh Nori
- * @version 3/22/2018
+ * @version 6/30/2018
  */
 public class For extends Statement
 {
@@ -14,6 +28,9 @@ public class For extends Statement
 	private String name;
 	private Assignment a;
 	private Expression top;
+	private int depth;
+	private int slot;
+	private boolean counted;
 	/**
 	 * The constructor creates a condition that will be checked every iteration  
      * of the loop.
@@ -32,6 +49,78 @@ public class For extends Statement
 		top = lim;
 		name = nm;
 		a = in;
+		Set<String> reads = new HashSet<String>();
+		counted = readsOnly(lim, reads) && !reads.contains(nm);
+		reads.add(nm);
+		counted = counted && !writes(whileTrue, reads);
+	}
+	
+	/**
+	 * Collects the variables an Expression reads, if it does not call any procedure.
+	 * @param e the Expression.
+	 * @param names the set the names of the variables are added to.
+	 * @return true if the Expression only reads variables and constants; 
+	 * 		   otherwise, false, when it calls a procedure.
+	 */
+	private static boolean readsOnly(Expression e, Set<String> names)
+	{
+		if (e instanceof Variable)
+			names.add(((Variable)e).getName());
+		else if (e instanceof BinOp)
+			return readsOnly(((BinOp)e).getLeft(), names) 
+					&& readsOnly(((BinOp)e).getRight(), names);
+		else if (e instanceof Condition)
+			return readsOnly(((Condition)e).getLeft(), names) 
+					&& readsOnly(((Condition)e).getRight(), names);
+		else if (e instanceof Negate)
+			return readsOnly(((Negate)e).getExpression(), names);
+		else if (!(e instanceof Number))
+			return false;
+		return true;
+	}
+	
+	/**
+	 * Checks if a Statement might change any of the given variables. A procedure 
+	 * call might change any global, so it counts as a change.
+	 * @param s the Statement.
+	 * @param names the names of the variables.
+	 * @return true if the Statement might change one of them; otherwise, false.
+	 */
+	private static boolean writes(Statement s, Set<String> names)
+	{
+		Set<String> ignored = new HashSet<String>();
+		if (s instanceof Block)
+		{
+			for (Statement inner : ((Block)s).getStatements())
+			{
+				if (writes(inner, names))
+					return true;
+			}
+			return false;
+		}
+		if (s instanceof Assignment)
+			return names.contains(((Assignment)s).getName()) 
+					|| !readsOnly(((Assignment)s).getExpression(), ignored);
+		if (s instanceof Readln)
+			return names.contains(((Readln)s).getName());
+		if (s instanceof Writeln)
+			return !readsOnly(((Writeln)s).getExpression(), ignored);
+		if (s instanceof If)
+		{
+			If f = (If)s;
+			return !readsOnly(f.getCondition(), ignored) || writes(f.getThen(), names) 
+					|| (f.getElse() != null && writes(f.getElse(), names));
+		}
+		if (s instanceof While)
+			return !readsOnly(((While)s).getCondition(), ignored) 
+					|| writes(((While)s).getBody(), names);
+		if (s instanceof For)
+		{
+			For f = (For)s;
+			return names.contains(f.getName()) || writes(f.getStart(), names) 
+					|| !readsOnly(f.getLimit(), ignored) || writes(f.getBody(), names);
+		}
+		return true;
 	}
 	
 	/**
@@ -46,13 +135,200 @@ public class For extends Statement
 	public void exec(Environment env) 
 	{
 		a.exec(env);
-		while (c.eval(env) == 1)
+		if (counted)
 		{
-			res.exec(env);
-			env.setVariable(name, env.getVariable(name) + 1);
-			Number increment = new Number(env.getVariable(name));
-			c = new Condition(increment, "<", top);
+			int limit = top.eval(env);
+			for (int i = env.getVariable(name); i < limit; )
+			{
+				res.exec(env);
+				env.setVariable(name, ++i);
+			}
+		}
+		else
+		{
+			while (env.getVariable(name) < top.eval(env))
+			{
+				res.exec(env);
+				env.setVariable(name, env.getVariable(name) + 1);
+			}
 		}
 	}
-
+	
+	/**
+	 * Resolves the start, the limit and the body, and finds the Frame slot of 
+	 * the loop variable.
+	 * @param r the Resolver that knows where every variable lives.
+	 */
+	public void resolve(Resolver r)
+	{
+		a.resolve(r);
+		top.resolve(r);
+		res.resolve(r);
+		depth = r.getDepth(name);
+		slot = r.getSlot(name);
+	}
+	
+	/**
+	 * Parallelizes the start, the limit and the statement in the loop.
+	 * @param pure the pure procedures, as found by Purity.
+	 * @param cutoff how many forks can enclose each other before evaluation 
+	 * 		  turns sequential.
+	 */
+	public void parallelize(Set<ProcedureDeclaration> pure, int cutoff)
+	{
+		a.parallelize(pure, cutoff);
+		top = top.parallelize(pure, cutoff);
+		res.parallelize(pure, cutoff);
+	}
+	
+	/**
+	 * Executes the loop in a Frame. The loop variable is read and incremented 
+	 * in its Frame slot, and the limit is checked before every iteration, 
+	 * unless the loop is counted.
+	 * @param frame the Frame of the procedure or program being run.
+	 */
+	public void exec(Frame frame)
+	{
+		a.exec(frame);
+		if (counted)
+		{
+			int limit = top.eval(frame);
+			for (int i = frame.get(depth, slot); i < limit; )
+			{
+				res.exec(frame);
+				frame.set(depth, slot, ++i);
+			}
+			return;
+		}
+		while (frame.get(depth, slot) < top.eval(frame))
+		{
+			res.exec(frame);
+			frame.set(depth, slot, frame.get(depth, slot) + 1);
+		}
+	}
+	
+	/**
+	 * Links the loop into a closure. The limit is checked before every iteration 
+	 * unless the loop is counted, as exec does.
+	 * @return a closure that runs the FOR loop in a Frame.
+	 */
+	public Consumer<Frame> link()
+	{
+		Consumer<Frame> start = a.link();
+		ToIntFunction<Frame> limit = top.link();
+		Consumer<Frame> body = res.link();
+		int s = slot;
+		int up = depth;
+		if (counted)
+		{
+			return f -> {
+				start.accept(f);
+				int[] slots = up == 0 ? f.getSlots() : f.getPadre().getSlots();
+				int end = limit.applyAsInt(f);
+				for (int i = slots[s]; i < end; )
+				{
+					body.accept(f);
+					slots[s] = ++i;
+				}
+			};
+		}
+		return f -> {
+			start.accept(f);
+			int[] slots = up == 0 ? f.getSlots() : f.getPadre().getSlots();
+			while (slots[s] < limit.applyAsInt(f))
+			{
+				body.accept(f);
+				slots[s]++;
+			}
+		};
+	}
+	
+	/**
+	 * Checks if the loop is a counted loop, which evaluates its limit only once.
+	 * @return true if the body cannot change the loop variable or the limit; 
+	 * 		   otherwise, false.
+	 */
+	public boolean isCounted()
+	{
+		return counted;
+	}
+	
+	/**
+	 * Gets how many Frames up the variable lives, as found by the Resolver.
+	 * @return the depth of the variable.
+	 */
+	public int getDepth()
+	{
+		return depth;
+	}
+	
+	/**
+	 * Gets the Frame slot of the variable, as found by the Resolver.
+	 * @return the slot of the variable.
+	 */
+	public int getSlot()
+	{
+		return slot;
+	}
+	
+	/**
+	 * Compiles the loop as the starting assignment and a jump to the check at the 
+	 * bottom, then the body, an increment of the loop variable, and the check of 
+	 * the loop variable against the limit, which jumps back to the body while it 
+	 * is below the limit.
+	 * @param b the BytecodeEmitter that collects the instructions.
+	 */
+	public void compile(BytecodeEmitter b)
+	{
+		int bodyLabel = b.newLabel();
+		int checkLabel = b.newLabel();
+		a.compile(b);
+		b.emitJump(Bytecode.JUMP, checkLabel);
+		b.placeLabel(bodyLabel);
+		res.compile(b);
+		b.emitLoad(depth, slot);
+		b.emit(Bytecode.CONST, 1);
+		b.emit(Bytecode.ADD);
+		b.emitStore(depth, slot);
+		b.placeLabel(checkLabel);
+		b.emitLoad(depth, slot);
+		top.compile(b);
+		b.emitJump(Bytecode.JLT, bodyLabel);
+	}
+	
+	/**
+	 * Gets the assignment that starts the loop.
+	 * @return the Assignment of the starting value to the loop variable.
+	 */
+	public Assignment getStart()
+	{
+		return a;
+	}
+	
+	/**
+	 * Gets the name of the loop variable.
+	 * @return the name of the variable being incremented.
+	 */
+	public String getName()
+	{
+		return name;
+	}
+	
+	/**
+	 * Gets the upper limit of the loop.
+	 * @return the Expression the loop variable must stay below.
+	 */
+	public Expression getLimit()
+	{
+		return top;
+	}
+	
+	/**
+	 * Gets the body of the loop.
+	 * @return the Statement executed every iteration.
+	 */
+	public Statement getBody()
+	{
+		return res;
+	}
 }
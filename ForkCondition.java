@@ -0,0 +1,140 @@
+package ast;
+
+import java.util.function.IntBinaryOperator;
+import java.util.function.ToIntFunction;
+
+import emitter.Emitter;
+import environment.Environment;
+import environment.Frame;
+import vm.BytecodeEmitter;
+
+/**
+ * The ForkCondition evaluates the two sides of a Condition at the same time when both
+ * of them only call pure procedures, the same way a ForkNode does for a BinOp. It only
+ * forks in Frames and linked closures, and only while fewer than cutoff forks enclose
+ * it; otherwise it is the Condition it wraps.
+ * @author Rakesh Nori
+ * @version 7/3/2018
+ */
+public class ForkCondition extends Condition
+{
+	private Condition node;
+	private int cutoff;
+
+	/**
+	 * Creates a ForkCondition for a Condition whose sides have already been parallelized.
+	 * @param wrapped the Condition.
+	 * @param forks how many forks can enclose each other before evaluation
+	 * 		  turns sequential.
+	 */
+	public ForkCondition(Condition wrapped, int forks)
+	{
+		super(wrapped.getLeft(), wrapped.getRelop(), wrapped.getRight());
+		node = wrapped;
+		cutoff = forks;
+	}
+
+	/**
+	 * Evaluates the Condition in an Environment, one side after the other.
+	 * @param env the Environment containing all the variables that can be used.
+	 * @return 1 if the relation holds, otherwise 0.
+	 */
+	public int eval(Environment env)
+	{
+		return node.eval(env);
+	}
+
+	/**
+	 * Resolves the Condition.
+	 * @param r the Resolver being used.
+	 */
+	public void resolve(Resolver r)
+	{
+		node.resolve(r);
+	}
+
+	/**
+	 * Evaluates the two sides in a Frame at the same time, unless cutoff forks
+	 * already enclose the Condition.
+	 * @param frame the Frame containing all the variables that can be used.
+	 * @return 1 if the relation holds, otherwise 0.
+	 */
+	public int eval(Frame frame)
+	{
+		int[] levels = ForkNode.levels();
+		if (levels[0] >= cutoff)
+			return node.eval(frame);
+		return ForkNode.fork(levels, frame, e1::eval, e2::eval, node::compare);
+	}
+
+	/**
+	 * Links the Condition into a closure that evaluates the two sides at the same
+	 * time, unless cutoff forks already enclose it.
+	 * @return a closure that evaluates the comparison in a Frame, to 1 or 0.
+	 */
+	public ToIntFunction<Frame> link()
+	{
+		ToIntFunction<Frame> sequential = node.link();
+		ToIntFunction<Frame> a = e1.link();
+		ToIntFunction<Frame> b = e2.link();
+		IntBinaryOperator op = node::compare;
+		int forks = cutoff;
+		return f -> {
+			int[] levels = ForkNode.levels();
+			if (levels[0] >= forks)
+				return sequential.applyAsInt(f);
+			return ForkNode.fork(levels, f, a, b, op);
+		};
+	}
+
+	/**
+	 * Compiles the Condition to bytecode that pushes 1 or 0.
+	 * @param b the BytecodeEmitter that collects the instructions.
+	 */
+	public void compile(BytecodeEmitter b)
+	{
+		node.compile(b);
+	}
+
+	/**
+	 * Compiles the Condition as a jump that is taken when the relation does not hold.
+	 * @param b the BytecodeEmitter that collects the instructions.
+	 * @param falseLabel the label to jump to when the Condition is false.
+	 */
+	public void compile(BytecodeEmitter b, int falseLabel)
+	{
+		node.compile(b, falseLabel);
+	}
+
+	/**
+	 * Compiles the Condition as a jump that is taken when it has the given value.
+	 * @param b the BytecodeEmitter that collects the instructions.
+	 * @param label the label to jump to.
+	 * @param when true to jump when the relation holds, false to jump when it does not.
+	 */
+	public void compile(BytecodeEmitter b, int label, boolean when)
+	{
+		node.compile(b, label, when);
+	}
+
+	/**
+	 * Uses the relative operator of the Condition on two values.
+	 * @param a the value of the first expression.
+	 * @param b the value of the second expression.
+	 * @return 1 if the relation holds, otherwise 0.
+	 */
+	public int compare(int a, int b)
+	{
+		return node.compare(a, b);
+	}
+
+	/**
+	 * Converts the Condition to MIPS, branching to targetLabel when it is false.
+	 * @param e the Emitter that writes to the MIPS file.
+	 * @param targetLabel the label to branch to.
+	 */
+	public void compile(Emitter e, String targetLabel)
+	{
+		node.compile(e, targetLabel);
+	}
+}
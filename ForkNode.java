@@ -0,0 +1,319 @@
+package ast;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntBinaryOperator;
+import java.util.function.ToIntFunction;
+
+import emitter.Emitter;
+import environment.Environment;
+import environment.Frame;
+import vm.BytecodeEmitter;
+
+/**
+ * The ForkNode evaluates the two sides of a BinOp at the same time when both of them
+ * only call pure procedures, as in fib(n - 1) + fib(n - 2). The left side is forked as
+ * a task of the common ForkJoinPool while the current thread evaluates the right side,
+ * and then it joins the left. Neither side can write a variable, so they only share the
+ * caller's Frame for reading, and every call they make gets its Frame from the
+ * FrameStack of the thread running it. A fork costs far more than a call, so a node
+ * only forks while fewer than cutoff forks enclose it, and below that it evaluates the
+ * way the BinOp it wraps does. Environments are shared by every call of a procedure,
+ * so the node only forks in Frames and linked closures; in an Environment, and when it
+ * is compiled, it is the BinOp it wraps.
+ * @author Rakesh Nori
+ * @version 7/3/2018
+ */
+public class ForkNode extends BinOp
+{
+	private static final ThreadLocal<int[]> LEVELS = new ThreadLocal<int[]>()
+	{
+		protected int[] initialValue()
+		{
+			return new int[1];
+		}
+	};
+
+	private BinOp node;
+	private int cutoff;
+
+	/**
+	 * One side of a fork, evaluated by whichever thread of the pool runs it.
+	 */
+	private static final class Side extends RecursiveTask<Integer>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final ToIntFunction<Frame> side;
+		private final Frame frame;
+		private final int level;
+
+		/**
+		 * Creates a Side.
+		 * @param e the side to evaluate.
+		 * @param f the Frame to evaluate it in.
+		 * @param forks how many forks enclose it.
+		 */
+		Side(ToIntFunction<Frame> e, Frame f, int forks)
+		{
+			side = e;
+			frame = f;
+			level = forks;
+		}
+
+		/**
+		 * Evaluates the side with the thread's fork count set to the side's, and puts
+		 * the count back afterwards, since a thread waiting in join can run another
+		 * task on top of the one it is in.
+		 * @return the value of the side.
+		 */
+		protected Integer compute()
+		{
+			int[] levels = LEVELS.get();
+			int saved = levels[0];
+			levels[0] = level;
+			try
+			{
+				return side.applyAsInt(frame);
+			}
+			finally
+			{
+				levels[0] = saved;
+			}
+		}
+	}
+
+	/**
+	 * Creates a ForkNode for a BinOp whose sides have already been parallelized.
+	 * @param wrapped the BinOp.
+	 * @param forks how many forks can enclose each other before evaluation
+	 * 		  turns sequential.
+	 */
+	public ForkNode(BinOp wrapped, int forks)
+	{
+		super(wrapped.getOperator(), wrapped.getLeft(), wrapped.getRight());
+		node = wrapped;
+		cutoff = forks;
+	}
+
+	/**
+	 * Checks if two expressions can be evaluated at the same time: both call at least
+	 * one procedure, and every procedure they call is pure.
+	 * @param a the first expression.
+	 * @param b the second expression.
+	 * @param pure the pure procedures, as found by Purity.
+	 * @return true if forking one of them is worth it and safe; otherwise, false.
+	 */
+	static boolean independent(Expression a, Expression b, Set<ProcedureDeclaration> pure)
+	{
+		return countCalls(a, pure) > 0 && countCalls(b, pure) > 0;
+	}
+
+	/**
+	 * Counts the procedure calls in an expression.
+	 * @param e the expression.
+	 * @param pure the pure procedures, as found by Purity.
+	 * @return the number of calls, or -1 if one of them is not pure.
+	 */
+	private static int countCalls(Expression e, Set<ProcedureDeclaration> pure)
+	{
+		if (e instanceof Number || e instanceof Variable)
+			return 0;
+		if (e instanceof Negate)
+			return countCalls(((Negate)e).getExpression(), pure);
+		if (e instanceof BinOp)
+			return countCalls(((BinOp)e).getLeft(), ((BinOp)e).getRight(), pure);
+		if (e instanceof Condition)
+			return countCalls(((Condition)e).getLeft(), ((Condition)e).getRight(), pure);
+		if (e instanceof ProcedureCall)
+		{
+			ProcedureCall call = (ProcedureCall)e;
+			if (!pure.contains(call.getDeclaration()))
+				return -1;
+			int count = 1;
+			List<Expression> args = call.getArgs();
+			for (int i = 0; args != null && i < args.size(); i++)
+			{
+				int inner = countCalls(args.get(i), pure);
+				if (inner < 0)
+					return -1;
+				count += inner;
+			}
+			return count;
+		}
+		return -1;
+	}
+
+	/**
+	 * Counts the procedure calls in two expressions.
+	 * @param a the first expression.
+	 * @param b the second expression.
+	 * @param pure the pure procedures, as found by Purity.
+	 * @return the number of calls, or -1 if one of them is not pure.
+	 */
+	private static int countCalls(Expression a, Expression b, Set<ProcedureDeclaration> pure)
+	{
+		int left = countCalls(a, pure);
+		int right = countCalls(b, pure);
+		return left < 0 || right < 0 ? -1 : left + right;
+	}
+
+	/**
+	 * Evaluates two sides at the same time and combines their values. A thread that is
+	 * not in the pool hands the whole fork to the pool once and waits for it. The pool
+	 * may run that task on the waiting thread itself, which is still not one of its
+	 * workers, so the task splits the sides directly instead of coming back here.
+	 * @param levels the current thread's fork count, which is under the cutoff.
+	 * @param frame the Frame the sides are evaluated in.
+	 * @param left the side that is forked.
+	 * @param right the side the current thread evaluates.
+	 * @param op what combines the values of the sides.
+	 * @return the combined value.
+	 */
+	static int fork(int[] levels, Frame frame, ToIntFunction<Frame> left,
+					ToIntFunction<Frame> right, IntBinaryOperator op)
+	{
+		if (!ForkJoinTask.inForkJoinPool())
+			return ForkJoinPool.commonPool().invoke(new Side(
+					f -> split(LEVELS.get(), f, left, right, op), frame, levels[0]));
+		return split(levels, frame, left, right, op);
+	}
+
+	/**
+	 * Forks the left side, evaluates the right side on the current thread and joins
+	 * the left.
+	 * @param levels the current thread's fork count, which is under the cutoff.
+	 * @param frame the Frame the sides are evaluated in.
+	 * @param left the side that is forked.
+	 * @param right the side the current thread evaluates.
+	 * @param op what combines the values of the sides.
+	 * @return the combined value.
+	 */
+	private static int split(int[] levels, Frame frame, ToIntFunction<Frame> left,
+							 ToIntFunction<Frame> right, IntBinaryOperator op)
+	{
+		int saved = levels[0];
+		Side task = new Side(left, frame, saved + 1);
+		task.fork();
+		int b;
+		levels[0] = saved + 1;
+		try
+		{
+			b = right.applyAsInt(frame);
+		}
+		catch (RuntimeException e)
+		{
+			task.quietlyJoin();
+			throw e;
+		}
+		finally
+		{
+			levels[0] = saved;
+		}
+		return op.applyAsInt(task.join(), b);
+	}
+
+	/**
+	 * Gets the current thread's fork count.
+	 * @return an array whose only element is how many forks enclose the evaluation.
+	 */
+	static int[] levels()
+	{
+		return LEVELS.get();
+	}
+
+	/**
+	 * Evaluates the BinOp in an Environment, one side after the other.
+	 * @param env the environment containing variables that can be used.
+	 * @return the result of the operator.
+	 */
+	public int eval(Environment env)
+	{
+		return node.eval(env);
+	}
+
+	/**
+	 * Resolves the BinOp.
+	 * @param r the Resolver being used.
+	 */
+	public void resolve(Resolver r)
+	{
+		node.resolve(r);
+	}
+
+	/**
+	 * Evaluates the two sides in a Frame at the same time, unless cutoff forks
+	 * already enclose the node.
+	 * @param frame the Frame containing variables that can be used.
+	 * @return the result of the operator.
+	 */
+	public int eval(Frame frame)
+	{
+		int[] levels = LEVELS.get();
+		if (levels[0] >= cutoff)
+			return node.eval(frame);
+		return fork(levels, frame, exp1::eval, exp2::eval, node::apply);
+	}
+
+	/**
+	 * Links the node into a closure that evaluates the two sides at the same time,
+	 * unless cutoff forks already enclose it.
+	 * @return a closure that evaluates the operation in a Frame.
+	 */
+	public ToIntFunction<Frame> link()
+	{
+		ToIntFunction<Frame> sequential = node.link();
+		ToIntFunction<Frame> a = exp1.link();
+		ToIntFunction<Frame> b = exp2.link();
+		IntBinaryOperator op = node::apply;
+		int forks = cutoff;
+		return f -> {
+			int[] levels = LEVELS.get();
+			if (levels[0] >= forks)
+				return sequential.applyAsInt(f);
+			return fork(levels, f, a, b, op);
+		};
+	}
+
+	/**
+	 * Compiles the BinOp to bytecode.
+	 * @param b the BytecodeEmitter that collects the instructions.
+	 */
+	public void compile(BytecodeEmitter b)
+	{
+		node.compile(b);
+	}
+
+	/**
+	 * Uses the operator of the BinOp on two values.
+	 * @param a the value of the first / left expression.
+	 * @param b the value of the second / right expression.
+	 * @return the result of the operator.
+	 */
+	public int apply(int a, int b)
+	{
+		return node.apply(a, b);
+	}
+
+	/**
+	 * Converts the BinOp to MIPS.
+	 * @param e the Emitter that writes to the MIPS file.
+	 */
+	public void compile(Emitter e)
+	{
+		node.compile(e);
+	}
+
+	/**
+	 * Converts the BinOp to MIPS that leaves the result in a register.
+	 * @param e the Emitter that writes to the MIPS file.
+	 * @param reg the register to leave the result in.
+	 */
+	public void compileTo(Emitter e, String reg)
+	{
+		node.compileTo(e, reg);
+	}
+}
@@ -0,0 +1,123 @@
+package environment;
+
+import java.util.Arrays;
+
+/**
+ * The Frame class holds the values of variables in an int array, one slot for every
+ * variable, after a Resolver has worked out which slot each variable lives in. The
+ * Frame of the program holds the global variables, and every procedure call gets its
+ * own Frame whose parent is the global one. A variable is found by how many parents
+ * to go up (its depth) and its slot, so reading or writing it is an array access with
+ * no hashing and no boxing. A FrameStack reuses procedure Frames, so the slot array
+ * can be longer than the Frame; only the first size() slots belong to it.
+ * @author Rakesh Nori
+ * @version 6/28/2018
+ */
+public class Frame
+{
+	private int[] slots;
+	private int size;
+	private Frame padre;
+
+	/**
+	 * Creates a Frame with every slot set to 0.
+	 * @param size the number of slots.
+	 * @param parent the Frame one level up, or null for the global Frame.
+	 */
+	public Frame(int size, Frame parent)
+	{
+		slots = new int[size];
+		this.size = size;
+		padre = parent;
+	}
+
+	/**
+	 * Makes a Frame that is being reused look like a new one: it gets a new size and
+	 * parent, and its slots are set to 0.
+	 * @param n the number of slots, which must not be more than the slot array holds.
+	 * @param parent the Frame one level up.
+	 */
+	void reset(int n, Frame parent)
+	{
+		Arrays.fill(slots, 0, n, 0);
+		size = n;
+		padre = parent;
+	}
+
+	/**
+	 * Gets how many slots the slot array holds, which can be more than size().
+	 * @return the length of the slot array.
+	 */
+	int capacity()
+	{
+		return slots.length;
+	}
+
+	/**
+	 * Gets the parent Frame.
+	 * @return the Frame one level up, or null for the global Frame.
+	 */
+	public Frame getPadre()
+	{
+		return padre;
+	}
+
+	/**
+	 * Gets the global Frame, which is the Frame at the top of the chain of parents.
+	 * @return the global Frame.
+	 */
+	public Frame getGlobals()
+	{
+		Frame f = this;
+		while (f.padre != null)
+			f = f.padre;
+		return f;
+	}
+
+	/**
+	 * Gets the number of slots in the Frame.
+	 * @return the number of slots.
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Gets the array that holds the slots, so compiled code can read and write
+	 * the same variables as the interpreter.
+	 * @return the slots of the Frame, which can be longer than size().
+	 */
+	public int[] getSlots()
+	{
+		return slots;
+	}
+
+	/**
+	 * Gets the value of a variable.
+	 * @param depth how many parents up the variable's Frame is.
+	 * @param slot the slot of the variable in its Frame.
+	 * @return the value of the variable.
+	 */
+	public int get(int depth, int slot)
+	{
+		Frame f = this;
+		for (int i = 0; i < depth; i++)
+			f = f.padre;
+		return f.slots[slot];
+	}
+
+	/**
+	 * Sets the value of a variable.
+	 * @param depth how many parents up the variable's Frame is.
+	 * @param slot the slot of the variable in its Frame.
+	 * @param value the new value of the variable.
+	 */
+	public void set(int depth, int slot, int value)
+	{
+		Frame f = this;
+		for (int i = 0; i < depth; i++)
+			f = f.padre;
+		f.slots[slot] = value;
+	}
+}
@@ -0,0 +1,83 @@
+package environment;
+
+import java.util.Arrays;
+
+/**
+ * The FrameStack hands out the Frames of procedure calls and takes them back when the
+ * calls return. Calls return in the opposite order they are made, so the Frames are
+ * kept in an array by call depth, and a call gets the Frame the last call at its
+ * depth used, cleared, as long as it has enough slots. Once a program has been as deep
+ * as it will get, calls stop allocating, so deep recursion such as fib(30) runs with
+ * a handful of Frames. Every thread has its own FrameStack, since two threads making
+ * calls at once would otherwise hand out the same Frame twice.
+ * @author Rakesh Nori
+ * @version 6/28/2018
+ * Usage:
+ * FrameStack stack = FrameStack.get();
+ * Frame callee = stack.push(proc.getFrameSize(), frame.getGlobals());
+ * try { ... } finally { stack.pop(); }
+ */
+public class FrameStack
+{
+	private static final ThreadLocal<FrameStack> STACKS = new ThreadLocal<FrameStack>()
+	{
+		protected FrameStack initialValue()
+		{
+			return new FrameStack();
+		}
+	};
+
+	private Frame[] frames = new Frame[16];
+	private int depth;
+
+	/**
+	 * Gets the FrameStack of the current thread.
+	 * @return the FrameStack.
+	 */
+	public static FrameStack get()
+	{
+		return STACKS.get();
+	}
+
+	/**
+	 * Gets a Frame for a call, with every slot set to 0.
+	 * @param size the number of slots the call needs.
+	 * @param parent the Frame one level up, which is the global Frame.
+	 * @return the Frame, which belongs to the call until pop is called.
+	 */
+	public Frame push(int size, Frame parent)
+	{
+		if (depth == frames.length)
+			frames = Arrays.copyOf(frames, depth * 2);
+		Frame f = frames[depth];
+		if (f == null || f.capacity() < size)
+		{
+			f = new Frame(size, parent);
+			frames[depth] = f;
+		}
+		else
+			f.reset(size, parent);
+		depth++;
+		return f;
+	}
+
+	/**
+	 * Gives back the Frame of the call that is returning, which is the last one pushed.
+	 * @throws IllegalStateException if no Frame is in use.
+	 */
+	public void pop()
+	{
+		if (depth == 0)
+			throw new IllegalStateException("No Frame to pop.");
+		depth--;
+	}
+
+	/**
+	 * Gets how many Frames are in use, which is how deep the calls are.
+	 * @return the number of calls that have not returned.
+	 */
+	public int getDepth()
+	{
+		return depth;
+	}
+}
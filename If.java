@@ -1,7 +1,14 @@
 package ast;
 
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
 import emitter.Emitter;
 import environment.Environment;
+import environment.Frame;
+import vm.Bytecode;
+import vm.BytecodeEmitter;
 
 /**
  * A type of statement that contains a condition and a Statement to be executed 
@@ -48,6 +55,145 @@ public class If extends Statement
 		}
 	}
 	
+	/**
+	 * Resolves the condition and both statements.
+	 * @param r the Resolver being used.
+	 */
+	public void resolve(Resolver r)
+	{
+		c.resolve(r);
+		res.resolve(r);
+		if (other != null)
+			other.resolve(r);
+	}
+	
+	/**
+	 * Parallelizes the condition and both statements.
+	 * @param pure the pure procedures, as found by Purity.
+	 * @param cutoff how many forks can enclose each other before evaluation 
+	 * 		  turns sequential.
+	 */
+	public void parallelize(Set<ProcedureDeclaration> pure, int cutoff)
+	{
+		c = c.parallelize(pure, cutoff);
+		res.parallelize(pure, cutoff);
+		if (other != null)
+			other.parallelize(pure, cutoff);
+	}
+	
+	/**
+	 * Checks if the condition is true in a Frame. If so, executes the Statement 
+	 * in the If class; otherwise executes the else Statement if there is one.
+	 * @param frame the Frame containing variables that are used in execution.
+	 */
+	public void exec(Frame frame)
+	{
+		if (c.eval(frame) == 1)
+			res.exec(frame);
+		else if (other != null)
+			other.exec(frame);
+	}
+	
+	/**
+	 * Links the condition and both branches into one closure.
+	 * @return a closure that runs the IF statement in a Frame.
+	 */
+	public Consumer<Frame> link()
+	{
+		ToIntFunction<Frame> test = c.link();
+		Consumer<Frame> then = res.link();
+		if (other == null)
+		{
+			return f -> {
+				if (test.applyAsInt(f) == 1)
+					then.accept(f);
+			};
+		}
+		Consumer<Frame> otherwise = other.link();
+		return f -> {
+			if (test.applyAsInt(f) == 1)
+				then.accept(f);
+			else
+				otherwise.accept(f);
+		};
+	}
+	
+	/**
+	 * Compiles the condition as a jump past the then statement, 
+	 * and the else statement after it if there is one.
+	 * @param b the BytecodeEmitter that collects the instructions.
+	 */
+	public void compile(BytecodeEmitter b)
+	{
+		compile(b, false);
+	}
+	
+	/**
+	 * Compiles the If as the last statement of a procedure, so both branches are 
+	 * in tail position.
+	 * @param b the BytecodeEmitter that collects the instructions.
+	 */
+	public void compileTail(BytecodeEmitter b)
+	{
+		compile(b, true);
+	}
+	
+	/**
+	 * Compiles the condition as a jump past the then statement, 
+	 * and the else statement after it if there is one.
+	 * @param b the BytecodeEmitter that collects the instructions.
+	 * @param tail true if the If is the last statement of a procedure.
+	 */
+	private void compile(BytecodeEmitter b, boolean tail)
+	{
+		int otherLabel = b.newLabel();
+		c.compile(b, otherLabel);
+		if (tail)
+			res.compileTail(b);
+		else
+			res.compile(b);
+		if (other == null)
+			b.placeLabel(otherLabel);
+		else
+		{
+			int endLabel = b.newLabel();
+			b.emitJump(Bytecode.JUMP, endLabel);
+			b.placeLabel(otherLabel);
+			if (tail)
+				other.compileTail(b);
+			else
+				other.compile(b);
+			b.placeLabel(endLabel);
+		}
+	}
+	
+	/**
+	 * Gets the condition of the If.
+	 * @return the Condition that is checked.
+	 */
+	public Condition getCondition()
+	{
+		return c;
+	}
+	
+	/**
+	 * Gets the statement executed when the condition is true.
+	 * @return the THEN Statement.
+	 */
+	public Statement getThen()
+	{
+		return res;
+	}
+	
+	/**
+	 * Gets the statement executed when the condition is false.
+	 * @return the ELSE Statement, or null if there is none.
+	 */
+	public Statement getElse()
+	{
+		return other;
+	}
+	
 	/**
 	 * Converts the body statement(s) and the condition in the if statement to MIPS.
 	 * @Emitter e the Emitter that converts current code to MIPS.
@@ -57,7 +203,7 @@ public class If extends Statement
 		String temp = "endif" + e.nextLabelID();
 		c.compile(e, temp);
 		res.compile(e);
-		e.emit(temp +":");
+		e.emitLabel(temp);
 		if (other != null)
 			other.compile(e);
 	}
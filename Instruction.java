@@ -0,0 +1,181 @@
+package emitter;
+
+/**
+ * An Instruction is one line of a MIPS program held as an object instead of text: an
+ * instruction such as addu with its Operands, a directive such as .word, whose name
+ * starts with '.', or a comment on a line of its own. An instruction can also carry a
+ * comment that is written after it. Labels are Instructions too, as the Label
+ * subclass, so a program is a single list of them in an InstructionBuffer.
+ * @author Rakesh Nori
+ * @version 7/5/2018
+ */
+public class Instruction
+{
+	private static final Operand[] NONE = new Operand[0];
+
+	private final String op;
+	private final Operand[] operands;
+	private final String comment;
+
+	/**
+	 * Creates an Instruction.
+	 * @param name the instruction or directive, such as "addu" or ".word".
+	 * @param args the operands, in the order they are written.
+	 */
+	public Instruction(String name, Operand... args)
+	{
+		this(name, null, args);
+	}
+
+	/**
+	 * Creates an Instruction with a comment.
+	 * @param name the instruction or directive, or null for a comment on its own.
+	 * @param note the comment, or null if there is none.
+	 * @param args the operands, in the order they are written.
+	 */
+	public Instruction(String name, String note, Operand... args)
+	{
+		op = name;
+		comment = note;
+		operands = args.length == 0 ? NONE : args;
+	}
+
+	/**
+	 * Makes a comment on a line of its own.
+	 * @param text the comment, without the '#'.
+	 * @return the Instruction.
+	 */
+	public static Instruction comment(String text)
+	{
+		return new Instruction(null, text);
+	}
+
+	/**
+	 * Gets the name of the instruction or directive.
+	 * @return the name, such as "lw", or null for a comment or a Label.
+	 */
+	public String getOp()
+	{
+		return op;
+	}
+
+	/**
+	 * Checks if the Instruction is a given instruction.
+	 * @param name the name of the instruction.
+	 * @return true if the Instruction has that name; otherwise, false.
+	 */
+	public boolean is(String name)
+	{
+		return name.equals(op);
+	}
+
+	/**
+	 * Gets the number of operands.
+	 * @return the number of operands.
+	 */
+	public int getOperandCount()
+	{
+		return operands.length;
+	}
+
+	/**
+	 * Gets an operand.
+	 * @param i the position of the operand, from 0.
+	 * @return the Operand.
+	 */
+	public Operand getOperand(int i)
+	{
+		return operands[i];
+	}
+
+	/**
+	 * Makes a copy of the Instruction with one operand replaced.
+	 * @param i the position of the operand, from 0.
+	 * @param arg the new operand.
+	 * @return the new Instruction, without the comment.
+	 */
+	public Instruction withOperand(int i, Operand arg)
+	{
+		Operand[] args = operands.clone();
+		args[i] = arg;
+		return new Instruction(op, args);
+	}
+
+	/**
+	 * Gets the comment written after the Instruction, or the text of a comment line.
+	 * @return the comment, or null if there is none.
+	 */
+	public String getComment()
+	{
+		return comment;
+	}
+
+	/**
+	 * Checks if the Instruction is a Label.
+	 * @return true if it is; otherwise, false.
+	 */
+	public boolean isLabel()
+	{
+		return false;
+	}
+
+	/**
+	 * Checks if the Instruction is a comment on a line of its own.
+	 * @return true if it is; otherwise, false.
+	 */
+	public boolean isComment()
+	{
+		return op == null && !isLabel();
+	}
+
+	/**
+	 * Checks if the Instruction is a directive, such as .data or .word.
+	 * @return true if it is; otherwise, false.
+	 */
+	public boolean isDirective()
+	{
+		return op != null && op.startsWith(".");
+	}
+
+	/**
+	 * Checks if the Instruction is one the processor runs, as opposed to a Label,
+	 * a comment or a directive.
+	 * @return true if it is; otherwise, false.
+	 */
+	public boolean isExecutable()
+	{
+		return op != null && !op.startsWith(".");
+	}
+
+	/**
+	 * Adds the Instruction's MIPS text, without indentation, to a StringBuilder.
+	 * @param sb the StringBuilder.
+	 */
+	public void appendTo(StringBuilder sb)
+	{
+		if (op == null)
+		{
+			sb.append('#').append(comment);
+			return;
+		}
+		sb.append(op);
+		for (int i = 0; i < operands.length; i++)
+		{
+			sb.append(i == 0 ? " " : ", ");
+			operands[i].appendTo(sb);
+		}
+		if (comment != null)
+			sb.append("  #").append(comment);
+	}
+
+	/**
+	 * Gets the Instruction's MIPS text.
+	 * @return the text, without indentation.
+	 */
+	public String toString()
+	{
+		StringBuilder sb = new StringBuilder();
+		appendTo(sb);
+		return sb.toString();
+	}
+}
@@ -0,0 +1,83 @@
+package emitter;
+
+import java.util.Arrays;
+
+/**
+ * The InstructionBuffer holds the Instructions of a program in the order they are
+ * emitted. Instructions can only be added at the end, so the buffer is an array that
+ * doubles when it is full, and a pass that rewrites the code, such as the Peephole
+ * optimizer, reads one buffer and fills a new one.
+ * @author Rakesh Nori
+ * @version 7/5/2018
+ */
+public class InstructionBuffer
+{
+	private Instruction[] code;
+	private int size;
+
+	/**
+	 * Creates an empty InstructionBuffer.
+	 */
+	public InstructionBuffer()
+	{
+		this(256);
+	}
+
+	/**
+	 * Creates an empty InstructionBuffer.
+	 * @param capacity how many Instructions it holds before it grows.
+	 */
+	public InstructionBuffer(int capacity)
+	{
+		code = new Instruction[Math.max(capacity, 1)];
+	}
+
+	/**
+	 * Adds an Instruction at the end.
+	 * @param ins the Instruction.
+	 */
+	public void add(Instruction ins)
+	{
+		if (size == code.length)
+			code = Arrays.copyOf(code, size * 2);
+		code[size++] = ins;
+	}
+
+	/**
+	 * Gets an Instruction.
+	 * @param i the position of the Instruction, from 0.
+	 * @return the Instruction.
+	 * @throws IndexOutOfBoundsException if there is no Instruction at i.
+	 */
+	public Instruction get(int i)
+	{
+		if (i >= size)
+			throw new IndexOutOfBoundsException("No instruction at " + i + ".");
+		return code[i];
+	}
+
+	/**
+	 * Gets the number of Instructions, counting Labels, comments and directives.
+	 * @return the number of Instructions.
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Counts the Instructions the processor runs, leaving out Labels, comments
+	 * and directives.
+	 * @return the number of executable Instructions.
+	 */
+	public int countExecutable()
+	{
+		int count = 0;
+		for (int i = 0; i < size; i++)
+		{
+			if (code[i].isExecutable())
+				count++;
+		}
+		return count;
+	}
+}
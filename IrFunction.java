@@ -0,0 +1,151 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An IrFunction is the IR of a procedure or of the main statement: its BasicBlocks in
+ * the order they are laid out, the first of which is the entry, and how many virtual
+ * registers they use. In a procedure, the registers start with the procedure's Frame
+ * in slot order, so v0 holds the value assigned to the procedure's name, which is what
+ * the procedure returns, v1 up to the number of arguments hold the arguments as they
+ * were passed, and the local variables come after them. Every other register is a
+ * temporary. The main statement has no Frame of its own, since its variables are the
+ * globals.
+ * @author Rakesh Nori
+ * @version 7/6/2018
+ */
+public class IrFunction
+{
+	private final String name;
+	private final int params;
+	private final int frame;
+	private int registers;
+	private int blockCount;
+	private final List<BasicBlock> blocks = new ArrayList<BasicBlock>();
+
+	/**
+	 * Creates an IrFunction with no blocks.
+	 * @param n the name of the procedure, or null for the main statement.
+	 * @param args the number of arguments.
+	 * @param frameSize the number of registers holding the Frame: 0 for the main
+	 * 		  statement, and 1 + the arguments + the local variables for a procedure.
+	 */
+	public IrFunction(String n, int args, int frameSize)
+	{
+		name = n;
+		params = args;
+		frame = frameSize;
+		registers = frameSize;
+	}
+
+	/**
+	 * Gets the name of the procedure.
+	 * @return the name, or null for the main statement.
+	 */
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * Checks if the function is the main statement.
+	 * @return true if it is; false for a procedure.
+	 */
+	public boolean isMain()
+	{
+		return name == null;
+	}
+
+	/**
+	 * Gets the number of arguments, which are in v1 up to this number.
+	 * @return the number of arguments.
+	 */
+	public int getParamCount()
+	{
+		return params;
+	}
+
+	/**
+	 * Gets the number of registers that hold the Frame.
+	 * @return the number of registers, which come before every temporary.
+	 */
+	public int getFrameSize()
+	{
+		return frame;
+	}
+
+	/**
+	 * Gets the number of virtual registers the function uses.
+	 * @return the number of registers, which are v0 up to one less than this.
+	 */
+	public int getRegisterCount()
+	{
+		return registers;
+	}
+
+	/**
+	 * Gets a new temporary register.
+	 * @return the number of the register.
+	 */
+	public int newRegister()
+	{
+		return registers++;
+	}
+
+	/**
+	 * Makes a new BasicBlock, which is not laid out until place is called.
+	 * @return the block.
+	 */
+	public BasicBlock newBlock()
+	{
+		return new BasicBlock(blockCount++);
+	}
+
+	/**
+	 * Lays out a block after every block placed before it.
+	 * @param b the block.
+	 */
+	public void place(BasicBlock b)
+	{
+		blocks.add(b);
+	}
+
+	/**
+	 * Gets the blocks in the order they are laid out.
+	 * @return the blocks, the first of which is the entry, which cannot be changed
+	 * 		   through this list.
+	 */
+	public List<BasicBlock> getBlocks()
+	{
+		return Collections.unmodifiableList(blocks);
+	}
+
+	/**
+	 * Gets the function as part of the IR dump: a header, then every block with its
+	 * name on a line of its own and its Quads indented under it.
+	 * @return the text.
+	 */
+	public String toString()
+	{
+		StringBuilder sb = new StringBuilder();
+		if (isMain())
+			sb.append("main");
+		else
+		{
+			sb.append("procedure ").append(name).append('(');
+			for (int i = 1; i <= params; i++)
+				sb.append(i == 1 ? "v" : ", v").append(i);
+			sb.append(')');
+		}
+		sb.append(" registers=").append(registers).append('\n');
+		for (BasicBlock b : blocks)
+		{
+			sb.append(b.getName()).append(":\n");
+			for (Quad q : b.getQuads())
+				sb.append('\t').append(q).append('\n');
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,75 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An IrProgram is the three-address IR of a whole Program: the names of its global
+ * variables, in slot order, and an IrFunction for the main statement and for every
+ * procedure, with the main statement first. Lowering makes one from a Program, and
+ * MipsSelector turns one into MIPS, so passes that work on the IR can run between
+ * the two.
+ * @author Rakesh Nori
+ * @version 7/6/2018
+ * Usage:
+ * IrProgram ir = new Lowering().lower(prog);
+ * System.out.print(ir);
+ */
+public class IrProgram
+{
+	private final List<String> globals;
+	private final List<IrFunction> functions = new ArrayList<IrFunction>();
+
+	/**
+	 * Creates an IrProgram with no functions.
+	 * @param names the names of the global variables, in slot order.
+	 */
+	public IrProgram(List<String> names)
+	{
+		globals = new ArrayList<String>(names);
+	}
+
+	/**
+	 * Gets the names of the global variables.
+	 * @return the names, in slot order, which cannot be changed through this list.
+	 */
+	public List<String> getGlobals()
+	{
+		return Collections.unmodifiableList(globals);
+	}
+
+	/**
+	 * Adds a function to the program.
+	 * @param f the IrFunction.
+	 */
+	public void add(IrFunction f)
+	{
+		functions.add(f);
+	}
+
+	/**
+	 * Gets the functions of the program.
+	 * @return the functions, the main statement first, which cannot be changed
+	 * 		   through this list.
+	 */
+	public List<IrFunction> getFunctions()
+	{
+		return Collections.unmodifiableList(functions);
+	}
+
+	/**
+	 * Gets the program as the IR dump: the globals, then every function.
+	 * @return the text.
+	 */
+	public String toString()
+	{
+		StringBuilder sb = new StringBuilder("globals");
+		for (String g : globals)
+			sb.append(' ').append(g);
+		sb.append('\n');
+		for (IrFunction f : functions)
+			sb.append('\n').append(f);
+		return sb.toString();
+	}
+}
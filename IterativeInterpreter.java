@@ -0,0 +1,311 @@
+package ast;
+
+import java.util.Arrays;
+
+import environment.Environment;
+
+/**
+ * The IterativeInterpreter executes an AST with the same results as exec and eval,
+ * but without recursing on the Java stack. Every node that still has work to do is
+ * kept on a task stack together with the step it is on and the Environment it runs in,
+ * and the values of expressions are kept on an int stack. Deeply nested expressions,
+ * blocks and procedure calls are therefore limited by the heap instead of the thread's
+ * stack size. Nodes it does not know are handed to their own exec or eval.
+ * @author Rakesh Nori
+ * @version 6/22/2018
+ * Usage:
+ * new IterativeInterpreter().exec(program, new Environment(null));
+ */
+public class IterativeInterpreter
+{
+	private Object[] nodes = new Object[64];
+	private int[] steps = new int[64];
+	private Environment[] envs = new Environment[64];
+	private int tasks;
+	private int[] values = new int[64];
+	private int top;
+
+	/**
+	 * Pushes a task.
+	 * @param node the node to work on.
+	 * @param step the step of the node to do next, 0 to start it.
+	 * @param env the Environment the node runs in.
+	 */
+	private void push(Object node, int step, Environment env)
+	{
+		if (tasks == nodes.length)
+		{
+			nodes = Arrays.copyOf(nodes, tasks * 2);
+			steps = Arrays.copyOf(steps, tasks * 2);
+			envs = Arrays.copyOf(envs, tasks * 2);
+		}
+		nodes[tasks] = node;
+		steps[tasks] = step;
+		envs[tasks] = env;
+		tasks++;
+	}
+
+	/**
+	 * Pushes a value onto the value stack.
+	 * @param v the value.
+	 */
+	private void pushValue(int v)
+	{
+		if (top == values.length)
+			values = Arrays.copyOf(values, top * 2);
+		values[top++] = v;
+	}
+
+	/**
+	 * Executes a Statement.
+	 * @param s the Statement to execute.
+	 * @param env the Environment it is executed in.
+	 */
+	public void exec(Statement s, Environment env)
+	{
+		int base = tasks;
+		push(s, 0, env);
+		run(base);
+	}
+
+	/**
+	 * Evaluates an Expression.
+	 * @param e the Expression to evaluate.
+	 * @param env the Environment it is evaluated in.
+	 * @return the value of the Expression.
+	 */
+	public int eval(Expression e, Environment env)
+	{
+		int base = tasks;
+		push(e, 0, env);
+		run(base);
+		return values[--top];
+	}
+
+	/**
+	 * Runs tasks until the task stack is back to the given height.
+	 * @param base the height of the task stack when the work started.
+	 */
+	private void run(int base)
+	{
+		while (tasks > base)
+		{
+			tasks--;
+			Object node = nodes[tasks];
+			int step = steps[tasks];
+			Environment env = envs[tasks];
+			nodes[tasks] = null;
+			envs[tasks] = null;
+			if (node instanceof Expression)
+				evalStep((Expression)node, step, env);
+			else
+				execStep((Statement)node, step, env);
+		}
+	}
+
+	/**
+	 * Does one step of evaluating an Expression.
+	 * @param node the Expression.
+	 * @param step the step to do.
+	 * @param env the Environment it is evaluated in.
+	 */
+	private void evalStep(Expression node, int step, Environment env)
+	{
+		if (node instanceof Number)
+			pushValue(((Number)node).getValue());
+		else if (node instanceof Variable)
+			pushValue(env.getVariable(((Variable)node).getName()));
+		else if (node instanceof BinOp)
+		{
+			BinOp b = (BinOp)node;
+			if (step == 0)
+			{
+				push(b, 1, env);
+				push(b.getRight(), 0, env);
+				push(b.getLeft(), 0, env);
+			}
+			else
+			{
+				int right = values[--top];
+				int left = values[--top];
+				pushValue(b.apply(left, right));
+			}
+		}
+		else if (node instanceof Condition)
+		{
+			Condition c = (Condition)node;
+			if (step == 0)
+			{
+				push(c, 1, env);
+				push(c.getRight(), 0, env);
+				push(c.getLeft(), 0, env);
+			}
+			else
+			{
+				int right = values[--top];
+				int left = values[--top];
+				pushValue(c.compare(left, right));
+			}
+		}
+		else if (node instanceof Negate)
+		{
+			if (step == 0)
+			{
+				push(node, 1, env);
+				push(((Negate)node).getExpression(), 0, env);
+			}
+			else
+				values[top - 1] = -values[top - 1];
+		}
+		else if (node instanceof ProcedureCall)
+			callStep((ProcedureCall)node, step, env);
+		else
+			pushValue(node.eval(env));
+	}
+
+	/**
+	 * Does one step of a procedure call: evaluating the arguments, entering the
+	 * procedure and queueing its body, then leaving it and pushing its value.
+	 * @param call the ProcedureCall.
+	 * @param step the step to do.
+	 * @param env the Environment of the caller, or the child environment when leaving.
+	 */
+	private void callStep(ProcedureCall call, int step, Environment env)
+	{
+		if (step == 0)
+		{
+			push(call, 1, env);
+			if (call.getArgs() != null)
+			{
+				for (int i = call.getArgs().size() - 1; i >= 0; i--)
+					push(call.getArgs().get(i), 0, env);
+			}
+		}
+		else if (step == 1)
+		{
+			int[] args = null;
+			if (call.getArgs() != null)
+			{
+				args = new int[call.getArgs().size()];
+				top -= args.length;
+				System.arraycopy(values, top, args, 0, args.length);
+			}
+			Environment child = call.enter(env, args);
+			ProcedureDeclaration decl = child.proGet(call.getName());
+			push(call, 2, child);
+			push(decl.getBody(), 0, decl.getLocalEnvironment());
+		}
+		else
+			pushValue(call.leave(env));
+	}
+
+	/**
+	 * Does one step of executing a Statement.
+	 * @param node the Statement.
+	 * @param step the step to do.
+	 * @param env the Environment it is executed in.
+	 */
+	private void execStep(Statement node, int step, Environment env)
+	{
+		if (node instanceof Block)
+		{
+			java.util.List<Statement> list = ((Block)node).getStatements();
+			for (int i = list.size() - 1; i >= 0; i--)
+				push(list.get(i), 0, env);
+		}
+		else if (node instanceof Assignment)
+		{
+			Assignment a = (Assignment)node;
+			if (step == 0)
+			{
+				push(a, 1, env);
+				push(a.getExpression(), 0, env);
+			}
+			else
+				env.setVariable(a.getName(), values[--top]);
+		}
+		else if (node instanceof Writeln)
+		{
+			if (step == 0)
+			{
+				push(node, 1, env);
+				push(((Writeln)node).getExpression(), 0, env);
+			}
+			else
+				System.out.println(values[--top]);
+		}
+		else if (node instanceof If)
+		{
+			If f = (If)node;
+			if (step == 0)
+			{
+				push(f, 1, env);
+				push(f.getCondition(), 0, env);
+			}
+			else if (values[--top] == 1)
+				push(f.getThen(), 0, env);
+			else if (f.getElse() != null)
+				push(f.getElse(), 0, env);
+		}
+		else if (node instanceof While)
+		{
+			While w = (While)node;
+			if (step == 0)
+			{
+				push(w, 1, env);
+				push(w.getCondition(), 0, env);
+			}
+			else if (values[--top] == 1)
+			{
+				push(w, 0, env);
+				push(w.getBody(), 0, env);
+			}
+		}
+		else if (node instanceof For)
+			forStep((For)node, step, env);
+		else if (node instanceof Program)
+		{
+			Program p = (Program)node;
+			for (ProcedureDeclaration d : p.getProcedures())
+				d.exec(env);
+			if (p.getStatement() != null)
+				push(p.getStatement(), 0, env);
+		}
+		else
+			node.exec(env);
+	}
+
+	/**
+	 * Does one step of a FOR loop: assigning the start value, checking the loop
+	 * variable against the limit, running the body and incrementing the variable.
+	 * @param f the For loop.
+	 * @param step the step to do.
+	 * @param env the Environment it is executed in.
+	 */
+	private void forStep(For f, int step, Environment env)
+	{
+		if (step == 0)
+		{
+			push(f, 1, env);
+			push(f.getStart(), 0, env);
+		}
+		else if (step == 1)
+		{
+			push(f, 2, env);
+			push(f.getLimit(), 0, env);
+		}
+		else if (step == 2)
+		{
+			if (env.getVariable(f.getName()) < values[--top])
+			{
+				push(f, 3, env);
+				push(f.getBody(), 0, env);
+			}
+		}
+		else
+		{
+			env.setVariable(f.getName(), env.getVariable(f.getName()) + 1);
+			push(f, 1, env);
+		}
+	}
+}
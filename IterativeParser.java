@@ -0,0 +1,346 @@
+package parser;
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import ast.Assignment;
+import ast.BinOp;
+import ast.Block;
+import ast.Condition;
+import ast.Expression;
+import ast.For;
+import ast.If;
+import ast.Negate;
+import ast.Number;
+import ast.ProcedureCall;
+import ast.Readln;
+import ast.Statement;
+import ast.Variable;
+import ast.While;
+import ast.Writeln;
+import scanner.ScanErrorException;
+import scanner.TokenKind;
+import scanner.TokenStream;
+
+/**
+ * The IterativeParser parses the same language into the same AST as Parser, but it
+ * never recurses. Expressions are parsed with an operator stack and an operand stack,
+ * and statements that hold other statements (BEGIN, IF, WHILE and FOR) are kept on a
+ * stack of unfinished statements until their inner statement is done. Programs can
+ * therefore nest parentheses and blocks as deeply as the heap allows, instead of as
+ * deeply as the thread's stack allows.
+ * @author Rakesh Nori
+ * @version 6/22/2018
+ */
+public class IterativeParser extends Parser
+{
+	private static final int PAREN = -1;
+	private static final int NEGATE = -2;
+	private static final int CALL = -3;
+
+	/**
+	 * An unfinished statement that is waiting for the statement inside it.
+	 */
+	private static class Pending
+	{
+		TokenKind kind;
+		Condition condition;
+		Statement then;
+		boolean inElse;
+		ArrayList<Statement> statements;
+		String name;
+		Expression start;
+		Expression limit;
+
+		/**
+		 * Creates a Pending statement.
+		 * @param k the kind of statement, BEGIN, IF, WHILE or FOR.
+		 */
+		Pending(TokenKind k)
+		{
+			kind = k;
+		}
+	}
+
+	/**
+	 * Creates an IterativeParser and reads the first token.
+	 * @param s the token stream being passed through into the constructor.
+	 * @throws IOException if the BufferedReader in the scanner runs into an error.
+	 * @throws ScanErrorException if a scanning error occurs.
+	 */
+	public IterativeParser(TokenStream s) throws IOException, ScanErrorException
+	{
+		super(s);
+	}
+
+	/**
+	 * Takes the top operator off the operator stack and combines the operands it needs.
+	 * @param ops the operator stack.
+	 * @param operands the operand stack.
+	 */
+	private static void reduce(List<Integer> ops, List<Expression> operands)
+	{
+		int op = ops.remove(ops.size() - 1);
+		Expression right = operands.remove(operands.size() - 1);
+		if (op == NEGATE)
+		{
+			if (right instanceof Number)
+				operands.add(new Number(-((Number)right).getValue()));
+			else
+				operands.add(new Negate(right));
+		}
+		else
+		{
+			Expression left = operands.remove(operands.size() - 1);
+			operands.add(BinOp.create(TokenKind.of(op).getText(), left, right));
+		}
+	}
+
+	/**
+	 * Reduces operators until a parenthesis or procedure call marker is on top.
+	 * @param ops the operator stack.
+	 * @param operands the operand stack.
+	 */
+	private static void reduceToMarker(List<Integer> ops, List<Expression> operands)
+	{
+		while (!ops.isEmpty() && ops.get(ops.size() - 1) != PAREN
+			   && ops.get(ops.size() - 1) != CALL)
+			reduce(ops, operands);
+	}
+
+	/**
+	 * parses an Expression without recursion. Binary operators wait on the operator
+	 * stack until an operator that binds less tightly comes along, a unary minus binds
+	 * tighter than any binary operator, and a parenthesis or a procedure call leaves a
+	 * marker on the stack that its closing ) reduces back to.
+	 * @return the Expression that was parsed.
+	 * @throws IOException if the BufferedReader in the scanner runs into an error.
+	 * @throws ScanErrorException if a scanning error occurs.
+	 */
+	public Expression parseExp() throws ScanErrorException, IOException
+	{
+		List<Integer> ops = new ArrayList<Integer>();
+		List<Expression> operands = new ArrayList<Expression>();
+		List<String> callNames = new ArrayList<String>();
+		List<Integer> callBases = new ArrayList<Integer>();
+		boolean expectOperand = true;
+		while (true)
+		{
+			if (expectOperand)
+			{
+				switch (getCurrentToken())
+				{
+					case MINUS:
+						eat(TokenKind.MINUS);
+						ops.add(NEGATE);
+						break;
+					case LPAREN:
+						eat(TokenKind.LPAREN);
+						ops.add(PAREN);
+						break;
+					case RPAREN:
+						throw new IllegalArgumentException("Empty incorrect ) in the text.");
+					case IDENTIFIER:
+						String name = eatIdentifier();
+						if (getCurrentToken() != TokenKind.LPAREN)
+						{
+							operands.add(new Variable(name));
+							expectOperand = false;
+						}
+						else
+						{
+							eat(TokenKind.LPAREN);
+							if (getCurrentToken() == TokenKind.RPAREN)
+							{
+								eat(TokenKind.RPAREN);
+								operands.add(new ProcedureCall(name, null));
+								expectOperand = false;
+							}
+							else
+							{
+								ops.add(CALL);
+								callNames.add(name);
+								callBases.add(operands.size());
+							}
+						}
+						break;
+					default:
+						int num = getTokenStream().getValue();
+						eat(TokenKind.NUMBER);
+						operands.add(new Number(num));
+						expectOperand = false;
+				}
+				continue;
+			}
+			int prec = precedence(getCurrentToken());
+			if (prec > 0)
+			{
+				while (!ops.isEmpty())
+				{
+					int top = ops.get(ops.size() - 1);
+					if (top != NEGATE && (top < 0 || precedence(TokenKind.of(top)) < prec))
+						break;
+					reduce(ops, operands);
+				}
+				ops.add(getCurrentToken().ordinal());
+				eat(getCurrentToken());
+				expectOperand = true;
+				continue;
+			}
+			reduceToMarker(ops, operands);
+			if (ops.isEmpty())
+				return operands.get(0);
+			if (ops.get(ops.size() - 1) == PAREN)
+			{
+				eat(TokenKind.RPAREN);
+				ops.remove(ops.size() - 1);
+			}
+			else if (getCurrentToken() == TokenKind.COMMA)
+			{
+				eat(TokenKind.COMMA);
+				expectOperand = true;
+			}
+			else if (getCurrentToken() == TokenKind.RPAREN)
+			{
+				eat(TokenKind.RPAREN);
+				ops.remove(ops.size() - 1);
+				int base = callBases.remove(callBases.size() - 1);
+				List<Expression> args = new ArrayList<Expression>(
+						operands.subList(base, operands.size()));
+				operands.subList(base, operands.size()).clear();
+				operands.add(new ProcedureCall(callNames.remove(callNames.size() - 1), args));
+			}
+			else
+				expectOperand = true;
+		}
+	}
+
+	/**
+	 * Parses all the Statements without recursion. A statement that holds other
+	 * statements is pushed as Pending, and every finished statement is handed to the
+	 * Pending statement on top of the stack until the stack is empty.
+	 * @throws IOException if the BufferedReader in the scanner runs into an error.
+	 * @throws ScanErrorException if a scanning error occurs.
+	 * @return A single Statement or a Block, or null if there is no statement.
+	 */
+	public Statement parseStatement() throws ScanErrorException, IOException
+	{
+		List<Pending> stack = new ArrayList<Pending>();
+		while (true)
+		{
+			Statement done = null;
+			switch (getCurrentToken())
+			{
+				case WRITELN:
+				{
+					eat(TokenKind.WRITELN);
+					eat(TokenKind.LPAREN);
+					Expression n = parseExp();
+					eat(TokenKind.RPAREN);
+					eat(TokenKind.SEMICOLON);
+					done = new Writeln(n);
+					break;
+				}
+				case READLN:
+				{
+					eat(TokenKind.READLN);
+					eat(TokenKind.LPAREN);
+					done = new Readln(eatIdentifier());
+					eat(TokenKind.RPAREN);
+					eat(TokenKind.SEMICOLON);
+					break;
+				}
+				case IDENTIFIER:
+				{
+					String x = eatIdentifier();
+					eat(TokenKind.ASSIGN);
+					Expression val = parseExp();
+					eat(TokenKind.SEMICOLON);
+					done = new Assignment(val, x);
+					break;
+				}
+				case IF:
+				case WHILE:
+				{
+					Pending p = new Pending(getCurrentToken());
+					eat(getCurrentToken());
+					p.condition = parseCondition();
+					eat(p.kind == TokenKind.IF ? TokenKind.THEN : TokenKind.DO);
+					stack.add(p);
+					continue;
+				}
+				case FOR:
+				{
+					Pending p = new Pending(TokenKind.FOR);
+					eat(TokenKind.FOR);
+					p.name = eatIdentifier();
+					eat(TokenKind.ASSIGN);
+					p.start = parseExp();
+					eat(TokenKind.TO);
+					p.limit = parseExp();
+					eat(TokenKind.DO);
+					stack.add(p);
+					continue;
+				}
+				case BEGIN:
+				{
+					eat(TokenKind.BEGIN);
+					Pending p = new Pending(TokenKind.BEGIN);
+					p.statements = new ArrayList<Statement>();
+					if (getCurrentToken() != TokenKind.END)
+					{
+						stack.add(p);
+						continue;
+					}
+					eat(TokenKind.END);
+					eat(TokenKind.SEMICOLON);
+					done = new Block(new ArrayList<Statement>());
+					break;
+				}
+				default:
+					if (stack.isEmpty())
+						return null;
+					throw new IllegalArgumentException("Expected a statement, but had "
+														+ describeCurrent() + " instead.");
+			}
+			while (true)
+			{
+				if (stack.isEmpty())
+					return done;
+				Pending top = stack.get(stack.size() - 1);
+				if (top.kind == TokenKind.BEGIN)
+				{
+					top.statements.add(done);
+					if (getCurrentToken() != TokenKind.END)
+						break;
+					eat(TokenKind.END);
+					eat(TokenKind.SEMICOLON);
+					done = new Block(top.statements);
+				}
+				else if (top.kind == TokenKind.IF)
+				{
+					if (!top.inElse && getCurrentToken() == TokenKind.ELSE)
+					{
+						eat(TokenKind.ELSE);
+						top.then = done;
+						top.inElse = true;
+						break;
+					}
+					if (top.inElse)
+						done = new If(top.condition, top.then, done);
+					else
+						done = new If(top.condition, done, null);
+				}
+				else if (top.kind == TokenKind.WHILE)
+					done = new While(top.condition, done);
+				else
+				{
+					Assignment a = new Assignment(top.start, top.name);
+					Condition c = Condition.create(top.start, "<", top.limit);
+					done = new For(c, done, a, top.name, top.limit);
+				}
+				stack.remove(stack.size() - 1);
+			}
+		}
+	}
+}
@@ -0,0 +1,579 @@
+package vm;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+import java.util.Scanner;
+
+import ast.AddConstantNode;
+import ast.Assignment;
+import ast.BinOp;
+import ast.Block;
+import ast.Condition;
+import ast.Expression;
+import ast.For;
+import ast.If;
+import ast.Negate;
+import ast.Number;
+import ast.ProcedureCall;
+import ast.ProcedureDeclaration;
+import ast.Program;
+import ast.Readln;
+import ast.Statement;
+import ast.SubtractConstantNode;
+import ast.Variable;
+import ast.While;
+import ast.Writeln;
+
+/**
+ * The JvmCompiler turns a resolved Program into a JVM class, so the program runs as
+ * code the JIT compiles instead of being interpreted. Every global variable becomes a
+ * static int field, every procedure becomes a static method that takes its arguments
+ * as ints and returns the value assigned to its name, and the main statement becomes
+ * the static method run. Inside a procedure, the arguments, the return value and the
+ * local variables are JVM local variables. A program without procedures keeps its
+ * globals in JVM local variables of run as well, since no other code can see them,
+ * which lets the JIT keep them in registers. The class is loaded as a hidden class
+ * through MethodHandles.Lookup.defineHiddenClass, so it can be thrown away along with
+ * its MethodHandle once it is no longer used.
+ * For tiered execution, compileTiers builds a class whose methods share their globals
+ * with the interpreter through the int array of the global Frame: every procedure
+ * method takes that array before its arguments, and every WHILE loop becomes a method
+ * that takes the array and the slots of the Frame it runs in, works on copies of
+ * the slots in JVM local variables and writes them back once the loop ends.
+ * @author Rakesh Nori
+ * @version 6/27/2018
+ * Usage:
+ * prog.resolve(new Resolver());
+ * JvmCompiler.run(prog);
+ */
+public class JvmCompiler
+{
+	private static final String NAME = "vm/CompiledProgram";
+	private static final int FIELDS = 0;
+	private static final int LOCALS = 1;
+	private static final int ARRAY = 2;
+	private static Scanner in;
+
+	private ClassFileWriter writer;
+	private CodeBuffer code;
+	private ProcedureDeclaration current;
+	private int globals = FIELDS;
+	private int globalBase;
+	private int frameBase = -1;
+	private int paramBase;
+	private int temp;
+
+	/**
+	 * Compiles and runs a resolved Program.
+	 * @param prog the Program, after prog.resolve has been called.
+	 */
+	public static void run(Program prog)
+	{
+		MethodHandle main = new JvmCompiler().compile(prog);
+		try
+		{
+			main.invokeExact();
+		}
+		catch (RuntimeException | Error e)
+		{
+			throw e;
+		}
+		catch (Throwable t)
+		{
+			throw new IllegalStateException(t);
+		}
+	}
+
+	/**
+	 * Reads one int for READLN, the same way Readln.exec does.
+	 * The compiled code calls this method.
+	 * @return the int that was read.
+	 */
+	public static int read()
+	{
+		System.out.println("Input int val for the variable");
+		if (in == null)
+			in = new Scanner(System.in);
+		return in.nextInt();
+	}
+
+	/**
+	 * Compiles a resolved Program and loads it as a hidden class.
+	 * @param prog the Program, after prog.resolve has been called.
+	 * @return the static method run of the class, which takes and returns nothing.
+	 */
+	public MethodHandle compile(Program prog)
+	{
+		MethodHandles.Lookup lookup = define(toClassFile(prog));
+		try
+		{
+			return lookup.findStatic(lookup.lookupClass(), "run",
+									 MethodType.methodType(void.class));
+		}
+		catch (IllegalAccessException | NoSuchMethodException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Compiles every procedure of a resolved Program, and the given WHILE loops, for
+	 * tiered execution and loads them as a hidden class. Procedure p becomes the
+	 * static method "proc" + p.getName(), which takes the global slots and then its
+	 * arguments and returns an int. Loop i becomes the static method "loop" + i, which
+	 * takes the global slots and the slots of the Frame the loop runs in.
+	 * @param prog the Program, after prog.resolve has been called.
+	 * @param loops the WHILE loops to compile.
+	 * @param owners the procedure each loop is in, or null for the main statement.
+	 * @return a Lookup on the hidden class, for finding its methods.
+	 */
+	public MethodHandles.Lookup compileTiers(Program prog, List<While> loops,
+											 List<ProcedureDeclaration> owners)
+	{
+		writer = new ClassFileWriter(NAME);
+		paramBase = 1;
+		globals = ARRAY;
+		for (ProcedureDeclaration p : prog.getProcedures())
+			procedure(p);
+		if (prog.getProcedures().isEmpty())
+			globals = LOCALS;
+		for (int i = 0; i < loops.size(); i++)
+			loop(loops.get(i), owners.get(i), "loop" + i, prog.getFrameSize());
+		paramBase = 0;
+		globals = FIELDS;
+		return define(writer.toByteArray());
+	}
+
+	/**
+	 * Loads the bytes of a class file as a hidden class.
+	 * @param bytes the class file.
+	 * @return a Lookup on the hidden class.
+	 */
+	private static MethodHandles.Lookup define(byte[] bytes)
+	{
+		try
+		{
+			return MethodHandles.lookup().defineHiddenClass(bytes, true);
+		}
+		catch (IllegalAccessException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Translates a resolved Program into the bytes of a class file.
+	 * @param prog the Program, after prog.resolve has been called.
+	 * @return the bytes of the class file.
+	 */
+	public byte[] toClassFile(Program prog)
+	{
+		writer = new ClassFileWriter(NAME);
+		for (int i = 0; i < prog.getFrameSize(); i++)
+			writer.addField(ClassFileWriter.PRIVATE_STATIC, "g" + i, "I");
+		current = null;
+		globals = prog.getProcedures().isEmpty() ? LOCALS : FIELDS;
+		globalBase = 0;
+		code = new CodeBuffer(writer);
+		int locals = 0;
+		if (globals == LOCALS)
+		{
+			locals = prog.getFrameSize();
+			for (int slot = 0; slot < locals; slot++)
+			{
+				code.pushInt(0);
+				code.store(slot);
+			}
+		}
+		if (prog.getStatement() != null)
+			statement(prog.getStatement());
+		code.emit(CodeBuffer.RETURN, 0);
+		writer.addMethod(ClassFileWriter.PUBLIC_STATIC, "run", "()V", code, locals);
+		globals = FIELDS;
+		for (ProcedureDeclaration p : prog.getProcedures())
+			procedure(p);
+		return writer.toByteArray();
+	}
+
+	/**
+	 * Gets the type descriptor of a procedure's method.
+	 * @param args how many arguments the procedure takes.
+	 * @return the descriptor, such as (II)I, or ([III)I when the methods take the
+	 * 		   global slots first.
+	 */
+	private String descriptor(int args)
+	{
+		StringBuilder sb = new StringBuilder(paramBase > 0 ? "([I" : "(");
+		for (int i = 0; i < args; i++)
+			sb.append('I');
+		return sb.append(")I").toString();
+	}
+
+	/**
+	 * Compiles a procedure into a static method. The return value and the local
+	 * variables are set to 0 first, since the JVM does not do it.
+	 * @param p the ProcedureDeclaration.
+	 */
+	private void procedure(ProcedureDeclaration p)
+	{
+		current = p;
+		code = new CodeBuffer(writer);
+		int args = p.getArgs().size();
+		temp = paramBase + p.getFrameSize();
+		code.pushInt(0);
+		code.store(local(0, 0));
+		for (int slot = args + 1; slot < p.getFrameSize(); slot++)
+		{
+			code.pushInt(0);
+			code.store(local(0, slot));
+		}
+		statement(p.getBody());
+		code.load(local(0, 0));
+		code.emit(CodeBuffer.IRETURN, -1);
+		writer.addMethod(ClassFileWriter.PRIVATE_STATIC, "proc" + p.getName(),
+						 descriptor(args), code, temp + 1);
+		current = null;
+	}
+
+	/**
+	 * Compiles a WHILE loop into a static method for tiered execution. The slots of
+	 * the Frame, and the globals when no procedure can see them, are copied into JVM
+	 * local variables before the loop and copied back after it.
+	 * @param w the While loop.
+	 * @param owner the procedure the loop is in, or null for the main statement.
+	 * @param name the name of the method.
+	 * @param globalCount the number of global slots.
+	 */
+	private void loop(While w, ProcedureDeclaration owner, String name, int globalCount)
+	{
+		current = owner;
+		frameBase = 2;
+		int frameSize = owner == null ? 0 : owner.getFrameSize();
+		globalBase = frameBase + frameSize;
+		temp = globals == LOCALS ? globalBase + globalCount : globalBase;
+		code = new CodeBuffer(writer);
+		copy(1, frameBase, frameSize, true);
+		if (globals == LOCALS)
+			copy(0, globalBase, globalCount, true);
+		statement(w);
+		copy(1, frameBase, frameSize, false);
+		if (globals == LOCALS)
+			copy(0, globalBase, globalCount, false);
+		code.emit(CodeBuffer.RETURN, 0);
+		writer.addMethod(ClassFileWriter.PUBLIC_STATIC, name, "([I[I)V", code, temp + 1);
+		current = null;
+		frameBase = -1;
+	}
+
+	/**
+	 * Emits copies between an int array parameter and consecutive JVM local variables.
+	 * @param array the index of the array parameter.
+	 * @param first the JVM local variable for element 0.
+	 * @param count how many elements to copy.
+	 * @param in true to copy the array into the local variables; false to copy back.
+	 */
+	private void copy(int array, int first, int count, boolean in)
+	{
+		for (int slot = 0; slot < count; slot++)
+		{
+			code.loadReference(array);
+			code.pushInt(slot);
+			if (in)
+			{
+				code.emit(CodeBuffer.IALOAD, -1);
+				code.store(first + slot);
+			}
+			else
+			{
+				code.load(first + slot);
+				code.emit(CodeBuffer.IASTORE, -3);
+			}
+		}
+	}
+
+	/**
+	 * Finds the JVM local variable for a resolved variable. In a procedure's method,
+	 * the arguments come first, as the JVM passes them, then the return value, then
+	 * the local variables. In a loop's method, the Frame's slots are copied in order.
+	 * Globals are JVM local variables only when no procedure can see them.
+	 * @param depth the depth the Resolver gave the variable.
+	 * @param slot the slot the Resolver gave the variable.
+	 * @return the index of the JVM local variable, or -1 if the variable is a static
+	 * 		   field or an element of the global slots.
+	 */
+	private int local(int depth, int slot)
+	{
+		if (current == null || depth > 0)
+			return globals == LOCALS ? globalBase + slot : -1;
+		if (frameBase >= 0)
+			return frameBase + slot;
+		int args = current.getArgs().size();
+		if (slot == 0)
+			return paramBase + args;
+		if (slot <= args)
+			return paramBase + slot - 1;
+		return paramBase + slot;
+	}
+
+	/**
+	 * Emits a read of a resolved variable.
+	 * @param depth the depth the Resolver gave the variable.
+	 * @param slot the slot the Resolver gave the variable.
+	 */
+	private void load(int depth, int slot)
+	{
+		int local = local(depth, slot);
+		if (local >= 0)
+			code.load(local);
+		else if (globals == ARRAY)
+		{
+			code.loadReference(0);
+			code.pushInt(slot);
+			code.emit(CodeBuffer.IALOAD, -1);
+		}
+		else
+			code.getStatic(writer.fieldRef(NAME, "g" + slot, "I"), 1);
+	}
+
+	/**
+	 * Emits a write of a resolved variable, taking the value from the stack.
+	 * @param depth the depth the Resolver gave the variable.
+	 * @param slot the slot the Resolver gave the variable.
+	 */
+	private void store(int depth, int slot)
+	{
+		int local = local(depth, slot);
+		if (local >= 0)
+			code.store(local);
+		else if (globals == ARRAY)
+		{
+			code.store(temp);
+			code.loadReference(0);
+			code.pushInt(slot);
+			code.load(temp);
+			code.emit(CodeBuffer.IASTORE, -3);
+		}
+		else
+			code.putStatic(writer.fieldRef(NAME, "g" + slot, "I"));
+	}
+
+	/**
+	 * Compiles a Statement.
+	 * @param s the Statement.
+	 * @throws IllegalArgumentException if the Statement is of a kind this compiler
+	 * 		   does not know.
+	 */
+	private void statement(Statement s)
+	{
+		if (s instanceof Block)
+		{
+			for (Statement inner : ((Block)s).getStatements())
+				statement(inner);
+		}
+		else if (s instanceof Assignment)
+			assignment((Assignment)s);
+		else if (s instanceof Writeln)
+		{
+			code.getStatic(writer.fieldRef("java/lang/System", "out", "Ljava/io/PrintStream;"), 1);
+			expression(((Writeln)s).getExpression());
+			code.invokeVirtual(writer.methodRef("java/io/PrintStream", "println", "(I)V"), -2);
+		}
+		else if (s instanceof Readln)
+		{
+			Readln r = (Readln)s;
+			code.invokeStatic(writer.methodRef("vm/JvmCompiler", "read", "()I"), 1);
+			store(r.getDepth(), r.getSlot());
+		}
+		else if (s instanceof If)
+		{
+			If f = (If)s;
+			int otherLabel = code.newLabel();
+			branch(f.getCondition(), otherLabel);
+			statement(f.getThen());
+			if (f.getElse() == null)
+				code.placeLabel(otherLabel);
+			else
+			{
+				int endLabel = code.newLabel();
+				code.jump(CodeBuffer.GOTO, endLabel);
+				code.placeLabel(otherLabel);
+				statement(f.getElse());
+				code.placeLabel(endLabel);
+			}
+		}
+		else if (s instanceof While)
+		{
+			While w = (While)s;
+			int loopLabel = code.newLabel();
+			int endLabel = code.newLabel();
+			code.placeLabel(loopLabel);
+			branch(w.getCondition(), endLabel);
+			statement(w.getBody());
+			code.jump(CodeBuffer.GOTO, loopLabel);
+			code.placeLabel(endLabel);
+		}
+		else if (s instanceof For)
+			forLoop((For)s);
+		else
+			throw new IllegalArgumentException("Cannot compile " + s.getClass().getSimpleName()
+											   + " to JVM bytecode.");
+	}
+
+	/**
+	 * Compiles an Assignment. Adding a constant to a local variable in place becomes
+	 * a single iinc.
+	 * @param a the Assignment.
+	 */
+	private void assignment(Assignment a)
+	{
+		Expression e = a.getExpression();
+		int local = local(a.getDepth(), a.getSlot());
+		if (local >= 0
+			&& (e instanceof AddConstantNode || e instanceof SubtractConstantNode))
+		{
+			BinOp b = (BinOp)e;
+			int amount = ((Number)b.getRight()).getValue();
+			if (b instanceof SubtractConstantNode)
+				amount = -amount;
+			if (b.getLeft() instanceof Variable
+				&& ((Variable)b.getLeft()).getDepth() == a.getDepth()
+				&& ((Variable)b.getLeft()).getSlot() == a.getSlot()
+				&& amount >= Short.MIN_VALUE && amount <= Short.MAX_VALUE)
+			{
+				code.increment(local, amount);
+				return;
+			}
+		}
+		expression(e);
+		store(a.getDepth(), a.getSlot());
+	}
+
+	/**
+	 * Compiles a FOR loop: the starting assignment, a check of the loop variable
+	 * against the limit before every iteration, the body and the increment.
+	 * @param f the For loop.
+	 */
+	private void forLoop(For f)
+	{
+		int loopLabel = code.newLabel();
+		int endLabel = code.newLabel();
+		assignment(f.getStart());
+		code.placeLabel(loopLabel);
+		load(f.getDepth(), f.getSlot());
+		expression(f.getLimit());
+		code.jump(CodeBuffer.IF_ICMPGE, endLabel);
+		statement(f.getBody());
+		int local = local(f.getDepth(), f.getSlot());
+		if (local >= 0)
+			code.increment(local, 1);
+		else
+		{
+			load(f.getDepth(), f.getSlot());
+			code.pushInt(1);
+			code.emit(CodeBuffer.IADD, -1);
+			store(f.getDepth(), f.getSlot());
+		}
+		code.jump(CodeBuffer.GOTO, loopLabel);
+		code.placeLabel(endLabel);
+	}
+
+	/**
+	 * Finds the IF_ICMP jump for a relative operator.
+	 * @param relop the relative operator.
+	 * @param negate true to get the jump taken when the relation does not hold.
+	 * @return the opcode of the jump.
+	 */
+	private static int comparison(String relop, boolean negate)
+	{
+		String[] order = {"=", "<>", "<", ">=", ">", "<="};
+		int[] jumps = {CodeBuffer.IF_ICMPEQ, CodeBuffer.IF_ICMPNE, CodeBuffer.IF_ICMPLT,
+					   CodeBuffer.IF_ICMPGE, CodeBuffer.IF_ICMPGT, CodeBuffer.IF_ICMPLE};
+		for (int i = 0; i < order.length; i++)
+		{
+			if (order[i].equals(relop))
+				return jumps[negate ? i ^ 1 : i];
+		}
+		throw new IllegalArgumentException("Unknown relative operator " + relop + ".");
+	}
+
+	/**
+	 * Compiles a Condition as a jump taken when it is false.
+	 * @param c the Condition.
+	 * @param falseLabel the label to jump to.
+	 */
+	private void branch(Condition c, int falseLabel)
+	{
+		expression(c.getLeft());
+		expression(c.getRight());
+		code.jump(comparison(c.getRelop(), true), falseLabel);
+	}
+
+	/**
+	 * Compiles an Expression, leaving its value on the operand stack.
+	 * @param e the Expression.
+	 * @throws IllegalArgumentException if the Expression is of a kind this compiler
+	 * 		   does not know.
+	 */
+	private void expression(Expression e)
+	{
+		if (e instanceof Number)
+			code.pushInt(((Number)e).getValue());
+		else if (e instanceof Variable)
+			load(((Variable)e).getDepth(), ((Variable)e).getSlot());
+		else if (e instanceof Negate)
+		{
+			expression(((Negate)e).getExpression());
+			code.emit(CodeBuffer.INEG, 0);
+		}
+		else if (e instanceof BinOp)
+		{
+			BinOp b = (BinOp)e;
+			expression(b.getLeft());
+			expression(b.getRight());
+			String[] order = {"+", "-", "*", "/", "%"};
+			int[] ops = {CodeBuffer.IADD, CodeBuffer.ISUB, CodeBuffer.IMUL, CodeBuffer.IDIV,
+						 CodeBuffer.IREM};
+			for (int i = 0; i < order.length; i++)
+			{
+				if (order[i].equals(b.getOperator()))
+				{
+					code.emit(ops[i], -1);
+					return;
+				}
+			}
+			throw new IllegalArgumentException("Unknown operator " + b.getOperator() + ".");
+		}
+		else if (e instanceof Condition)
+		{
+			Condition c = (Condition)e;
+			int trueLabel = code.newLabel();
+			int endLabel = code.newLabel();
+			expression(c.getLeft());
+			expression(c.getRight());
+			code.jump(comparison(c.getRelop(), false), trueLabel);
+			code.pushInt(0);
+			code.jump(CodeBuffer.GOTO, endLabel);
+			code.placeLabel(trueLabel);
+			code.setStack(code.getStack() - 1);
+			code.pushInt(1);
+			code.placeLabel(endLabel);
+		}
+		else if (e instanceof ProcedureCall)
+		{
+			ProcedureCall call = (ProcedureCall)e;
+			List<Expression> args = call.getArgs();
+			int count = args == null ? 0 : args.size();
+			if (paramBase > 0)
+				code.loadReference(0);
+			for (int i = 0; i < count; i++)
+				expression(args.get(i));
+			code.invokeStatic(writer.methodRef(NAME, "proc" + call.getName(),
+											   descriptor(count)), 1 - count - paramBase);
+		}
+		else
+			throw new IllegalArgumentException("Cannot compile " + e.getClass().getSimpleName()
+											   + " to JVM bytecode.");
+	}
+}
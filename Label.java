@@ -0,0 +1,49 @@
+package emitter;
+
+/**
+ * A Label marks the address of the next Instruction, so jumps, branches and loads
+ * can refer to it by name.
+ * @author Rakesh Nori
+ * @version 7/5/2018
+ */
+public class Label extends Instruction
+{
+	private final String name;
+
+	/**
+	 * Creates a Label.
+	 * @param labelName the name of the label, without the ':'.
+	 */
+	public Label(String labelName)
+	{
+		super(null);
+		name = labelName;
+	}
+
+	/**
+	 * Gets the name of the Label.
+	 * @return the name, without the ':'.
+	 */
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * Checks if the Instruction is a Label, which it is.
+	 * @return true.
+	 */
+	public boolean isLabel()
+	{
+		return true;
+	}
+
+	/**
+	 * Adds the Label's MIPS text to a StringBuilder.
+	 * @param sb the StringBuilder.
+	 */
+	public void appendTo(StringBuilder sb)
+	{
+		sb.append(name).append(':');
+	}
+}
@@ -0,0 +1,74 @@
+package ast;
+
+import java.util.function.ToIntFunction;
+
+import environment.Environment;
+import environment.Frame;
+
+/**
+ * The LessThanNode is the Condition for "<".
+ * @author Rakesh Nori
+ * @version 6/25/2018
+ */
+public class LessThanNode extends Condition
+{
+	/**
+	 * Creates a LessThanNode.
+	 * @param a the first Expression being compared.
+	 * @param b the second Expression being compared.
+	 */
+	public LessThanNode(Expression a, Expression b)
+	{
+		super(a, "<", b);
+	}
+	
+	/**
+	 * Evaluates the two expressions and checks if the first is less than the second.
+	 * @param env the Environment containing all the variables that can be used.
+	 * @return 1 if the first is less than the second, otherwise 0.
+	 */
+	public int eval(Environment env)
+	{
+		return e1.eval(env) < e2.eval(env) ? 1 : 0;
+	}
+	
+	/**
+	 * Evaluates the two expressions in a Frame and checks if the first is less than 
+	 * the second.
+	 * @param frame the Frame containing all the variables that can be used.
+	 * @return 1 if the first is less than the second, otherwise 0.
+	 */
+	public int eval(Frame frame)
+	{
+		return e1.eval(frame) < e2.eval(frame) ? 1 : 0;
+	}
+	
+	/**
+	 * Links the two expressions into a closure that checks if the first is less than 
+	 * the second. A Number on the right is bound as a constant.
+	 * @return a closure that evaluates the comparison in a Frame, to 1 or 0.
+	 */
+	public ToIntFunction<Frame> link()
+	{
+		ToIntFunction<Frame> a = e1.link();
+		if (e2 instanceof Number)
+		{
+			int k = ((Number)e2).getValue();
+			return f -> a.applyAsInt(f) < k ? 1 : 0;
+		}
+		ToIntFunction<Frame> b = e2.link();
+		return f -> a.applyAsInt(f) < b.applyAsInt(f) ? 1 : 0;
+	}
+	
+	/**
+	 * Checks if the first of two values that have already been evaluated is less than 
+	 * the second.
+	 * @param a the value of the first expression.
+	 * @param b the value of the second expression.
+	 * @return 1 if the first is less than the second, otherwise 0.
+	 */
+	public int compare(int a, int b)
+	{
+		return a < b ? 1 : 0;
+	}
+}
@@ -0,0 +1,419 @@
+package ir;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import ast.Assignment;
+import ast.BinOp;
+import ast.Block;
+import ast.Condition;
+import ast.Expression;
+import ast.For;
+import ast.If;
+import ast.Negate;
+import ast.Number;
+import ast.ProcedureCall;
+import ast.ProcedureDeclaration;
+import ast.Program;
+import ast.Readln;
+import ast.Resolver;
+import ast.Statement;
+import ast.Variable;
+import ast.While;
+import ast.Writeln;
+import emitter.Emitter;
+import parser.CompileService;
+import scanner.ScanErrorException;
+
+/**
+ * Lowering turns a resolved Program into an IrProgram. Every expression is flattened
+ * into Quads that leave its value in a virtual register, and every IF, WHILE and FOR
+ * is broken into BasicBlocks joined by BRANCH and JUMP. Inside a procedure, the
+ * arguments, the return value and the local variables are the registers of the
+ * procedure's Frame, so reading one costs nothing and assigning one is a COPY; the
+ * globals are read and written with LOAD and STORE, since a call can change them.
+ * A procedure sets its return value and local variables to 0 when it starts, the way
+ * a new Frame does.
+ * @author Rakesh Nori
+ * @version 7/6/2018
+ * Usage:
+ * prog.resolve(new Resolver());
+ * IrProgram ir = new Lowering().lower(prog);
+ */
+public class Lowering
+{
+	private static final String[] OPERATORS = {"+", "-", "*", "/", "%"};
+	private static final Quad.Op[] OPS = {Quad.Op.ADD, Quad.Op.SUB, Quad.Op.MUL,
+		Quad.Op.DIV, Quad.Op.MOD};
+
+	private String[] globals;
+	private IrFunction function;
+	private BasicBlock block;
+
+	/**
+	 * Lowers a resolved Program.
+	 * @param prog the Program, after prog.resolve has been called.
+	 * @return the IrProgram, with the main statement first and then the procedures
+	 * 		   in the order they are declared.
+	 */
+	public IrProgram lower(Program prog)
+	{
+		globals = new String[prog.getFrameSize()];
+		List<String> declared = new ArrayList<String>();
+		for (String name : prog.getVariables())
+		{
+			if (!declared.contains(name))
+				declared.add(name);
+		}
+		declared.toArray(globals);
+		IrFunction main = begin(null, 0, 0);
+		if (prog.getStatement() != null)
+			statement(prog.getStatement());
+		end(Quad.ret(-1));
+		IrFunction[] procs = new IrFunction[prog.getProcedures().size()];
+		for (int i = 0; i < procs.length; i++)
+			procs[i] = procedure(prog.getProcedures().get(i));
+		List<String> names = new ArrayList<String>();
+		for (int i = 0; i < globals.length; i++)
+			names.add(globals[i] == null ? "g" + i : globals[i]);
+		IrProgram ir = new IrProgram(names);
+		ir.add(main);
+		for (IrFunction f : procs)
+			ir.add(f);
+		return ir;
+	}
+
+	/**
+	 * Starts a function with an empty entry block.
+	 * @param name the name of the procedure, or null for the main statement.
+	 * @param args the number of arguments.
+	 * @param frameSize the number of registers holding the Frame.
+	 * @return the IrFunction.
+	 */
+	private IrFunction begin(String name, int args, int frameSize)
+	{
+		function = new IrFunction(name, args, frameSize);
+		block = function.newBlock();
+		function.place(block);
+		return function;
+	}
+
+	/**
+	 * Ends the function being lowered with a RETURN.
+	 * @param ret the RETURN.
+	 */
+	private void end(Quad ret)
+	{
+		block.add(ret);
+		function = null;
+		block = null;
+	}
+
+	/**
+	 * Lowers a procedure, which returns the value of v0.
+	 * @param p the ProcedureDeclaration.
+	 * @return the IrFunction.
+	 */
+	private IrFunction procedure(ProcedureDeclaration p)
+	{
+		int args = p.getArgs().size();
+		IrFunction f = begin(p.getName(), args, p.getFrameSize());
+		block.add(Quad.constant(0, 0));
+		for (int slot = args + 1; slot < p.getFrameSize(); slot++)
+			block.add(Quad.constant(slot, 0));
+		statement(p.getBody());
+		end(Quad.ret(0));
+		return f;
+	}
+
+	/**
+	 * Lays out a block next. If the code before it can run into it, it jumps to it
+	 * instead, since a block never falls through.
+	 * @param b the block.
+	 */
+	private void place(BasicBlock b)
+	{
+		if (!block.isTerminated())
+			block.add(Quad.jump(b));
+		function.place(b);
+		block = b;
+	}
+
+	/**
+	 * Records the name of a global variable.
+	 * @param slot the slot of the variable.
+	 * @param name the name of the variable.
+	 */
+	private void global(int slot, String name)
+	{
+		if (globals[slot] == null)
+			globals[slot] = name;
+	}
+
+	/**
+	 * Checks if a resolved variable is a register of the current procedure's Frame.
+	 * @param depth the depth the Resolver gave the variable.
+	 * @return true if it is; false if it is a global.
+	 */
+	private boolean isLocal(int depth)
+	{
+		return !function.isMain() && depth == 0;
+	}
+
+	/**
+	 * Lowers a read of a resolved variable.
+	 * @param depth the depth the Resolver gave the variable.
+	 * @param slot the slot the Resolver gave the variable.
+	 * @param name the name of the variable.
+	 * @return the register holding its value.
+	 */
+	private int load(int depth, int slot, String name)
+	{
+		if (isLocal(depth))
+			return slot;
+		global(slot, name);
+		int t = function.newRegister();
+		block.add(Quad.load(t, slot, name));
+		return t;
+	}
+
+	/**
+	 * Lowers a write of a resolved variable.
+	 * @param depth the depth the Resolver gave the variable.
+	 * @param slot the slot the Resolver gave the variable.
+	 * @param name the name of the variable.
+	 * @param value the register holding the value.
+	 */
+	private void store(int depth, int slot, String name, int value)
+	{
+		if (isLocal(depth))
+			block.add(Quad.copy(slot, value));
+		else
+		{
+			global(slot, name);
+			block.add(Quad.store(slot, name, value));
+		}
+	}
+
+	/**
+	 * Lowers a Statement.
+	 * @param s the Statement.
+	 * @throws IllegalArgumentException if the Statement is of a kind this lowering
+	 * 		   does not know.
+	 */
+	private void statement(Statement s)
+	{
+		if (s instanceof Block)
+		{
+			for (Statement inner : ((Block)s).getStatements())
+				statement(inner);
+		}
+		else if (s instanceof Assignment)
+		{
+			Assignment a = (Assignment)s;
+			store(a.getDepth(), a.getSlot(), a.getName(), expression(a.getExpression()));
+		}
+		else if (s instanceof Writeln)
+			block.add(Quad.print(expression(((Writeln)s).getExpression())));
+		else if (s instanceof Readln)
+		{
+			Readln r = (Readln)s;
+			if (isLocal(r.getDepth()))
+				block.add(Quad.read(r.getSlot()));
+			else
+			{
+				int t = function.newRegister();
+				block.add(Quad.read(t));
+				store(r.getDepth(), r.getSlot(), r.getName(), t);
+			}
+		}
+		else if (s instanceof If)
+		{
+			If f = (If)s;
+			BasicBlock then = function.newBlock();
+			BasicBlock other = f.getElse() == null ? null : function.newBlock();
+			BasicBlock end = function.newBlock();
+			if (other == null)
+				other = end;
+			branch(f.getCondition(), then, other);
+			place(then);
+			statement(f.getThen());
+			if (f.getElse() != null)
+			{
+				block.add(Quad.jump(end));
+				place(other);
+				statement(f.getElse());
+			}
+			place(end);
+		}
+		else if (s instanceof While)
+		{
+			While w = (While)s;
+			BasicBlock test = function.newBlock();
+			BasicBlock body = function.newBlock();
+			BasicBlock end = function.newBlock();
+			place(test);
+			branch(w.getCondition(), body, end);
+			place(body);
+			statement(w.getBody());
+			block.add(Quad.jump(test));
+			place(end);
+		}
+		else if (s instanceof For)
+			forLoop((For)s);
+		else
+			throw new IllegalArgumentException("Cannot lower " + s.getClass().getSimpleName()
+											   + " to the IR.");
+	}
+
+	/**
+	 * Lowers a FOR loop: the starting assignment, a check of the loop variable
+	 * against the limit before every iteration, the body and the increment.
+	 * @param f the For loop.
+	 */
+	private void forLoop(For f)
+	{
+		BasicBlock test = function.newBlock();
+		BasicBlock body = function.newBlock();
+		BasicBlock end = function.newBlock();
+		statement(f.getStart());
+		place(test);
+		int var = load(f.getDepth(), f.getSlot(), f.getName());
+		block.add(Quad.branch("<", var, expression(f.getLimit()), body, end));
+		place(body);
+		statement(f.getBody());
+		int one = function.newRegister();
+		block.add(Quad.constant(one, 1));
+		int next = function.newRegister();
+		block.add(Quad.binary(Quad.Op.ADD, next, load(f.getDepth(), f.getSlot(), f.getName()),
+							  one));
+		store(f.getDepth(), f.getSlot(), f.getName(), next);
+		block.add(Quad.jump(test));
+		place(end);
+	}
+
+	/**
+	 * Lowers a Condition as a BRANCH that ends the current block.
+	 * @param c the Condition.
+	 * @param ifTrue the block to go to when it holds.
+	 * @param ifFalse the block to go to when it does not.
+	 */
+	private void branch(Condition c, BasicBlock ifTrue, BasicBlock ifFalse)
+	{
+		int a = expression(c.getLeft());
+		int b = expression(c.getRight());
+		block.add(Quad.branch(c.getRelop(), a, b, ifTrue, ifFalse));
+	}
+
+	/**
+	 * Lowers an Expression.
+	 * @param e the Expression.
+	 * @return the register holding its value, which is the variable's own register
+	 * 		   for a variable of the current procedure's Frame.
+	 * @throws IllegalArgumentException if the Expression is of a kind this lowering
+	 * 		   does not know.
+	 */
+	private int expression(Expression e)
+	{
+		if (e instanceof Variable)
+		{
+			Variable v = (Variable)e;
+			return load(v.getDepth(), v.getSlot(), v.getName());
+		}
+		int t;
+		if (e instanceof Number)
+		{
+			t = function.newRegister();
+			block.add(Quad.constant(t, ((Number)e).getValue()));
+		}
+		else if (e instanceof Negate)
+		{
+			int a = expression(((Negate)e).getExpression());
+			t = function.newRegister();
+			block.add(Quad.negate(t, a));
+		}
+		else if (e instanceof BinOp)
+		{
+			BinOp b = (BinOp)e;
+			int left = expression(b.getLeft());
+			int right = expression(b.getRight());
+			t = function.newRegister();
+			block.add(Quad.binary(operator(b.getOperator()), t, left, right));
+		}
+		else if (e instanceof Condition)
+		{
+			BasicBlock set = function.newBlock();
+			BasicBlock end = function.newBlock();
+			t = function.newRegister();
+			block.add(Quad.constant(t, 0));
+			branch((Condition)e, set, end);
+			place(set);
+			block.add(Quad.constant(t, 1));
+			place(end);
+		}
+		else if (e instanceof ProcedureCall)
+		{
+			ProcedureCall call = (ProcedureCall)e;
+			List<Expression> args = call.getArgs();
+			int[] regs = new int[args == null ? 0 : args.size()];
+			for (int i = 0; i < regs.length; i++)
+				regs[i] = expression(args.get(i));
+			t = function.newRegister();
+			block.add(Quad.call(t, call.getName(), regs));
+		}
+		else
+			throw new IllegalArgumentException("Cannot lower " + e.getClass().getSimpleName()
+											   + " to the IR.");
+		return t;
+	}
+
+	/**
+	 * Finds the IR operator for an arithmetic operator.
+	 * @param op the operator of a BinOp.
+	 * @return the IR operator.
+	 * @throws IllegalArgumentException if the operator is not known.
+	 */
+	private static Quad.Op operator(String op)
+	{
+		for (int i = 0; i < OPERATORS.length; i++)
+		{
+			if (OPERATORS[i].equals(op))
+				return OPS[i];
+		}
+		throw new IllegalArgumentException("Unknown operator " + op + ".");
+	}
+
+	/**
+	 * Prints the IR of a program, or with -mips, compiles the program to MIPS through
+	 * the IR.
+	 * @param args the file holding the program, then optionally -mips and the name of
+	 * 		  the .asm file to write.
+	 * @throws IOException if the file cannot be read.
+	 * @throws ScanErrorException if a scanning error occurs.
+	 */
+	public static void main(String [] args) throws IOException, ScanErrorException
+	{
+		String name = "test.txt";
+		if (args.length > 0)
+			name = args[0];
+		Program prog = CompileService.parse(new File(name));
+		prog.resolve(new Resolver());
+		IrProgram ir = new Lowering().lower(prog);
+		if (args.length > 2 && args[1].equals("-mips"))
+		{
+			Emitter e = new Emitter(args[2]);
+			try
+			{
+				new MipsSelector().select(ir, e);
+			}
+			finally
+			{
+				e.close();
+			}
+		}
+		else
+			System.out.print(ir);
+	}
+}
@@ -0,0 +1,148 @@
+package environment;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The MemoTable remembers the results of a pure procedure by its arguments, so calling
+ * it again with the same arguments does not run its body. It holds at most a fixed
+ * number of results and forgets the one used least recently when it is full. It
+ * counts its hits and misses so the capacity can be tuned. The table is shared by
+ * every call of its procedure, from any thread, so its methods are synchronized.
+ * @author Rakesh Nori
+ * @version 7/2/2018
+ */
+public class MemoTable
+{
+	private LinkedHashMap<Key, Integer> results;
+	private int capacity;
+	private long hits;
+	private long misses;
+
+	/**
+	 * The arguments of a call, compared by value.
+	 */
+	private static final class Key
+	{
+		private final int[] args;
+		private final int hash;
+
+		/**
+		 * Creates a Key.
+		 * @param values the arguments, which must not be changed afterwards.
+		 */
+		Key(int[] values)
+		{
+			args = values;
+			hash = Arrays.hashCode(values);
+		}
+
+		/**
+		 * Gets the hash of the arguments, which was computed once.
+		 * @return the hash.
+		 */
+		public int hashCode()
+		{
+			return hash;
+		}
+
+		/**
+		 * Checks if two Keys hold the same arguments.
+		 * @param other the other object.
+		 * @return true if it is a Key with equal arguments; otherwise, false.
+		 */
+		public boolean equals(Object other)
+		{
+			return other instanceof Key && ((Key)other).hash == hash
+				   && Arrays.equals(((Key)other).args, args);
+		}
+	}
+
+	/**
+	 * Creates an empty MemoTable.
+	 * @param size the most results it holds.
+	 */
+	public MemoTable(int size)
+	{
+		capacity = size;
+		results = new LinkedHashMap<Key, Integer>(16, 0.75f, true)
+		{
+			protected boolean removeEldestEntry(Map.Entry<Key, Integer> eldest)
+			{
+				return size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * Looks up the result of a call and counts it as a hit or a miss.
+	 * @param args the arguments of the call.
+	 * @return the result, or null if it is not in the table.
+	 */
+	public synchronized Integer get(int[] args)
+	{
+		Integer result = results.get(new Key(args));
+		if (result == null)
+			misses++;
+		else
+			hits++;
+		return result;
+	}
+
+	/**
+	 * Remembers the result of a call.
+	 * @param args the arguments of the call, which must not be changed afterwards.
+	 * @param result the value the call returned.
+	 */
+	public synchronized void put(int[] args, int result)
+	{
+		results.put(new Key(args), result);
+	}
+
+	/**
+	 * Gets how many lookups found a result.
+	 * @return the number of hits.
+	 */
+	public synchronized long getHits()
+	{
+		return hits;
+	}
+
+	/**
+	 * Gets how many lookups did not find a result.
+	 * @return the number of misses.
+	 */
+	public synchronized long getMisses()
+	{
+		return misses;
+	}
+
+	/**
+	 * Gets how many results are in the table.
+	 * @return the number of results.
+	 */
+	public synchronized int size()
+	{
+		return results.size();
+	}
+
+	/**
+	 * Gets the most results the table holds.
+	 * @return the capacity.
+	 */
+	public int getCapacity()
+	{
+		return capacity;
+	}
+
+	/**
+	 * Forgets every result and resets the counters.
+	 */
+	public synchronized void clear()
+	{
+		results.clear();
+		hits = 0;
+		misses = 0;
+	}
+}
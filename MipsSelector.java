@@ -0,0 +1,268 @@
+package ir;
+
+import java.util.List;
+
+import emitter.Emitter;
+import emitter.Operand;
+
+/**
+ * The MipsSelector picks the MIPS instructions for an IrProgram and hands them to an
+ * Emitter, whose Peephole optimizer cleans them up when it is closed. Every function
+ * gets a frame on the stack below the saved $ra and $fp, and virtual register vi
+ * lives in the word at -4(i + 1)($fp). Each Quad loads the registers it reads into
+ * $t0 and $t1, does its work there and stores the result back, so the Peephole
+ * removes a load right after the store of the same register. A caller pushes the
+ * arguments in order, the procedure copies them into v1 and up, and the value of a
+ * call comes back in $v0. Blocks are laid out in the order of their IrFunction, so a
+ * JUMP or BRANCH to the block right after it falls through instead.
+ * @author Rakesh Nori
+ * @version 7/6/2018
+ * Usage:
+ * Emitter e = new Emitter("out.asm");
+ * new MipsSelector().select(ir, e);
+ * e.close();
+ */
+public class MipsSelector
+{
+	private static final String[] RELOPS = {"=", "<>", "<", ">=", ">", "<="};
+	private static final String[] BRANCHES = {"beq", "bne", "blt", "bge", "bgt", "ble"};
+
+	private static final Operand T0 = Operand.register("$t0");
+	private static final Operand T1 = Operand.register("$t1");
+	private static final Operand V0 = Operand.register("$v0");
+	private static final Operand A0 = Operand.register("$a0");
+	private static final Operand SP = Operand.register("$sp");
+	private static final Operand FP = Operand.register("$fp");
+	private static final Operand RA = Operand.register("$ra");
+	private static final Operand ZERO = Operand.register("$zero");
+
+	private Emitter e;
+	private IrFunction function;
+
+	/**
+	 * Selects the MIPS for a whole program: the globals in the data segment, then the
+	 * main statement, then every procedure.
+	 * @param ir the IrProgram.
+	 * @param out the Emitter the instructions go to, which is not closed.
+	 */
+	public void select(IrProgram ir, Emitter out)
+	{
+		e = out;
+		e.emitComment("MIPS program for the PASCAL code, selected from the IR.");
+		e.emit(".data");
+		for (String g : ir.getGlobals())
+		{
+			e.emitLabel("var" + g);
+			e.emit(".word", Operand.immediate(0));
+		}
+		e.emitLabel("nl");
+		e.emit(".asciiz", Operand.string("\n"));
+		e.emit(".text");
+		e.emit(".globl", Operand.symbol("main"));
+		for (IrFunction f : ir.getFunctions())
+			function(f);
+		e = null;
+	}
+
+	/**
+	 * Gets the MIPS label of a function.
+	 * @param f the IrFunction.
+	 * @return "main" for the main statement, or "proc" and the name of the procedure.
+	 */
+	private static String label(IrFunction f)
+	{
+		return f.isMain() ? "main" : "proc" + f.getName();
+	}
+
+	/**
+	 * Gets the MIPS label of a block of the function being selected.
+	 * @param b the BasicBlock.
+	 * @return the label, which is unique in the program.
+	 */
+	private String label(BasicBlock b)
+	{
+		return label(function) + "_" + b.getName();
+	}
+
+	/**
+	 * Gets the word of the frame a virtual register lives in.
+	 * @param reg the virtual register.
+	 * @return the memory Operand.
+	 */
+	private static Operand slot(int reg)
+	{
+		return Operand.memory(-4 * (reg + 1), "$fp");
+	}
+
+	/**
+	 * Selects one function: the prologue that makes its frame, then its blocks.
+	 * @param f the IrFunction.
+	 */
+	private void function(IrFunction f)
+	{
+		function = f;
+		e.emitLabel(label(f));
+		if (!f.isMain())
+		{
+			e.emit("subu", SP, SP, Operand.immediate(8));
+			e.emit("sw", RA, Operand.memory(4, "$sp"));
+			e.emit("sw", FP, Operand.memory(0, "$sp"));
+		}
+		e.emit("move", FP, SP);
+		if (f.getRegisterCount() > 0)
+			e.emit("subu", SP, SP, Operand.immediate(4 * f.getRegisterCount()));
+		int params = f.getParamCount();
+		for (int i = 1; i <= params; i++)
+		{
+			e.emit("lw", T0, Operand.memory(8 + 4 * (params - i), "$fp"));
+			e.emit("sw", T0, slot(i));
+		}
+		List<BasicBlock> blocks = f.getBlocks();
+		for (int i = 0; i < blocks.size(); i++)
+		{
+			BasicBlock next = i + 1 < blocks.size() ? blocks.get(i + 1) : null;
+			e.emitLabel(label(blocks.get(i)));
+			for (Quad q : blocks.get(i).getQuads())
+				quad(q, next);
+		}
+		function = null;
+	}
+
+	/**
+	 * Selects one Quad.
+	 * @param q the Quad.
+	 * @param next the block laid out after the one holding the Quad, or null.
+	 */
+	private void quad(Quad q, BasicBlock next)
+	{
+		switch (q.getOp())
+		{
+			case CONST:
+				e.emit("li", T0, Operand.immediate(q.getValue()));
+				break;
+			case COPY:
+				e.emit("lw", T0, slot(q.getA()));
+				break;
+			case ADD:
+			case SUB:
+				e.emit("lw", T0, slot(q.getA()));
+				e.emit("lw", T1, slot(q.getB()));
+				e.emit(q.getOp() == Quad.Op.ADD ? "addu" : "subu", T0, T0, T1);
+				break;
+			case MUL:
+			case DIV:
+			case MOD:
+				e.emit("lw", T0, slot(q.getA()));
+				e.emit("lw", T1, slot(q.getB()));
+				e.emit(q.getOp() == Quad.Op.MUL ? "mult" : "div", T0, T1);
+				e.emit(q.getOp() == Quad.Op.MOD ? "mfhi" : "mflo", T0);
+				break;
+			case NEG:
+				e.emit("lw", T0, slot(q.getA()));
+				e.emit("subu", T0, ZERO, T0);
+				break;
+			case LOAD:
+				e.emit("lw", T0, Operand.symbol("var" + q.getName()));
+				break;
+			case STORE:
+				e.emit("lw", T0, slot(q.getA()));
+				e.emit("sw", T0, Operand.symbol("var" + q.getName()));
+				break;
+			case CALL:
+				call(q);
+				break;
+			case PRINT:
+				e.emit("lw", A0, slot(q.getA()));
+				e.emit("li", V0, Operand.immediate(1));
+				e.emit("syscall");
+				e.emit("la", A0, Operand.symbol("nl"));
+				e.emit("li", V0, Operand.immediate(4));
+				e.emit("syscall");
+				break;
+			case READ:
+				e.emit("li", V0, Operand.immediate(5));
+				e.emit("syscall");
+				e.emit("move", T0, V0);
+				break;
+			case JUMP:
+				if (q.getTarget() != next)
+					e.emit("j", Operand.symbol(label(q.getTarget())));
+				break;
+			case BRANCH:
+				branch(q, next);
+				break;
+			default:
+				ret(q);
+				break;
+		}
+		if (q.getDst() >= 0)
+			e.emit("sw", T0, slot(q.getDst()));
+	}
+
+	/**
+	 * Selects a CALL: the arguments are pushed in order, and popped once the
+	 * procedure returns its value in $v0, which is left in $t0.
+	 * @param q the CALL.
+	 */
+	private void call(Quad q)
+	{
+		int[] args = q.getArgs();
+		for (int arg : args)
+		{
+			e.emit("lw", T0, slot(arg));
+			e.emit("subu", SP, SP, Operand.immediate(4));
+			e.emit("sw", T0, Operand.memory(0, "$sp"));
+		}
+		e.emit("jal", Operand.symbol("proc" + q.getName()));
+		if (args.length > 0)
+			e.emit("addu", SP, SP, Operand.immediate(4 * args.length));
+		e.emit("move", T0, V0);
+	}
+
+	/**
+	 * Selects a BRANCH. When one of its blocks is laid out next, a single branch to
+	 * the other one is enough, on the opposite relation if that is the true block.
+	 * @param q the BRANCH.
+	 * @param next the block laid out next, or null.
+	 * @throws IllegalArgumentException if the relative operator is not known.
+	 */
+	private void branch(Quad q, BasicBlock next)
+	{
+		int i = 0;
+		while (i < RELOPS.length && !RELOPS[i].equals(q.getName()))
+			i++;
+		if (i == RELOPS.length)
+			throw new IllegalArgumentException("Unknown relative operator " + q.getName() + ".");
+		e.emit("lw", T0, slot(q.getA()));
+		e.emit("lw", T1, slot(q.getB()));
+		if (q.getTarget() == next)
+			e.emit(BRANCHES[i ^ 1], T0, T1, Operand.symbol(label(q.getOther())));
+		else
+		{
+			e.emit(BRANCHES[i], T0, T1, Operand.symbol(label(q.getTarget())));
+			if (q.getOther() != next)
+				e.emit("j", Operand.symbol(label(q.getOther())));
+		}
+	}
+
+	/**
+	 * Selects a RETURN: the main statement ends the program, and a procedure puts
+	 * its value in $v0, pops its frame and goes back to its caller.
+	 * @param q the RETURN.
+	 */
+	private void ret(Quad q)
+	{
+		if (function.isMain())
+		{
+			e.emit("li", V0, Operand.immediate(10));
+			e.emit("syscall");
+			return;
+		}
+		e.emit("lw", V0, slot(q.getA()));
+		e.emit("move", SP, FP);
+		e.emit("lw", RA, Operand.memory(4, "$sp"));
+		e.emit("lw", FP, Operand.memory(0, "$sp"));
+		e.emit("addu", SP, SP, Operand.immediate(8));
+		e.emit("jr", RA);
+	}
+}
@@ -0,0 +1,141 @@
+package ast;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+import emitter.Emitter;
+import emitter.Operand;
+import environment.Environment;
+import environment.Frame;
+import vm.Bytecode;
+import vm.BytecodeEmitter;
+
+/**
+ * The Negate class is the unary minus in front of an expression.
+ * @author Rakesh Nori
+ * @version 6/20/2018
+ */
+public class Negate extends Expression
+{
+	private Expression exp;
+	
+	/**
+	 * Instantiates the Negate object with the expression being negated.
+	 * @param in the Expression whose value is negated.
+	 */
+	public Negate(Expression in)
+	{
+		exp = in;
+	}
+	
+	/**
+	 * Gets the expression being negated.
+	 * @return the Expression under the minus sign.
+	 */
+	public Expression getExpression()
+	{
+		return exp;
+	}
+	
+	/**
+	 * @Override
+	 * Evaluates the expression and negates it.
+	 * @param env the environment containing variables that can be used.
+	 * @return the negative of the expression's value.
+	 */
+	public int eval(Environment env)
+	{
+		return -exp.eval(env);
+	}
+	
+	/**
+	 * Resolves the expression being negated.
+	 * @param r the Resolver being used.
+	 */
+	public void resolve(Resolver r)
+	{
+		exp.resolve(r);
+	}
+	
+	/**
+	 * Parallelizes the expression being negated.
+	 * @param pure the pure procedures, as found by Purity.
+	 * @param cutoff how many forks can enclose each other before evaluation 
+	 * 		  turns sequential.
+	 * @return this Negate.
+	 */
+	public Expression parallelize(Set<ProcedureDeclaration> pure, int cutoff)
+	{
+		exp = exp.parallelize(pure, cutoff);
+		return this;
+	}
+	
+	/**
+	 * Evaluates the expression in a Frame and negates it.
+	 * @param frame the Frame containing variables that can be used.
+	 * @return the negative of the value of the expression.
+	 */
+	public int eval(Frame frame)
+	{
+		return -exp.eval(frame);
+	}
+	
+	/**
+	 * Links the expression into a closure that negates it.
+	 * @return a closure that evaluates the negated expression in a Frame.
+	 */
+	public ToIntFunction<Frame> link()
+	{
+		ToIntFunction<Frame> a = exp.link();
+		return f -> -a.applyAsInt(f);
+	}
+	
+	/**
+	 * Pushes the expression and negates it.
+	 * @param b the BytecodeEmitter that collects the instructions.
+	 */
+	public void compile(BytecodeEmitter b)
+	{
+		exp.compile(b);
+		b.emit(Bytecode.NEG);
+	}
+	
+	/**
+	 * Converts the negation to MIPS by subtracting $v0 from zero.
+	 * @param e the Emitter that writes to the MIPS file.
+	 */
+	public void compile(Emitter e)
+	{
+		compileTo(e, "$v0");
+	}
+	
+	/**
+	 * Evaluates the expression into a register and subtracts it from zero there.
+	 * @param e the Emitter that writes to the MIPS file.
+	 * @param reg the register to leave the negative in.
+	 */
+	public void compileTo(Emitter e, String reg)
+	{
+		exp.compileTo(e, reg);
+		e.emit("subu", Operand.register(reg), Operand.register("$zero"), 
+			   Operand.register(reg));
+	}
+	
+	/**
+	 * Gets the Sethi-Ullman number of the negation, which needs no more registers 
+	 * than the expression being negated.
+	 * @return the number of registers.
+	 */
+	public int registerNeed()
+	{
+		return exp.registerNeed();
+	}
+	
+	/**
+	 * toString method for Negate used in debugging.
+	 * @return the expression with a minus sign in front of it.
+	 */
+	public String toString()
+	{
+		return "-(" + exp + ")";
+	}
+}
@@ -1,6 +1,12 @@
 package ast;
+import java.util.function.ToIntFunction;
+
 import emitter.Emitter;
+import emitter.Operand;
 import environment.Environment;
+import environment.Frame;
+import vm.Bytecode;
+import vm.BytecodeEmitter;
 
 /**
  * The Number class holds an Integer that can be lated used in other evaluations.
@@ -31,13 +37,69 @@ public class Number extends Expression
 		return val;
 	}
 	
+	/**
+	 * A Number has no variables to resolve.
+	 * @param r the Resolver being used.
+	 */
+	public void resolve(Resolver r)
+	{
+	}
+	
+	/**
+	 * Gives the number.
+	 * @param frame the Frame containing variables that can be used during evaluation.
+	 * @return the int that is associated with the Number object.
+	 */
+	public int eval(Frame frame)
+	{
+		return val;
+	}
+	
+	/**
+	 * Links the number into a closure that returns it.
+	 * @return a closure that always evaluates to the value.
+	 */
+	public ToIntFunction<Frame> link()
+	{
+		int k = val;
+		return f -> k;
+	}
+	
+	/**
+	 * Pushes the number.
+	 * @param b the BytecodeEmitter that collects the instructions.
+	 */
+	public void compile(BytecodeEmitter b)
+	{
+		b.emit(Bytecode.CONST, val);
+	}
+	
+	/**
+	 * Gets the value of the Number.
+	 * @return the int that is associated with the Number object.
+	 */
+	public int getValue()
+	{
+		return val;
+	}
+	
 	/**
 	 * Loads the number into the $v0 register. 
 	 * @param e the Emitter used to convert the Pascal code to MIPS.
 	 */
 	public void compile(Emitter e)
 	{
-		e.emit("li $v0, " + val);
+		compileTo(e, "$v0");
+	}
+	
+	/**
+	 * Loads the number into a register.
+	 * @param e the Emitter used to convert the Pascal code to MIPS.
+	 * @param reg the register to load the number into.
+	 */
+	public void compileTo(Emitter e, String reg)
+	{
+		e.emit("li", Operand.register(reg), Operand.immediate(val));
 	}
 	
 	/**
@@ -0,0 +1,208 @@
+package emitter;
+
+import java.util.HashMap;
+
+/**
+ * An Operand is one operand of a MIPS Instruction: a register, an immediate number,
+ * a symbol such as a label or a variable's address, a memory address given as an
+ * offset from a register, or a string for a directive. Operands never change, so
+ * the same Operand can be used by many Instructions, and the Operands of the
+ * registers are made once and shared.
+ * @author Rakesh Nori
+ * @version 7/5/2018
+ */
+public final class Operand
+{
+	/**
+	 * The kinds of operands.
+	 */
+	public enum Kind
+	{
+		REGISTER, IMMEDIATE, SYMBOL, MEMORY, STRING
+	}
+
+	private static final HashMap<String, Operand> REGISTERS = new HashMap<String, Operand>();
+
+	static
+	{
+		String[] names = {"$zero", "$at", "$v0", "$v1", "$a0", "$a1", "$a2", "$a3",
+			"$t0", "$t1", "$t2", "$t3", "$t4", "$t5", "$t6", "$t7", "$t8", "$t9",
+			"$s0", "$s1", "$s2", "$s3", "$s4", "$s5", "$s6", "$s7",
+			"$k0", "$k1", "$gp", "$sp", "$fp", "$ra"};
+		for (String name : names)
+			REGISTERS.put(name, new Operand(Kind.REGISTER, name, 0));
+	}
+
+	private final Kind kind;
+	private final String name;
+	private final int value;
+
+	/**
+	 * Creates an Operand.
+	 * @param k the kind of operand.
+	 * @param n the register, symbol, base register or string, or null for an immediate.
+	 * @param v the immediate or offset, or 0 if there is none.
+	 */
+	private Operand(Kind k, String n, int v)
+	{
+		kind = k;
+		name = n;
+		value = v;
+	}
+
+	/**
+	 * Gets the Operand of a register.
+	 * @param name the name of the register, such as "$t0".
+	 * @return the Operand.
+	 * @throws IllegalArgumentException if there is no register with the name.
+	 */
+	public static Operand register(String name)
+	{
+		Operand reg = REGISTERS.get(name);
+		if (reg == null)
+			throw new IllegalArgumentException("Unknown register " + name + ".");
+		return reg;
+	}
+
+	/**
+	 * Makes an immediate Operand.
+	 * @param value the number.
+	 * @return the Operand.
+	 */
+	public static Operand immediate(int value)
+	{
+		return new Operand(Kind.IMMEDIATE, null, value);
+	}
+
+	/**
+	 * Makes an Operand for a symbol, which is a label or the address of data.
+	 * @param name the name of the symbol.
+	 * @return the Operand.
+	 */
+	public static Operand symbol(String name)
+	{
+		return new Operand(Kind.SYMBOL, name, 0);
+	}
+
+	/**
+	 * Makes an Operand for the memory at an offset from a register.
+	 * @param offset the offset in bytes.
+	 * @param base the name of the register holding the address.
+	 * @return the Operand.
+	 */
+	public static Operand memory(int offset, String base)
+	{
+		return new Operand(Kind.MEMORY, base, offset);
+	}
+
+	/**
+	 * Makes an Operand for a string, as used by .asciiz.
+	 * @param text the string, without quotes or escapes.
+	 * @return the Operand.
+	 */
+	public static Operand string(String text)
+	{
+		return new Operand(Kind.STRING, text, 0);
+	}
+
+	/**
+	 * Gets the kind of the Operand.
+	 * @return the kind.
+	 */
+	public Kind getKind()
+	{
+		return kind;
+	}
+
+	/**
+	 * Gets the register, symbol, base register or string of the Operand.
+	 * @return the name, or null for an immediate.
+	 */
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * Gets the immediate or offset of the Operand.
+	 * @return the number, or 0 if there is none.
+	 */
+	public int getValue()
+	{
+		return value;
+	}
+
+	/**
+	 * Checks if the Operand is a register.
+	 * @return true if it is; otherwise, false.
+	 */
+	public boolean isRegister()
+	{
+		return kind == Kind.REGISTER;
+	}
+
+	/**
+	 * Checks if the Operand reads a register, as the register itself or as the base
+	 * of a memory address.
+	 * @param reg the register.
+	 * @return true if the Operand uses the register; otherwise, false.
+	 */
+	public boolean uses(Operand reg)
+	{
+		return (kind == Kind.REGISTER || kind == Kind.MEMORY) && name.equals(reg.name);
+	}
+
+	/**
+	 * Adds the Operand's MIPS text to a StringBuilder.
+	 * @param sb the StringBuilder.
+	 */
+	public void appendTo(StringBuilder sb)
+	{
+		if (kind == Kind.IMMEDIATE)
+			sb.append(value);
+		else if (kind == Kind.MEMORY)
+		{
+			if (value != 0)
+				sb.append(value);
+			sb.append('(').append(name).append(')');
+		}
+		else if (kind == Kind.STRING)
+			sb.append('"').append(name.replace("\n", "\\n")).append('"');
+		else
+			sb.append(name);
+	}
+
+	/**
+	 * Checks if two Operands are the same.
+	 * @param other the other object.
+	 * @return true if it is an Operand of the same kind, name and value; otherwise, false.
+	 */
+	public boolean equals(Object other)
+	{
+		if (!(other instanceof Operand))
+			return false;
+		Operand o = (Operand)other;
+		return kind == o.kind && value == o.value
+			   && (name == null ? o.name == null : name.equals(o.name));
+	}
+
+	/**
+	 * Gets a hash that agrees with equals.
+	 * @return the hash.
+	 */
+	public int hashCode()
+	{
+		return kind.hashCode() * 31 * 31 + (name == null ? 0 : name.hashCode() * 31) + value;
+	}
+
+	/**
+	 * Gets the Operand's MIPS text.
+	 * @return the text, such as "$t0" or "8($sp)".
+	 */
+	public String toString()
+	{
+		StringBuilder sb = new StringBuilder();
+		appendTo(sb);
+		return sb.toString();
+	}
+}
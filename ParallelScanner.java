@@ -0,0 +1,225 @@
+package scanner;
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * ParallelScanner scans a large SourceBuffer on several threads at once. The input is
+ * split into chunks right after a ';', and every chunk is scanned by a TableScanner
+ * on a ForkJoinPool as if it started in the middle of the program. A ';' inside a
+ * comment would make that guess wrong, so while the chunks are joined back together
+ * in order, each one is checked: the chunk before it must have ended with a token
+ * right on the boundary. A chunk that fails the check is scanned again from where the
+ * chunk before it really stopped. A chunk that failed, such as on a number inside a
+ * comment that is too large, is only reported if scanning it again from there fails
+ * as well. The joined tokens, with their line numbers moved to
+ * their real lines, are therefore the same as scanning the whole input in one go.
+ * @author Rakesh Nori
+ * @version 6/14/2018
+ * Usage:
+ * TokenBuffer tokens = new ParallelScanner(SourceBuffer.map(new File(<file name>))).scan();
+ * Parser p = new Parser(tokens);
+ */
+public class ParallelScanner
+{
+    private static final int MIN_CHUNK = 1 << 16;
+
+    private SourceBuffer src;
+    private ForkJoinPool pool;
+    private int chunkCount;
+
+    /**
+     * The result of scanning one chunk. Line numbers in it start from 0.
+     */
+    private static class Chunk
+    {
+        int from;
+        int to;
+        TokenBuffer tokens;
+        int resumeOffset;
+        int resumeLine;
+        boolean hitEnd;
+        Exception error;
+    }
+
+    /**
+     * Creates a ParallelScanner that uses the common ForkJoinPool, with a few
+     * chunks for every thread in it.
+     * @param source the text to scan.
+     */
+    public ParallelScanner(SourceBuffer source)
+    {
+        this(source, ForkJoinPool.commonPool(), ForkJoinPool.commonPool().getParallelism() * 4);
+    }
+
+    /**
+     * Creates a ParallelScanner.
+     * @param source the text to scan.
+     * @param threads the pool the chunks are scanned on.
+     * @param chunks how many chunks to split the input into, at most.
+     */
+    public ParallelScanner(SourceBuffer source, ForkJoinPool threads, int chunks)
+    {
+        src = source;
+        pool = threads;
+        chunkCount = Math.max(1, Math.min(chunks, source.length() / MIN_CHUNK));
+    }
+
+    /**
+     * Picks where the chunks start. Every chunk but the first starts right after a ';'.
+     * @return the start offsets of the chunks followed by the length of the input.
+     */
+    private List<Integer> boundaries()
+    {
+        List<Integer> result = new ArrayList<Integer>();
+        result.add(0);
+        int length = src.length();
+        for (int k = 1; k < chunkCount; k++)
+        {
+            int i = Math.max((int)((long)length * k / chunkCount), result.get(result.size() - 1));
+            while (i < length && src.charAt(i) != ';')
+                i++;
+            if (i + 1 < length)
+                result.add(i + 1);
+        }
+        result.add(length);
+        return result;
+    }
+
+    /**
+     * Scans one chunk. Scanning stops at the first token that starts at or after the
+     * end of the chunk, or at the end of the input.
+     * @param from the offset to start scanning at.
+     * @param to the offset of the end of the chunk.
+     * @param firstLine the line number at offset from.
+     * @return the tokens of the chunk and where the next chunk has to carry on from,
+     * 		   or the error that stopped it.
+     */
+    private Chunk scanChunk(int from, int to, int firstLine)
+    {
+        Chunk chunk = new Chunk();
+        chunk.from = from;
+        chunk.to = to;
+        chunk.tokens = new TokenBuffer(src);
+        chunk.resumeOffset = from;
+        chunk.resumeLine = firstLine;
+        TableScanner sc = new TableScanner(src, from, src.length(), firstLine, new SymbolTable());
+        try
+        {
+            while (true)
+            {
+                TokenKind kind = sc.next();
+                int start = sc.getTokenStart();
+                if (kind == TokenKind.EOF && (start < to || to == src.length()))
+                {
+                    chunk.hitEnd = true;
+                    chunk.tokens.add(kind, null, 0, sc.getTokenLine(), start, start);
+                    return chunk;
+                }
+                if (start >= to)
+                    return chunk;
+                chunk.tokens.add(kind, sc.getSymbol(), sc.getValue(), sc.getTokenLine(),
+                                 start, sc.getTokenEnd());
+                chunk.resumeOffset = sc.getTokenEnd();
+                chunk.resumeLine = sc.getTokenLine();
+            }
+        }
+        catch (ScanErrorException | RuntimeException e)
+        {
+            chunk.error = e;
+            return chunk;
+        }
+    }
+
+    /**
+     * Scans the whole input.
+     * @return every token of the input in order, ending with an EOF token, with
+     * 		   identifiers interned in one SymbolTable.
+     * @throws ScanErrorException if an illegal character is present.
+     * @throws NumberFormatException if a number is too large to be an int.
+     */
+    public TokenBuffer scan() throws ScanErrorException
+    {
+        List<Integer> bounds = boundaries();
+        List<Callable<Chunk>> tasks = new ArrayList<Callable<Chunk>>();
+        for (int i = 0; i < bounds.size() - 1; i++)
+        {
+            int from = bounds.get(i);
+            int to = bounds.get(i + 1);
+            tasks.add(() -> scanChunk(from, to, 0));
+        }
+        List<Future<Chunk>> results = pool.invokeAll(tasks);
+
+        TokenBuffer all = new TokenBuffer(src);
+        SymbolTable table = new SymbolTable();
+        int offset = 0;
+        int line = 1;
+        for (Future<Chunk> future : results)
+        {
+            Chunk chunk = join(future);
+            int lineOffset = line;
+            if (chunk.from != offset || chunk.error != null)
+            {
+                chunk = scanChunk(offset, chunk.to, line);
+                lineOffset = 0;
+                if (chunk.error instanceof ScanErrorException)
+                    throw (ScanErrorException)chunk.error;
+                if (chunk.error != null)
+                    throw (RuntimeException)chunk.error;
+            }
+            all.append(chunk.tokens, chunk.tokens.size(), lineOffset, table);
+            if (chunk.hitEnd)
+                return all;
+            offset = chunk.resumeOffset;
+            line = chunk.resumeLine + lineOffset;
+        }
+        throw new IllegalStateException("The last chunk did not reach the end of the input.");
+    }
+
+    /**
+     * Waits for a chunk to be scanned.
+     * @param future the pending chunk.
+     * @return the scanned chunk.
+     * @throws IllegalStateException if the thread is interrupted while waiting.
+     */
+    private static Chunk join(Future<Chunk> future)
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error)
+                throw (Error)cause;
+            throw (RuntimeException)cause;
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while scanning.", e);
+        }
+    }
+
+    /**
+     * The main method that scans a file in parallel and prints its tokens.
+     * @param args list of arguments from the command line, the first one
+     * 		  being the name of the file to scan.
+     * @throws ScanErrorException if an illegal character is present in the file.
+     * @throws IOException if the file cannot be mapped.
+     */
+    public static void main(String [] args) throws ScanErrorException, IOException
+    {
+        String name = "ScannerTest.txt";
+        if (args.length > 0)
+            name = args[0];
+        TokenBuffer tokens = new ParallelScanner(SourceBuffer.map(new File(name))).scan();
+        for (int i = 0; i < tokens.size(); i++)
+            System.out.println(tokens.getLexeme(i));
+    }
+}
@@ -7,6 +7,7 @@ import ast.Condition;
 import ast.Expression;
 import ast.For;
 import ast.If;
+import ast.Negate;
 import ast.Number;
 import ast.ProcedureCall;
 import ast.ProcedureDeclaration;
@@ -24,50 +25,131 @@ import java.util.List;
 
 import scanner.ScanErrorException;
 import scanner.Scanner;
+import scanner.TokenKind;
+import scanner.TokenStream;
 /**
  * A top-down recursive descent parser that uses grammars and looks ahead tokens.
+ * Tokens come from a TokenStream as TokenKinds, so every decision is a switch or an ==
+ * on the kind, and identifiers arrive already interned.
+ * All of its state belongs to the instance, so separate Parsers can run on separate 
+ * threads at the same time.
  * @author Rakesh Nori
  * @version 4/6/2018
  *
  */
 public class Parser 
 {
-	Scanner sc;
-	static String currToken;
+	private static final int[] PRECEDENCE = new int[TokenKind.count()];
+	
+	static
+	{
+		PRECEDENCE[TokenKind.PLUS.ordinal()] = 1;
+		PRECEDENCE[TokenKind.MINUS.ordinal()] = 1;
+		PRECEDENCE[TokenKind.TIMES.ordinal()] = 2;
+		PRECEDENCE[TokenKind.DIVIDE.ordinal()] = 2;
+		PRECEDENCE[TokenKind.MOD.ordinal()] = 2;
+	}
+	
+	private TokenStream sc;
+	private TokenKind currToken;
 	
 	/**
-	 * The constructor for a parser that takes in a scanner and creates a 
-	 * current Token for parsing through and a map to store variables.
-	 * @param s the scanner being passed through into the constructor.
+	 * The constructor for a parser that takes in a token stream, such as a Scanner 
+	 * or a BufferScanner, and reads the first token.
+	 * @param s the token stream being passed through into the constructor.
 	 * @throws IOException if the BufferedReader in the scanner runs into an error.
 	 * @throws ScanErrorException if a scanning error occurs.
 	 */
-	public Parser(Scanner s) throws IOException, ScanErrorException
+	public Parser(TokenStream s) throws IOException, ScanErrorException
 	{
 		sc = s;
-		currToken = sc.nextToken();
+		currToken = sc.next();
+	}
+	
+	/**
+	 * Gets the token stream that this parser reads from.
+	 * @return the token stream.
+	 */
+	protected TokenStream getTokenStream()
+	{
+		return sc;
+	}
+	
+	/**
+	 * Gets the kind of the current token, which has not been eaten yet.
+	 * @return the kind of the current token.
+	 */
+	protected TokenKind getCurrentToken()
+	{
+		return currToken;
+	}
+	
+	/**
+	 * Gets how tightly a binary operator binds.
+	 * @param kind the kind of token.
+	 * @return 2 for *, / and mod, 1 for + and -, or 0 if the kind is not a binary operator.
+	 */
+	protected static int precedence(TokenKind kind)
+	{
+		return PRECEDENCE[kind.ordinal()];
 	}
 	
 	/**
-	 * moves one token ahead in the Scanner. Also checks if the string in the parameter 
+	 * moves one token ahead in the token stream. Also checks if the kind in the parameter 
 	 * is the expected one in currToken.
-	 * @param str the String that is expected to be in currToken
+	 * @param expected the TokenKind that is expected to be in currToken
 	 * @throws IOException if the BufferedReader in the scanner runs into an error.
 	 * @throws ScanErrorException if a scanning error occurs.
-	 * @throws IllegalArgumentException If currToken and str do not match.
+	 * @throws IllegalArgumentException If currToken and expected do not match.
 	 * @postcondition the token has moved one ahead.
 	 */
-	private void eat(String str) throws ScanErrorException, IOException
+	protected void eat(TokenKind expected) throws ScanErrorException, IOException
 	{
-		if (str.equals(currToken))
-		{
-			currToken = sc.nextToken();
-			if (currToken.equals("mod"))
-				currToken = "%";
-		}
+		if (currToken == expected)
+			currToken = sc.next();
 		else
-			throw new IllegalArgumentException("Expected " + str + ", but had " +
-												currToken +" instead.");
+			throw new IllegalArgumentException("Expected " + describe(expected) + 
+								", but had " + describeCurrent() + " instead.");
+	}
+	
+	/**
+	 * Eats an identifier.
+	 * @return the interned name of the identifier.
+	 * @throws IOException if the BufferedReader in the scanner runs into an error.
+	 * @throws ScanErrorException if a scanning error occurs.
+	 * @throws IllegalArgumentException If currToken is not an identifier.
+	 */
+	protected String eatIdentifier() throws ScanErrorException, IOException
+	{
+		String name = sc.getSymbol();
+		eat(TokenKind.IDENTIFIER);
+		return name;
+	}
+	
+	/**
+	 * Describes a kind of token for error messages.
+	 * @param kind the kind of token.
+	 * @return the spelling of the kind, or its name if it has no fixed spelling.
+	 */
+	private static String describe(TokenKind kind)
+	{
+		if (kind.getText() == null)
+			return kind.name().toLowerCase();
+		return kind.getText();
+	}
+	
+	/**
+	 * Describes the current token for error messages.
+	 * @return the current token as it was written, with its line number.
+	 */
+	protected String describeCurrent()
+	{
+		String text = sc.getSymbol();
+		if (currToken == TokenKind.NUMBER)
+			text = "" + sc.getValue();
+		else if (text == null)
+			text = describe(currToken);
+		return text + " on line " + sc.getTokenLine();
 	}
 	
 	/**
@@ -80,46 +162,42 @@ public class Parser
 	 */
 	private Expression parseNumber() throws ScanErrorException, IOException
 	{
-		int num = 0;
-		if (isIdentifier(currToken))
+		if (currToken == TokenKind.IDENTIFIER)
 		{
-			String curr = currToken;
-			eat(curr);
-			if(currToken.equals("("))
+			String curr = eatIdentifier();
+			if (currToken == TokenKind.LPAREN)
 			{
-				eat("(");
+				eat(TokenKind.LPAREN);
 				Expression call = null;
-				if(currToken.equals(")"))
+				if (currToken == TokenKind.RPAREN)
 				{
 					call = new ProcedureCall(curr, null);
 				}
 				else
 				{
 					List<Expression> args = new ArrayList<Expression>();
-					while (!currToken.equals(")"))
+					while (currToken != TokenKind.RPAREN)
 					{
 						args.add(parseExp());
-						if (currToken.equals(","))
-							eat(",");
+						if (currToken == TokenKind.COMMA)
+							eat(TokenKind.COMMA);
 					}
 					call = new ProcedureCall(curr, args);
 				}
-				eat(")");
+				eat(TokenKind.RPAREN);
 				return call;
 			}
 			Expression vr = new Variable(curr);
 			return vr;
 		}
-		else
-		{
-			num = Integer.parseInt(currToken);
-			eat(currToken);
-		}
+		int num = sc.getValue();
+		eat(TokenKind.NUMBER);
 		return new Number(num);
 	}
 	
 	/**
 	 * Parses through a factor, accounting for negative signs and parentheses.
+	 * A negative sign in front of a number is folded into the Number itself.
 	 * @return the Expression representing the value of the factor after the method finishes.
 	 * @throws IOException if the BufferedReader in the scanner runs into an error.
 	 * @throws ScanErrorException if a scanning error occurs.
@@ -127,106 +205,96 @@ public class Parser
 	 */
 	public Expression parseFactor() throws ScanErrorException, IOException
 	{
-		if (currToken.equals("("))
-		{
-			eat(currToken);
-			Expression val = parseExp();
-			eat(")");
-			return val;
-		}
-		else if (currToken.equals("-"))
-		{
-			eat(currToken);
-			return new BinOp("-", new Number(0), parseFactor());
-		}
-		else if (currToken.equals(")"))
+		switch (currToken)
 		{
-			throw new IllegalArgumentException("Empty incorrect ) in the text.");
-		}
-		else
-		{
-			return parseNumber();
+			case LPAREN:
+				eat(TokenKind.LPAREN);
+				Expression val = parseExp();
+				eat(TokenKind.RPAREN);
+				return val;
+			case MINUS:
+				eat(TokenKind.MINUS);
+				Expression inner = parseFactor();
+				if (inner instanceof Number)
+					return new Number(-((Number)inner).getValue());
+				return new Negate(inner);
+			case RPAREN:
+				throw new IllegalArgumentException("Empty incorrect ) in the text.");
+			default:
+				return parseNumber();
 		}
 	}
 	
 	/**
-	 * Parses through a term and accounts for multiplication, division, and mods.
-	 * Uses parseFactor as a helper.
-	 * @return BinOp object representing the value of the term when evaluated.
+	 * parses an Expression, accounting for all the operations by precedence climbing.
+	 * @return the BinOp representing the value of the Expression when evaluated.
 	 * @throws IOException if the BufferedReader in the scanner runs into an error.
 	 * @throws ScanErrorException if a scanning error occurs.
 	 */
-	public Expression parseTerm() throws ScanErrorException, IOException
+	public Expression parseExp() throws ScanErrorException, IOException
 	{
-		Expression init = parseFactor();
-		//System.out.println(currToken);
-		while (currToken.equals("*")|| currToken.equals("/") || currToken.equals("%"))
-		{
-			if (currToken.equals("*"))
-			{
-				eat("*");
-				init = new BinOp("*", init, parseFactor());
-			}
-			else if (currToken.equalsIgnoreCase("%"))
-			{
-				eat("%");
-				init = new BinOp("%", init, parseFactor());
-			}
-			else
-			{
-				eat("/");
-				init = new BinOp("/", init, parseFactor());
-			}
-		}
-		return init;
+		return parseExp(1);
 	}
 	
 	/**
-	 * parses an Expression, accounting for all the operations by using parseTerm and parseFactor.
-	 * @return the BinOp representing the value of the Expression when evaluated.
+	 * Parses an Expression whose operators all bind at least as tightly as minPrec.
+	 * Each operator is looked up once in PRECEDENCE, and the right side of a 
+	 * left associative operator is parsed one level tighter than the operator itself.
+	 * @param minPrec the lowest precedence that may be used at this level.
+	 * @return the Expression that was parsed.
 	 * @throws IOException if the BufferedReader in the scanner runs into an error.
 	 * @throws ScanErrorException if a scanning error occurs.
 	 */
-	public Expression parseExp() throws ScanErrorException, IOException
+	private Expression parseExp(int minPrec) throws ScanErrorException, IOException
 	{
-		Expression init = parseTerm();
-		while (currToken.equals("+") || currToken.equals("-"))
+		Expression left = parseFactor();
+		int prec = PRECEDENCE[currToken.ordinal()];
+		while (prec >= minPrec)
 		{
-			if (currToken.equals("+"))
-			{
-				eat("+");
-				init = new BinOp("+", init, parseTerm());
-			}
-			else
-			{
-				eat("-");
-				init = new BinOp("-", init, parseTerm());
-			}
+			TokenKind op = currToken;
+			eat(op);
+			left = BinOp.create(op.getText(), left, parseExp(prec + 1));
+			prec = PRECEDENCE[currToken.ordinal()];
 		}
-		return init; 
+		return left;
 	}
 	
 	/**
-	 * Checks if a given token is an identifier or not.
-	 * @param s the token being checked for being an identifier
-	 * @return true if it is an identifier; otherwise,
-	 * 		   false.
+	 * Parses a Condition, which is two Expressions around a relational operator.
+	 * @return the Condition that was parsed.
+	 * @throws IOException if the BufferedReader in the scanner runs into an error.
+	 * @throws ScanErrorException if a scanning error occurs.
+	 * @throws IllegalArgumentException if there is no relational operator.
+	 */
+	protected Condition parseCondition() throws ScanErrorException, IOException
+	{
+		Expression e1 = parseExp();
+		TokenKind op = currToken;
+		if (!op.isRelational())
+			throw new IllegalArgumentException("Expected a relational operator, but had " 
+												+ describeCurrent() + " instead.");
+		eat(op);
+		Expression e2 = parseExp();
+		return Condition.create(e1, op.getText(), e2);
+	}
+	
+	/**
+	 * Parses a list of identifiers separated by commas, up to the given kind of token.
+	 * @param end the kind of token that ends the list, which is not eaten.
+	 * @return the names in the list.
+	 * @throws IOException if the BufferedReader in the scanner runs into an error.
+	 * @throws ScanErrorException if a scanning error occurs.
 	 */
-	private boolean isIdentifier(String s)
+	protected List<String> parseNames(TokenKind end) throws ScanErrorException, IOException
 	{
-		char input = s.charAt(0); 
-		if ((input >= 'A' && input <= 'Z') || (input >= 'a' && input <= 'z'))
+		List<String> names = new ArrayList<String>();
+		while (currToken != end)
 		{
-			for (int i = 1; i < currToken.length(); i++)
-			{
-				input = s.charAt(i);
-				if (!((input >= 'A' && input <= 'Z') || (input >= 'a' && input <= 'z')
-					|| (input >= '0' && input <= '9')))
-					return false;
-			}
-			return true;
+			names.add(eatIdentifier());
+			if (currToken == TokenKind.COMMA)
+				eat(TokenKind.COMMA);
 		}
-		return false;
+		return names;
 	}
 	
 	/**
@@ -238,95 +306,90 @@ public class Parser
 	 */
 	public Statement parseStatement() throws ScanErrorException, IOException
 	{
-		if (currToken.equals("WRITELN"))
-		{
-			eat("WRITELN");
-			eat("(");
-			Expression n = parseExp();
-			eat(")");
-			eat(";");
-			return new Writeln(n);
-		}
-		else if (currToken.equals("IF"))
+		switch (currToken)
 		{
-			eat("IF");
-			Expression e1 = parseExp();
-			String op = currToken;
-			eat(op);
-			Expression e2 = parseExp();
-			eat("THEN");
-			Statement res = parseStatement();
-			Statement other = null;
-			if (currToken.equals("ELSE"))
+			case WRITELN:
 			{
-				eat("ELSE");
-				other = parseStatement();
+				eat(TokenKind.WRITELN);
+				eat(TokenKind.LPAREN);
+				Expression n = parseExp();
+				eat(TokenKind.RPAREN);
+				eat(TokenKind.SEMICOLON);
+				return new Writeln(n);
 			}
-			Statement iffy = new If(new Condition(e1, op, e2), res, other);
-			return iffy;
-		}
-		else if (currToken.equals("WHILE"))
-		{
-			eat("WHILE");
-			Expression e1 = parseExp();
-			String op = currToken;
-			eat(op);
-			Expression e2 = parseExp();
-			eat("DO");
-			Statement res = parseStatement();
-			Statement willy = new While(new Condition(e1, op, e2), res);
-			return willy;
-		}
-		else if (currToken.equals("FOR"))
-		{
-			eat("FOR");
-			String checker = currToken;
-			eat(checker);
-			eat(":=");
-			Expression val = parseExp();
-			Assignment a = new Assignment(val, checker);
-			eat("TO");
-			Expression limit = parseExp();
-			eat("DO");
-			Statement res = parseStatement();
-			Condition c = new Condition(val, "<", limit);
-			Statement forey = new For(c, res, a, checker, limit);
-			return forey;
-		}
-		else if (currToken.equals("READLN"))
-		{
-			eat(currToken);
-			eat("(");
-			String var = currToken;
-			eat(var);
-			Statement read = new Readln(var);
-			eat(")");
-			eat(";");
-			return read;
-		}
-		else if (currToken.equals("BEGIN"))
-		{
-			eat("BEGIN");
-			ArrayList<Statement> smnts = new ArrayList<Statement>();
-			while(!currToken.equals("END"))
+			case IF:
 			{
-				smnts.add(parseStatement());
+				eat(TokenKind.IF);
+				Condition c = parseCondition();
+				eat(TokenKind.THEN);
+				Statement res = parseStatement();
+				Statement other = null;
+				if (currToken == TokenKind.ELSE)
+				{
+					eat(TokenKind.ELSE);
+					other = parseStatement();
+				}
+				Statement iffy = new If(c, res, other);
+				return iffy;
 			}
-			Statement block = new Block(smnts);
-			eat ("END");
-			eat(";");
-			return block;	
-		}
-		else if (isIdentifier(currToken))
-		{
-			String x = currToken;
-			eat(x);
-			eat(":=");
-			Expression val = parseExp();
-			eat(";");
-			return new Assignment(val, x);  
+			case WHILE:
+			{
+				eat(TokenKind.WHILE);
+				Condition c = parseCondition();
+				eat(TokenKind.DO);
+				Statement res = parseStatement();
+				Statement willy = new While(c, res);
+				return willy;
+			}
+			case FOR:
+			{
+				eat(TokenKind.FOR);
+				String checker = eatIdentifier();
+				eat(TokenKind.ASSIGN);
+				Expression val = parseExp();
+				Assignment a = new Assignment(val, checker);
+				eat(TokenKind.TO);
+				Expression limit = parseExp();
+				eat(TokenKind.DO);
+				Statement res = parseStatement();
+				Condition c = Condition.create(val, "<", limit);
+				Statement forey = new For(c, res, a, checker, limit);
+				return forey;
+			}
+			case READLN:
+			{
+				eat(TokenKind.READLN);
+				eat(TokenKind.LPAREN);
+				String var = eatIdentifier();
+				Statement read = new Readln(var);
+				eat(TokenKind.RPAREN);
+				eat(TokenKind.SEMICOLON);
+				return read;
+			}
+			case BEGIN:
+			{
+				eat(TokenKind.BEGIN);
+				ArrayList<Statement> smnts = new ArrayList<Statement>();
+				while (currToken != TokenKind.END)
+				{
+					smnts.add(parseStatement());
+				}
+				Statement block = new Block(smnts);
+				eat(TokenKind.END);
+				eat(TokenKind.SEMICOLON);
+				return block;
+			}
+			case IDENTIFIER:
+			{
+				String x = eatIdentifier();
+				eat(TokenKind.ASSIGN);
+				Expression val = parseExp();
+				eat(TokenKind.SEMICOLON);
+				return new Assignment(val, x);
+			}
+			default:
+				return null;
 		}
-		return null;
 	}
 	
 	/**
@@ -338,47 +401,28 @@ public class Parser
 	public Program parseProgram() throws ScanErrorException, IOException
 	{
 		List<String> vars = new ArrayList<String>();
-		List<String> locals = new ArrayList<String>();
-		while (currToken.equals("VAR"))
+		while (currToken == TokenKind.VAR)
 		{
-			eat("VAR");
-			while (!currToken.equals(";"))
-			{
-				vars.add(currToken);
-				eat(currToken);
-				if (currToken.equals(","))
-					eat(",");
-			}
-			eat(";");
+			eat(TokenKind.VAR);
+			vars.addAll(parseNames(TokenKind.SEMICOLON));
+			eat(TokenKind.SEMICOLON);
 		}
 		List<ProcedureDeclaration> prods = new ArrayList<ProcedureDeclaration>();
-		List<String> params = new ArrayList<String>();
-		while (currToken.equals("PROCEDURE"))
+		while (currToken == TokenKind.PROCEDURE)
 		{
-			eat("PROCEDURE");
-			String id = currToken;
-			eat(id);
-			eat("(");
-			while (!currToken.equals(")"))
-			{
-				params.add(currToken);
-				eat(currToken);
-				if (currToken.equals(","))
-					eat(",");
-			}
-			eat(")");
-			eat(";");
-			if (currToken.equals("VAR"))
+			List<String> params = new ArrayList<String>();
+			List<String> locals = new ArrayList<String>();
+			eat(TokenKind.PROCEDURE);
+			String id = eatIdentifier();
+			eat(TokenKind.LPAREN);
+			params.addAll(parseNames(TokenKind.RPAREN));
+			eat(TokenKind.RPAREN);
+			eat(TokenKind.SEMICOLON);
+			if (currToken == TokenKind.VAR)
 			{
-				eat("VAR");
-				while (!currToken.equals(";"))
-				{
-					locals.add(currToken);
-					eat(currToken);
-					if (currToken.equals(","))
-						eat(",");
-				}
-				eat(";");
+				eat(TokenKind.VAR);
+				locals.addAll(parseNames(TokenKind.SEMICOLON));
+				eat(TokenKind.SEMICOLON);
 			}
 			Statement res = parseStatement();
 			prods.add(new ProcedureDeclaration(id, res, params, locals));
@@ -402,7 +446,15 @@ public class Parser
 		Environment env = new Environment(null);
 		Statement parse = p.parseProgram();
 		parse.exec(env);
-		parse.compile(new Emitter("/Users/RakeshNori/Desktop/2017-18 School Year/Compilers & Interpreters/Code Generation Lab/result.asm"));
+		Emitter e = new Emitter("/Users/RakeshNori/Desktop/2017-18 School Year/Compilers & Interpreters/Code Generation Lab/result.asm");
+		try
+		{
+			parse.compile(e);
+		}
+		finally
+		{
+			e.close();
+		}
 		
 		
 	}
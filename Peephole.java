@@ -0,0 +1,265 @@
+package emitter;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The Peephole optimizer removes wasted instructions from the MIPS an Emitter has
+ * buffered, by looking at a few instructions in a row at a time. A Label, a comment
+ * or a directive between two instructions ends the window, since code can jump to a
+ * Label. The rules are: a push followed by a pop is cancelled, or becomes a move if
+ * the registers differ; two adjustments of $sp in a row are merged; a load from an
+ * address that was just stored to or loaded from becomes a move, or is removed; a
+ * move out of a register that is overwritten right after is folded into the
+ * instruction that set the register; a move of a register to itself is removed; and
+ * a jump to the label right after it is removed. Every pass reads one
+ * InstructionBuffer and fills a new one, and passes are made until none of the rules
+ * changes anything, since one rule often makes room for another.
+ * @author Rakesh Nori
+ * @version 7/5/2018
+ * Usage:
+ * InstructionBuffer optimized = Peephole.optimize(code);
+ */
+public class Peephole
+{
+	/**
+	 * The instructions whose first operand is the only register they write.
+	 */
+	private static final List<String> WRITES_FIRST = Arrays.asList("li", "la", "lw",
+			"move", "addu", "subu", "addiu", "mflo", "mfhi");
+
+	private static final Operand SP = Operand.register("$sp");
+	private static final Operand TOP = Operand.memory(0, "$sp");
+
+	/**
+	 * Optimizes the code in a buffer.
+	 * @param code the InstructionBuffer, which is not changed.
+	 * @return a new InstructionBuffer with the optimized code.
+	 */
+	public static InstructionBuffer optimize(InstructionBuffer code)
+	{
+		boolean changed = true;
+		while (changed)
+		{
+			changed = false;
+			InstructionBuffer out = new InstructionBuffer(code.size());
+			int i = 0;
+			while (i < code.size())
+			{
+				int used = rewrite(code, i, out);
+				if (used > 0)
+				{
+					changed = true;
+					i += used;
+				}
+				else
+					out.add(code.get(i++));
+			}
+			code = out;
+		}
+		return code;
+	}
+
+	/**
+	 * Applies the first rule that matches at a position.
+	 * @param code the buffer being read.
+	 * @param i the position.
+	 * @param out the buffer being filled, which gets the replacement.
+	 * @return how many Instructions of code were replaced, or 0 if no rule matched.
+	 */
+	private static int rewrite(InstructionBuffer code, int i, InstructionBuffer out)
+	{
+		int used = cancelPushPop(code, i, out);
+		if (used == 0)
+			used = mergeStackAdjustments(code, i, out);
+		if (used == 0)
+			used = removeRedundantLoad(code, i, out);
+		if (used == 0)
+			used = foldMove(code, i, out);
+		if (used == 0)
+			used = removeSelfMove(code, i);
+		if (used == 0)
+			used = removeJumpToNext(code, i);
+		return used;
+	}
+
+	/**
+	 * Gets the instructions in a window of consecutive Instructions.
+	 * @param code the buffer.
+	 * @param i the first Instruction of the window.
+	 * @param n the number of Instructions in the window.
+	 * @return the Instructions, or null if the window runs past the end or one of
+	 * 		   them is not executable.
+	 */
+	private static Instruction[] window(InstructionBuffer code, int i, int n)
+	{
+		if (i + n > code.size())
+			return null;
+		Instruction[] w = new Instruction[n];
+		for (int k = 0; k < n; k++)
+		{
+			w[k] = code.get(i + k);
+			if (!w[k].isExecutable())
+				return null;
+		}
+		return w;
+	}
+
+	/**
+	 * Checks if an instruction is an adjustment of $sp by a constant.
+	 * @param ins the instruction.
+	 * @return true if it is addu or subu of $sp and a number into $sp; otherwise, false.
+	 */
+	private static boolean isStackAdjustment(Instruction ins)
+	{
+		return (ins.is("addu") || ins.is("subu")) && ins.getOperandCount() == 3
+			   && ins.getOperand(0).equals(SP) && ins.getOperand(1).equals(SP)
+			   && ins.getOperand(2).getKind() == Operand.Kind.IMMEDIATE;
+	}
+
+	/**
+	 * Gets how much an adjustment of $sp moves it.
+	 * @param ins the adjustment.
+	 * @return the change in $sp.
+	 */
+	private static int adjustment(Instruction ins)
+	{
+		int k = ins.getOperand(2).getValue();
+		return ins.is("addu") ? k : -k;
+	}
+
+	/**
+	 * Checks if an instruction is a load or store of a register and a memory operand.
+	 * @param ins the instruction.
+	 * @param name "lw" or "sw".
+	 * @return true if it is; otherwise, false.
+	 */
+	private static boolean isMemory(Instruction ins, String name)
+	{
+		return ins.is(name) && ins.getOperandCount() == 2 && ins.getOperand(0).isRegister();
+	}
+
+	/**
+	 * Cancels a push that is popped right away: subu $sp, sw A, lw B, addu $sp.
+	 * @param code the buffer being read.
+	 * @param i where the push starts.
+	 * @param out the buffer being filled.
+	 * @return 4 if the push and pop were replaced; otherwise, 0.
+	 */
+	private static int cancelPushPop(InstructionBuffer code, int i, InstructionBuffer out)
+	{
+		Instruction[] w = window(code, i, 4);
+		if (w == null || !isStackAdjustment(w[0]) || adjustment(w[0]) != -4
+			|| !isMemory(w[1], "sw") || !w[1].getOperand(1).equals(TOP)
+			|| !isMemory(w[2], "lw") || !w[2].getOperand(1).equals(TOP)
+			|| !isStackAdjustment(w[3]) || adjustment(w[3]) != 4)
+			return 0;
+		if (!w[1].getOperand(0).equals(w[2].getOperand(0)))
+			out.add(new Instruction("move", w[2].getOperand(0), w[1].getOperand(0)));
+		return 4;
+	}
+
+	/**
+	 * Merges two adjustments of $sp in a row into one, or removes both if they cancel.
+	 * @param code the buffer being read.
+	 * @param i the first adjustment.
+	 * @param out the buffer being filled.
+	 * @return 2 if the adjustments were replaced; otherwise, 0.
+	 */
+	private static int mergeStackAdjustments(InstructionBuffer code, int i,
+											 InstructionBuffer out)
+	{
+		Instruction[] w = window(code, i, 2);
+		if (w == null || !isStackAdjustment(w[0]) || !isStackAdjustment(w[1]))
+			return 0;
+		int net = adjustment(w[0]) + adjustment(w[1]);
+		if (net != 0)
+			out.add(new Instruction(net > 0 ? "addu" : "subu", SP, SP,
+									Operand.immediate(Math.abs(net))));
+		return 2;
+	}
+
+	/**
+	 * Removes a load from the address the instruction before it stored to or loaded
+	 * from, using the register that already holds the value.
+	 * @param code the buffer being read.
+	 * @param i the store or first load.
+	 * @param out the buffer being filled.
+	 * @return 2 if the load was replaced; otherwise, 0.
+	 */
+	private static int removeRedundantLoad(InstructionBuffer code, int i, InstructionBuffer out)
+	{
+		Instruction[] w = window(code, i, 2);
+		if (w == null || !(isMemory(w[0], "sw") || isMemory(w[0], "lw"))
+			|| !isMemory(w[1], "lw") || !w[0].getOperand(1).equals(w[1].getOperand(1)))
+			return 0;
+		Operand held = w[0].getOperand(0);
+		if (w[0].is("lw") && w[0].getOperand(1).uses(held))
+			return 0;
+		out.add(w[0]);
+		if (!held.equals(w[1].getOperand(0)))
+			out.add(new Instruction("move", w[1].getOperand(0), held));
+		return 2;
+	}
+
+	/**
+	 * Folds "op A, ...; move B, A" into "op B, ..." when the instruction after the
+	 * move overwrites A without reading it, so the value in A is never used.
+	 * @param code the buffer being read.
+	 * @param i the instruction that sets A.
+	 * @param out the buffer being filled.
+	 * @return 2 if the instruction and the move were replaced; otherwise, 0.
+	 */
+	private static int foldMove(InstructionBuffer code, int i, InstructionBuffer out)
+	{
+		Instruction[] w = window(code, i, 3);
+		if (w == null || !WRITES_FIRST.contains(w[0].getOp()) || w[0].getOperandCount() < 2
+			|| !w[1].is("move") || !w[1].getOperand(1).equals(w[0].getOperand(0))
+			|| !WRITES_FIRST.contains(w[2].getOp()) || w[2].getOperandCount() < 2
+			|| !w[2].getOperand(0).equals(w[0].getOperand(0)))
+			return 0;
+		Operand a = w[0].getOperand(0);
+		for (int k = 1; k < w[2].getOperandCount(); k++)
+		{
+			if (w[2].getOperand(k).uses(a))
+				return 0;
+		}
+		out.add(w[0].withOperand(0, w[1].getOperand(0)));
+		return 2;
+	}
+
+	/**
+	 * Removes a move of a register to itself.
+	 * @param code the buffer being read.
+	 * @param i the move.
+	 * @return 1 if the move was removed; otherwise, 0.
+	 */
+	private static int removeSelfMove(InstructionBuffer code, int i)
+	{
+		Instruction[] w = window(code, i, 1);
+		if (w == null || !w[0].is("move") || w[0].getOperandCount() != 2
+			|| !w[0].getOperand(0).equals(w[0].getOperand(1)))
+			return 0;
+		return 1;
+	}
+
+	/**
+	 * Removes an unconditional jump to a Label that comes right after it.
+	 * @param code the buffer being read.
+	 * @param i the jump.
+	 * @return 1 if the jump was removed; otherwise, 0.
+	 */
+	private static int removeJumpToNext(InstructionBuffer code, int i)
+	{
+		Instruction[] w = window(code, i, 1);
+		if (w == null || !(w[0].is("j") || w[0].is("b")) || w[0].getOperandCount() != 1)
+			return 0;
+		String target = w[0].getOperand(0).getName();
+		for (int k = i + 1; k < code.size() && code.get(k).isLabel(); k++)
+		{
+			if (((Label)code.get(k)).getName().equals(target))
+				return 1;
+		}
+		return 0;
+	}
+}
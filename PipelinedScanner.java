@@ -0,0 +1,209 @@
+package scanner;
+import java.io.*;
+import java.lang.ref.Cleaner;
+
+/**
+ * PipelinedScanner runs another TokenStream on its own thread, so reading the input,
+ * scanning it and parsing it can all happen at the same time. The scanning thread puts
+ * tokens into batches and publishes them through a TokenRing; the Parser reads them
+ * back through this class, which is itself a TokenStream. A full ring makes the
+ * scanning thread wait for the parser. An error from the scanning thread is thrown
+ * to the parser when it reaches the token where the error happened.
+ * Closing the PipelinedScanner stops the scanning thread, and the parser should close
+ * it even when it throws. If it is dropped without being closed, the ring is closed
+ * once the PipelinedScanner has been garbage collected, so a scanning thread waiting
+ * on a full ring does not wait forever.
+ * @author Rakesh Nori
+ * @version 6/16/2018
+ * Usage:
+ * try (PipelinedScanner lex = new PipelinedScanner(new TableScanner(SourceBuffer.map(<file>))))
+ * {
+ *     Program p = new Parser(lex).parseProgram();
+ * }
+ */
+public class PipelinedScanner implements TokenStream, AutoCloseable
+{
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    /**
+     * The scanning thread. It only refers to the ring and the source, never to the
+     * PipelinedScanner, so the PipelinedScanner can be collected while it waits.
+     */
+    private static final class Producer implements Runnable
+    {
+        private TokenStream source;
+        private TokenRing ring;
+        private int batchSize;
+        private volatile Exception failure;
+
+        /**
+         * Creates a Producer.
+         * @param src the TokenStream being scanned.
+         * @param r the ring the batches are published through.
+         * @param batch how many tokens are published together.
+         */
+        Producer(TokenStream src, TokenRing r, int batch)
+        {
+            source = src;
+            ring = r;
+            batchSize = batch;
+        }
+
+        /**
+         * Fills batches until the end of the input, an error, or the consumer
+         * closing the ring.
+         */
+        public void run()
+        {
+            try
+            {
+                TokenBuffer batch = ring.claim();
+                while (batch != null)
+                {
+                    TokenKind kind = source.next();
+                    batch.add(kind, source.getSymbol(), source.getValue(), source.getTokenLine(), 0, 0);
+                    if (kind == TokenKind.EOF)
+                    {
+                        ring.publish();
+                        return;
+                    }
+                    if (batch.size() == batchSize)
+                    {
+                        ring.publish();
+                        batch = ring.claim();
+                    }
+                }
+            }
+            catch (ScanErrorException | IOException | RuntimeException e)
+            {
+                failure = e;
+                ring.publish();
+            }
+            finally
+            {
+                ring.finish();
+            }
+        }
+    }
+
+    private TokenRing ring;
+    private Producer producer;
+    private Cleaner.Cleanable cleanable;
+    private TokenBuffer current;
+    private int index;
+
+    /**
+     * Creates a PipelinedScanner with batches of 1024 tokens and a ring of 16 batches,
+     * and starts the scanning thread.
+     * @param source the TokenStream to run on the scanning thread.
+     */
+    public PipelinedScanner(TokenStream source)
+    {
+        this(source, 1024, 16);
+    }
+
+    /**
+     * Creates a PipelinedScanner and starts the scanning thread.
+     * @param source the TokenStream to run on the scanning thread.
+     * @param batch how many tokens are published together.
+     * @param capacity how many batches can be waiting for the parser.
+     */
+    public PipelinedScanner(TokenStream source, int batch, int capacity)
+    {
+        ring = new TokenRing(capacity, null);
+        producer = new Producer(source, ring, batch);
+        cleanable = CLEANER.register(this, ring::close);
+        Thread thread = new Thread(producer, "scanner");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Moves to the next token, waiting for the scanning thread if needed.
+     * Once the EOF token has been reached, the stream stays on it.
+     * @return the kind of the new current token.
+     * @throws ScanErrorException if the scanning thread found an illegal character.
+     * @throws IOException if the scanning thread could not read the input.
+     */
+    public TokenKind next() throws ScanErrorException, IOException
+    {
+        while (current == null || index + 1 >= current.size())
+        {
+            if (current != null && current.size() > 0
+                && current.kindAt(current.size() - 1) == TokenKind.EOF)
+                return TokenKind.EOF;
+            if (current != null)
+                ring.release();
+            current = ring.take();
+            index = -1;
+            if (current == null)
+                rethrow();
+        }
+        index++;
+        return current.kindAt(index);
+    }
+
+    /**
+     * Throws the error that stopped the scanning thread.
+     * @throws ScanErrorException if the scanning thread found an illegal character.
+     * @throws IOException if the scanning thread could not read the input.
+     */
+    private void rethrow() throws ScanErrorException, IOException
+    {
+        Exception e = producer.failure;
+        if (e instanceof ScanErrorException)
+            throw (ScanErrorException)e;
+        if (e instanceof IOException)
+            throw (IOException)e;
+        if (e instanceof RuntimeException)
+            throw (RuntimeException)e;
+        throw new IllegalStateException("The scanning thread stopped before the end of the input.");
+    }
+
+    /**
+     * Gets the kind of the current token.
+     * @return the kind of the current token.
+     */
+    public TokenKind getKind()
+    {
+        if (current == null || index < 0)
+            return TokenKind.EOF;
+        return current.kindAt(index);
+    }
+
+    /**
+     * Gets the symbol of the current token.
+     * @return the symbol of the current token, null for a number.
+     */
+    public String getSymbol()
+    {
+        return current.symbolAt(index);
+    }
+
+    /**
+     * Gets the value of the current token if it is a number.
+     * @return the value of the current number.
+     */
+    public int getValue()
+    {
+        return current.valueAt(index);
+    }
+
+    /**
+     * Gets the line the current token is on.
+     * @return the line number of the current token.
+     */
+    public int getTokenLine()
+    {
+        return current.lineAt(index);
+    }
+
+    /**
+     * Stops the scanning thread if it is still running, for when the parser
+     * stops before the end of the input.
+     */
+    public void close()
+    {
+        cleanable.clean();
+    }
+}
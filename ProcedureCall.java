@@ -1,10 +1,21 @@
 package ast;
 
+import java.lang.invoke.MethodHandle;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
 
 import emitter.Emitter;
+import emitter.Operand;
 import environment.Environment;
+import environment.Frame;
+import environment.FrameStack;
+import environment.MemoTable;
+import vm.Bytecode;
+import vm.BytecodeEmitter;
+import vm.Tiers;
 
 /**
  * The Procedure Call class is responsible for executing a Procedure 
@@ -16,6 +27,7 @@ public class ProcedureCall extends Expression
 {
 	private String s;
 	private List<Expression> exps;
+	private ProcedureDeclaration proc;
 	
 	/**
 	 * Makes a new ProcedureCall object with the String 
@@ -32,32 +44,304 @@ public class ProcedureCall extends Expression
 	/**
 	 * Evaluates the Procedure Call and sets the values of all the arguments.
 	 * by taking the resulting statement from the declaration and executing it.
+	 * A memoized procedure is only run if its MemoTable does not have the result.
 	 * @return the value of the variable associated with the procedure call.
 	 * @param env the environment that the current call is in.
 	 */
 	public int eval (Environment env)
+	{
+		int[] values = null;
+		if (exps != null)
+		{
+			values = new int[exps.size()];
+			for (int i = 0; i < values.length; i++)
+				values[i] = exps.get(i).eval(env);
+		}
+		MemoTable memo = env.proGet(s).getMemo();
+		int[] key = values == null ? new int[0] : values;
+		if (memo != null)
+		{
+			Integer known = memo.get(key);
+			if (known != null)
+				return known;
+		}
+		Environment child = enter(env, values);
+		ProcedureDeclaration a = child.proGet(s);
+		a.getBody().exec(a.getLocalEnvironment());
+		int result = leave(child);
+		if (memo != null)
+			memo.put(key, result);
+		return result;
+	}
+	
+	/**
+	 * Resolves the arguments and finds the ProcedureDeclaration being called.
+	 * @param r the Resolver being used.
+	 * @throws IllegalArgumentException if the procedure was never declared, or it is
+	 * 		   given the wrong number of arguments.
+	 */
+	public void resolve(Resolver r)
+	{
+		proc = r.getProcedure(s);
+		int given = 0;
+		if (exps != null)
+		{
+			given = exps.size();
+			for (Expression e : exps)
+				e.resolve(r);
+		}
+		if (proc.getArgs().size() != given)
+			throw new IllegalArgumentException("Parameters stated "
+					+ "in the declaration of the method "
+					+ "do not match arguments given.");
+	}
+	
+	/**
+	 * Parallelizes the arguments of the call.
+	 * @param pure the pure procedures, as found by Purity.
+	 * @param cutoff how many forks can enclose each other before evaluation 
+	 * 		  turns sequential.
+	 * @return this ProcedureCall.
+	 */
+	public Expression parallelize(Set<ProcedureDeclaration> pure, int cutoff)
+	{
+		if (exps != null)
+		{
+			for (int i = 0; i < exps.size(); i++)
+				exps.set(i, exps.get(i).parallelize(pure, cutoff));
+		}
+		return this;
+	}
+	
+	/**
+	 * Evaluates the arguments in the caller's Frame, stores them in a Frame from 
+	 * the thread's FrameStack and executes the procedure's body in it. Once the 
+	 * procedure is hot, the arguments are passed to its compiled code instead. 
+	 * A memoized procedure stays interpreted, so every call goes through its MemoTable, 
+	 * and so does every procedure and loop that can call it.
+	 * @param frame the Frame that the current call is in.
+	 * @return the value the procedure assigned to its name.
+	 */
+	public int eval(Frame frame)
+	{
+		MemoTable memo = proc.getMemo();
+		if (memo != null)
+		{
+			int[] values = new int[exps == null ? 0 : exps.size()];
+			for (int i = 0; i < values.length; i++)
+				values[i] = exps.get(i).eval(frame);
+			Integer known = memo.get(values);
+			if (known != null)
+				return known;
+			FrameStack stack = FrameStack.get();
+			Frame callee = stack.push(proc.getFrameSize(), frame.getGlobals());
+			try
+			{
+				System.arraycopy(values, 0, callee.getSlots(), 1, values.length);
+				proc.getBody().exec(callee);
+				memo.put(values, callee.get(0, 0));
+				return callee.get(0, 0);
+			}
+			finally
+			{
+				stack.pop();
+			}
+		}
+		MethodHandle compiled = proc.countInvocation();
+		if (compiled != null)
+		{
+			int[] values = new int[exps == null ? 0 : exps.size()];
+			for (int i = 0; i < values.length; i++)
+				values[i] = exps.get(i).eval(frame);
+			return Tiers.call(compiled, frame.getGlobals().getSlots(), values);
+		}
+		FrameStack stack = FrameStack.get();
+		Frame callee = stack.push(proc.getFrameSize(), frame.getGlobals());
+		try
+		{
+			if (exps != null)
+			{
+				for (int i = 0; i < exps.size(); i++)
+					callee.set(0, i + 1, exps.get(i).eval(frame));
+			}
+			proc.getBody().exec(callee);
+			return callee.get(0, 0);
+		}
+		finally
+		{
+			stack.pop();
+		}
+	}
+	
+	/**
+	 * Links the call into a closure bound to the ProcedureDeclaration. It takes the 
+	 * callee's Frame from the thread's FrameStack, stores the arguments in it and runs 
+	 * the procedure's linked body, which is looked up at call time so a procedure can 
+	 * call itself. A call of a memoized procedure looks in its MemoTable first.
+	 * @return a closure that evaluates the call in a Frame.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public ToIntFunction<Frame> link()
+	{
+		ProcedureDeclaration p = proc;
+		int size = p.getFrameSize();
+		ToIntFunction<Frame>[] args = new ToIntFunction[exps == null ? 0 : exps.size()];
+		for (int i = 0; i < args.length; i++)
+			args[i] = exps.get(i).link();
+		MemoTable memo = p.getMemo();
+		if (memo != null)
+		{
+			return f -> {
+				int[] values = new int[args.length];
+				for (int i = 0; i < args.length; i++)
+					values[i] = args[i].applyAsInt(f);
+				Integer known = memo.get(values);
+				if (known != null)
+					return known;
+				FrameStack stack = FrameStack.get();
+				Frame callee = stack.push(size, f.getGlobals());
+				try
+				{
+					int[] slots = callee.getSlots();
+					System.arraycopy(values, 0, slots, 1, values.length);
+					Consumer<Frame> body = p.getLinkedBody();
+					body.accept(callee);
+					memo.put(values, slots[0]);
+					return slots[0];
+				}
+				finally
+				{
+					stack.pop();
+				}
+			};
+		}
+		return f -> {
+			FrameStack stack = FrameStack.get();
+			Frame callee = stack.push(size, f.getGlobals());
+			try
+			{
+				int[] slots = callee.getSlots();
+				for (int i = 0; i < args.length; i++)
+					slots[i + 1] = args[i].applyAsInt(f);
+				Consumer<Frame> body = p.getLinkedBody();
+				body.accept(callee);
+				return slots[0];
+			}
+			finally
+			{
+				stack.pop();
+			}
+		};
+	}
+	
+	/**
+	 * Pushes the return slot and the arguments, then calls the procedure. 
+	 * The return slot is left on the stack as the value of the call.
+	 * @param b the BytecodeEmitter that collects the instructions.
+	 */
+	public void compile(BytecodeEmitter b)
+	{
+		b.emit(Bytecode.CONST, 0);
+		if (exps != null)
+		{
+			for (Expression e : exps)
+				e.compile(b);
+		}
+		b.emit(Bytecode.CALL, b.getProcedureIndex(s));
+	}
+	
+	/**
+	 * Compiles a self tail call: the arguments are evaluated, stored over the 
+	 * current frame's arguments, the return slot and the local variables are set 
+	 * back to 0, and the code jumps to the start of the procedure.
+	 * @param b the BytecodeEmitter that collects the instructions.
+	 */
+	public void compileTailCall(BytecodeEmitter b)
+	{
+		int count = exps == null ? 0 : exps.size();
+		for (int i = 0; i < count; i++)
+			exps.get(i).compile(b);
+		for (int i = count; i >= 1; i--)
+			b.emitStore(0, i);
+		b.emit(Bytecode.CONST, 0);
+		b.emitStore(0, 0);
+		for (int i = count + 1; i < proc.getFrameSize(); i++)
+		{
+			b.emit(Bytecode.CONST, 0);
+			b.emitStore(0, i);
+		}
+		b.emitJump(Bytecode.JUMP, b.getEntryLabel());
+	}
+	
+	/**
+	 * Gets the procedure being called, as found by the Resolver.
+	 * @return the ProcedureDeclaration, or null if the call has not been resolved.
+	 */
+	public ProcedureDeclaration getDeclaration()
+	{
+		return proc;
+	}
+	
+	/**
+	 * Sets up the environment the procedure's body runs in: a child of the caller's
+	 * environment holding the procedure's name and its arguments, which becomes the 
+	 * parent of the procedure's local environment.
+	 * @param env the environment that the current call is in.
+	 * @param values the values of the arguments, already evaluated in env, 
+	 * 		  or null if there are none.
+	 * @return the child environment holding the arguments.
+	 */
+	public Environment enter(Environment env, int[] values)
 	{
 		Environment child = new Environment(env);
 		child.declareVariable(s, 0);
 		ProcedureDeclaration a = child.proGet(s);
 		a.getLocalEnvironment().setPadre(child);
 		List<String> corr = a.getArgs();
-		if (corr != null && exps != null)
+		if (corr != null && values != null)
 		{
-			if (corr.size() != exps.size())
+			if (corr.size() != values.length)
 				throw new IllegalArgumentException("Parameters stated "
 						+ "in the declaration of the method "
 						+ "do not match arguments given.");
 			for (int i = 0; i < corr.size(); i++)
-				child.declareVariable(corr.get(i), exps.get(i).eval(env));
+				child.declareVariable(corr.get(i), values[i]);
 		}
-		a.getBody().exec(a.getLocalEnvironment());
+		return child;
+	}
+	
+	/**
+	 * Finishes a call after the body has run by resetting the procedure's locals.
+	 * @param child the environment made by enter.
+	 * @return the value of the variable associated with the procedure call.
+	 */
+	public int leave(Environment child)
+	{
+		ProcedureDeclaration a = child.proGet(s);
 		List<String> variablesInDeclaration = a.getVars();
 		for (String curr : variablesInDeclaration)
 			a.getLocalEnvironment().setVariable(curr, 0);
 	    return child.getVariable(s);
 	}
 	
+	/**
+	 * Gets the name of the procedure being called.
+	 * @return the name of the procedure.
+	 */
+	public String getName()
+	{
+		return s;
+	}
+	
+	/**
+	 * Gets the arguments of the call.
+	 * @return the List of argument Expressions, or null if there are none.
+	 */
+	public List<Expression> getArgs()
+	{
+		return exps;
+	}
+	
 	/**
 	 * Compiles all the parameters in the ProcedureCall, 
 	 * then jumps to the corresponding ProcedureDeclaration label in MIPS.
@@ -69,6 +353,38 @@ public class ProcedureCall extends Expression
 		{
 			exps.get(a).compile(e);
 			e.emitPush("$v0");		}
-		e.emit("jal proc"+s);
+		e.emit("jal", Operand.symbol("proc" + s));
+	}
+	
+	/**
+	 * Calls the procedure and moves its value into a register. The callee can use 
+	 * every register, so the ones holding values of the expression around the call 
+	 * are pushed before it and popped after it.
+	 * @param e the Emitter that prints MIPS code.
+	 * @param reg the register to leave the value in.
+	 */
+	public void compileTo(Emitter e, String reg)
+	{
+		List<String> live = e.getLiveRegisters();
+		live.remove(reg);
+		for (String r : live)
+			e.emitPush(r);
+		compile(e);
+		if (!reg.equals("$v0"))
+			e.emit("move", Operand.register(reg), Operand.register("$v0"));
+		for (int i = live.size() - 1; i >= 0; i--)
+			e.emitPop(live.get(i));
+	}
+	
+	/**
+	 * Gets the Sethi-Ullman number of the call. The callee can use every register, 
+	 * so a call counts as needing all of them. It is only evaluated before the other 
+	 * side of an operation when that side is a Number; any other side is kept in 
+	 * source order and saved around the call.
+	 * @return the number of registers the Emitter hands out.
+	 */
+	public int registerNeed()
+	{
+		return Emitter.REGISTER_COUNT;
 	}
 }
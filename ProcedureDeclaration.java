@@ -1,9 +1,19 @@
 package ast;
 
+import java.lang.invoke.MethodHandle;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import emitter.Emitter;
+import emitter.Operand;
 import environment.Environment;
+import environment.Frame;
+import environment.MemoTable;
+import vm.Bytecode;
+import vm.BytecodeEmitter;
+import vm.Tiers;
 
 /**
  * The ProcedureDeclaration class deals with the declaration of procedures 
@@ -19,6 +29,13 @@ public class ProcedureDeclaration extends Statement
 	private List<String> args;
 	private List<String> vars;
 	private Environment localEnv;
+	private int frameSize;
+	private Tiers tiers;
+	private int invocations;
+	private MethodHandle compiled;
+	private boolean interpreted;
+	private Consumer<Frame> linked;
+	private MemoTable memo;
 	/**
 	 * Creates a new ProcedureDeclaration object that has a name 
 	 * (used as a key in the map), body statement, and a list of arguments.
@@ -91,6 +108,142 @@ public class ProcedureDeclaration extends Statement
 			localEnv.declareVariable(curr, 0);
 	}
 	
+	/**
+	 * Resolves the body of the procedure. The procedure's Frame holds its name, 
+	 * which holds the return value, in slot 0, then its arguments, then its local 
+	 * variables.
+	 * @param r the Resolver being used.
+	 */
+	public void resolve(Resolver r)
+	{
+		List<String> names = new ArrayList<String>();
+		names.add(nm);
+		names.addAll(args);
+		names.addAll(vars);
+		frameSize = names.size();
+		tiers = r.getTiers();
+		r.enterProcedure(this, names);
+		body.resolve(r);
+		r.leaveProcedure();
+	}
+	
+	/**
+	 * Parallelizes the body of the procedure.
+	 * @param pure the pure procedures, as found by Purity.
+	 * @param cutoff how many forks can enclose each other before evaluation 
+	 * 		  turns sequential.
+	 */
+	public void parallelize(Set<ProcedureDeclaration> pure, int cutoff)
+	{
+		body.parallelize(pure, cutoff);
+	}
+	
+	/**
+	 * Counts a call of the procedure on Frames, and compiles it once the calls reach
+	 * the invocation threshold of the Tiers it was resolved with, unless the Tiers 
+	 * keeps it interpreted because it can reach a memoized procedure.
+	 * @return the compiled procedure, for Tiers.call, or null if it is still
+	 * 		   interpreted.
+	 */
+	public MethodHandle countInvocation()
+	{
+		if (tiers != null && compiled == null
+			&& ++invocations >= tiers.getInvocationThreshold() && !interpreted)
+		{
+			compiled = tiers.compile(this, invocations);
+			interpreted = compiled == null;
+		}
+		return compiled;
+	}
+	
+	/**
+	 * Gets the table that remembers the results of the procedure.
+	 * @return the MemoTable, or null if the procedure is not memoized.
+	 */
+	public MemoTable getMemo()
+	{
+		return memo;
+	}
+	
+	/**
+	 * Memoizes the procedure, which must be pure, or stops memoizing it.
+	 * @param table the MemoTable to remember results in, or null to stop.
+	 */
+	public void setMemo(MemoTable table)
+	{
+		memo = table;
+	}
+	
+	/**
+	 * Gets how many times the procedure was called while it was interpreted.
+	 * @return the number of interpreted calls counted by countInvocation.
+	 */
+	public int getInvocationCount()
+	{
+		return invocations;
+	}
+	
+	/**
+	 * Checks if the procedure has switched to compiled code.
+	 * @return true if calls to it run compiled code; otherwise, false.
+	 */
+	public boolean isCompiled()
+	{
+		return compiled != null;
+	}
+	
+	/**
+	 * Does nothing, because the Resolver has already bound every call 
+	 * to its ProcedureDeclaration.
+	 * @param frame the Frame of the program.
+	 */
+	public void exec(Frame frame)
+	{
+	}
+	
+	/**
+	 * Links the body of the procedure, for ProcedureCall closures to run. 
+	 * The declaration itself does nothing when it runs.
+	 * @return a closure that does nothing.
+	 */
+	public Consumer<Frame> link()
+	{
+		linked = body.link();
+		return f -> {
+		};
+	}
+	
+	/**
+	 * Gets the linked body of the procedure.
+	 * @return the closure made by link, or null if link has not been called.
+	 */
+	public Consumer<Frame> getLinkedBody()
+	{
+		return linked;
+	}
+	
+	/**
+	 * Compiles the body of the procedure, followed by a return. The body is in 
+	 * tail position, so a call of the procedure at its end becomes a jump.
+	 * @param b the BytecodeEmitter that collects the instructions.
+	 */
+	public void compile(BytecodeEmitter b)
+	{
+		b.beginProcedure(this);
+		body.compileTail(b);
+		b.emit(Bytecode.RET);
+		b.endProcedure(this);
+	}
+	
+	/**
+	 * Gets the number of slots a call to this procedure needs in its Frame.
+	 * @return the number of slots, which is 1 + the arguments + the local variables.
+	 */
+	public int getFrameSize()
+	{
+		return frameSize;
+	}
+	
 	/**
 	 * Converts a Procedure Declaration to MIPS and pushes the return address
 	 * and local variables onto the stack. When the procedure is finished, 
@@ -99,11 +252,11 @@ public class ProcedureDeclaration extends Statement
 	 */
 	public void compile(Emitter e)
 	{
-		e.emit("proc" + nm + ":");
+		e.emitLabel("proc" + nm);
 		e.emitPush("$v0");
 		e.setProcedureContext(this);
 		e.emitPush("$ra");
-		e.emit("li $t7, 0");
+		e.emit("li", Operand.register("$t7"), Operand.immediate(0));
 		for (int i = 0; i <= vars.size() - 1; i++)
 		{
 			e.emitPush("$t7");
@@ -117,7 +270,7 @@ public class ProcedureDeclaration extends Statement
 		e.emitPop("$v0");
 		for (int i = 0; i < args.size(); i++)
 			e.emitPop("$t0");
-		e.emit("jr $ra");
+		e.emit("jr", Operand.register("$ra"));
 		e.clearProcedureContext();
 	}
 }
@@ -1,9 +1,16 @@
 package ast;
 
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import emitter.Emitter;
+import emitter.Operand;
 import environment.Environment;
+import environment.Frame;
+import environment.MemoTable;
+import vm.Bytecode;
+import vm.BytecodeEmitter;
 
 /**
  * The Program class holds Procedures and Statements that are contained
@@ -16,6 +23,7 @@ public class Program extends Statement
 	private List <String> vars;
 	private List <ProcedureDeclaration> proceds;
 	private Statement s;
+	private int frameSize;
 	
 	/**
 	 * Establishes all the procedures and Statements in the program.
@@ -29,6 +37,33 @@ public class Program extends Statement
 		vars = variables;
 	}
 	
+	/**
+	 * Gets the global variables declared by the program.
+	 * @return the names of the global variables.
+	 */
+	public List<String> getVariables()
+	{
+		return vars;
+	}
+	
+	/**
+	 * Gets the procedures declared by the program.
+	 * @return the List of ProcedureDeclarations.
+	 */
+	public List<ProcedureDeclaration> getProcedures()
+	{
+		return proceds;
+	}
+	
+	/**
+	 * Gets the main statement of the program.
+	 * @return the Statement run after the procedures are declared.
+	 */
+	public Statement getStatement()
+	{
+		return s;
+	}
+	
 	/**
 	 * Executes all the procedure declarations and the statement after, 
 	 * which is basically the same thing as running the program.
@@ -40,26 +75,135 @@ public class Program extends Statement
 			p.exec(env);
 		s.exec(env);
 	}
+	
+	/**
+	 * Resolves every variable in the program. The procedures are all declared 
+	 * before any of them are resolved, so a procedure can call itself or one 
+	 * declared after it.
+	 * @param r the Resolver being used.
+	 */
+	public void resolve(Resolver r)
+	{
+		for (String curr : vars)
+			r.declareGlobal(curr);
+		for (ProcedureDeclaration p : proceds)
+			r.declareProcedure(p);
+		for (ProcedureDeclaration p : proceds)
+			p.resolve(r);
+		if (s != null)
+			s.resolve(r);
+		frameSize = r.getGlobalCount();
+		if (r.getTiers() != null)
+			r.getTiers().attach(this);
+	}
+	
+	/**
+	 * Runs a program that has been resolved.
+	 * @param frame the global Frame, which needs getFrameSize() slots.
+	 */
+	public void exec(Frame frame)
+	{
+		if (s != null)
+			s.exec(frame);
+	}
+	
+	/**
+	 * Memoizes every pure procedure, as found by Purity, with its own MemoTable. 
+	 * Must be called before link, since linked calls look for the table when 
+	 * they are made.
+	 * @param capacity the most results each MemoTable holds.
+	 * @return the procedures that were memoized.
+	 */
+	public Set<ProcedureDeclaration> memoize(int capacity)
+	{
+		Set<ProcedureDeclaration> pure = Purity.findPure(this);
+		for (ProcedureDeclaration p : pure)
+			p.setMemo(new MemoTable(capacity));
+		return pure;
+	}
+	
+	/**
+	 * Lets calls of pure procedures, as found by Purity, that are the two sides of 
+	 * a BinOp or Condition run at the same time, as ForkNodes and ForkConditions. 
+	 * The program must be resolved, and this must be called before link. 
+	 * Forks only happen when the program runs in Frames or as linked closures.
+	 * @param cutoff how many forks can enclose each other before evaluation turns 
+	 * 		  sequential, so one top-level fork starts at most 2^cutoff tasks.
+	 * @return the procedures that were found to be pure.
+	 */
+	public Set<ProcedureDeclaration> parallelize(int cutoff)
+	{
+		Set<ProcedureDeclaration> pure = Purity.findPure(this);
+		for (ProcedureDeclaration p : proceds)
+			p.parallelize(pure, cutoff);
+		if (s != null)
+			s.parallelize(pure, cutoff);
+		return pure;
+	}
+	
+	/**
+	 * Links every procedure, then the main statement, into closures.
+	 * @return a closure that runs the program in the global Frame, 
+	 * 		   which needs getFrameSize() slots.
+	 */
+	public Consumer<Frame> link()
+	{
+		for (ProcedureDeclaration p : proceds)
+			p.link();
+		if (s == null)
+			return f -> {
+			};
+		return s.link();
+	}
+	
+	/**
+	 * Compiles the resolved program to bytecode: the main statement, which ends 
+	 * with HALT, and then every procedure.
+	 * @param b the BytecodeEmitter that collects the instructions.
+	 */
+	public void compile(BytecodeEmitter b)
+	{
+		for (ProcedureDeclaration p : proceds)
+			b.declareProcedure(p);
+		b.setGlobalCount(frameSize);
+		if (s != null)
+			s.compile(b);
+		b.emit(Bytecode.HALT);
+		b.endMain();
+		for (ProcedureDeclaration p : proceds)
+			p.compile(b);
+	}
+	
+	/**
+	 * Gets the number of slots the global Frame needs.
+	 * @return the number of global variables, including ones that were never declared.
+	 */
+	public int getFrameSize()
+	{
+		return frameSize;
+	}
 	/**
 	 * Converts the whole program file to MIPS.
 	 * @param e the Emitter that will convert the code to MIPS.
 	 */
 	public void compile (Emitter e)
 	{
-		e.emit("#MIPS program for the PASCAL code.");
-		e.emit("#@author Rakesh Nori");
-		e.emit("#@version 5/2/2018");
+		e.emitComment("MIPS program for the PASCAL code.");
+		e.emitComment("@author Rakesh Nori");
+		e.emitComment("@version 5/2/2018");
 		e.emit(".data");
 		for (String curr : vars)
 		{
-			e.emit("\t" + "var" + curr + ": .word	0");
+			e.emitLabel("var" + curr);
+			e.emit(".word", Operand.immediate(0));
 		}
-		e.emit("\t nl: .asciiz \"\\n\"");
+		e.emitLabel("nl");
+		e.emit(".asciiz", Operand.string("\n"));
 		e.emit(".text");
-		e.emit(".globl main");
-		e.emit("main:");
+		e.emit(".globl", Operand.symbol("main"));
+		e.emitLabel("main");
 		s.compile(e);
-		e.emit("li $v0, 10");
+		e.emit("li", Operand.register("$v0"), Operand.immediate(10));
 		e.emit("syscall");
 		for (ProcedureDeclaration p : proceds)
 			p.compile(e);
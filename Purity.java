@@ -0,0 +1,143 @@
+package ast;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Purity finds the procedures of a Program whose result depends only on their
+ * arguments, so calling them twice with the same arguments gives the same value and
+ * has no other effect. A pure procedure does not use WRITELN or READLN, reads and
+ * writes only its own name, arguments and local variables, and calls only pure
+ * procedures. Reading a global counts against it as well as writing one, since a
+ * global can change between two calls. The analysis works on names, so it can be run
+ * before or after the Program is resolved. Every procedure starts out as pure, and
+ * procedures that break a rule, or call one that does, are taken out until nothing
+ * changes, so procedures that call each other recursively can still be pure.
+ * @author Rakesh Nori
+ * @version 7/2/2018
+ * Usage:
+ * Set<ProcedureDeclaration> pure = Purity.findPure(prog);
+ */
+public class Purity
+{
+	private HashMap<String, ProcedureDeclaration> procedures =
+			new HashMap<String, ProcedureDeclaration>();
+	private Set<ProcedureDeclaration> pure = new HashSet<ProcedureDeclaration>();
+	private Set<String> names;
+
+	/**
+	 * Finds the pure procedures of a Program.
+	 * @param prog the Program.
+	 * @return the pure ProcedureDeclarations.
+	 */
+	public static Set<ProcedureDeclaration> findPure(Program prog)
+	{
+		return new Purity().analyze(prog.getProcedures());
+	}
+
+	/**
+	 * Takes impure procedures out of the set until nothing changes.
+	 * @param procs every procedure of the program.
+	 * @return the pure ones.
+	 */
+	private Set<ProcedureDeclaration> analyze(List<ProcedureDeclaration> procs)
+	{
+		for (ProcedureDeclaration p : procs)
+		{
+			procedures.put(p.getName(), p);
+			pure.add(p);
+		}
+		boolean changed = true;
+		while (changed)
+		{
+			changed = false;
+			for (ProcedureDeclaration p : procs)
+			{
+				names = new HashSet<String>();
+				names.add(p.getName());
+				names.addAll(p.getArgs());
+				names.addAll(p.getVars());
+				if (pure.contains(p) && !isPure(p.getBody()))
+				{
+					pure.remove(p);
+					changed = true;
+				}
+			}
+		}
+		return pure;
+	}
+
+	/**
+	 * Checks if a Statement in the current procedure follows the rules.
+	 * @param s the Statement.
+	 * @return true if it only uses the procedure's own variables and calls pure
+	 * 		   procedures; otherwise, false.
+	 */
+	private boolean isPure(Statement s)
+	{
+		if (s instanceof Block)
+		{
+			for (Statement inner : ((Block)s).getStatements())
+			{
+				if (!isPure(inner))
+					return false;
+			}
+			return true;
+		}
+		if (s instanceof Assignment)
+			return names.contains(((Assignment)s).getName())
+				   && isPure(((Assignment)s).getExpression());
+		if (s instanceof If)
+		{
+			If f = (If)s;
+			return isPure(f.getCondition()) && isPure(f.getThen())
+				   && (f.getElse() == null || isPure(f.getElse()));
+		}
+		if (s instanceof While)
+			return isPure(((While)s).getCondition()) && isPure(((While)s).getBody());
+		if (s instanceof For)
+		{
+			For f = (For)s;
+			return names.contains(f.getName()) && isPure(f.getStart())
+				   && isPure(f.getLimit()) && isPure(f.getBody());
+		}
+		return false;
+	}
+
+	/**
+	 * Checks if an Expression in the current procedure follows the rules.
+	 * @param e the Expression.
+	 * @return true if it only reads the procedure's own variables and calls pure
+	 * 		   procedures; otherwise, false.
+	 */
+	private boolean isPure(Expression e)
+	{
+		if (e instanceof Number)
+			return true;
+		if (e instanceof Variable)
+			return names.contains(((Variable)e).getName());
+		if (e instanceof BinOp)
+			return isPure(((BinOp)e).getLeft()) && isPure(((BinOp)e).getRight());
+		if (e instanceof Condition)
+			return isPure(((Condition)e).getLeft()) && isPure(((Condition)e).getRight());
+		if (e instanceof Negate)
+			return isPure(((Negate)e).getExpression());
+		if (e instanceof ProcedureCall)
+		{
+			ProcedureCall call = (ProcedureCall)e;
+			if (!pure.contains(procedures.get(call.getName())))
+				return false;
+			List<Expression> args = call.getArgs();
+			for (Expression arg : args == null ? new ArrayList<Expression>() : args)
+			{
+				if (!isPure(arg))
+					return false;
+			}
+			return true;
+		}
+		return false;
+	}
+}
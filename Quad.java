@@ -0,0 +1,397 @@
+package ir;
+
+/**
+ * A Quad is one instruction of the three-address IR: an operator, at most one virtual
+ * register it writes and at most two it reads. Virtual registers are numbered from 0
+ * in every IrFunction, and there are as many of them as the function needs; only the
+ * global variables live in memory, and are read and written by LOAD and STORE. JUMP,
+ * BRANCH and RETURN end a BasicBlock, and a BRANCH names both the block it goes to
+ * when its relation holds and the one it goes to when it does not, so no block falls
+ * through into the next one.
+ * @author Rakesh Nori
+ * @version 7/6/2018
+ */
+public class Quad
+{
+	/**
+	 * The operators of the IR.
+	 */
+	public enum Op
+	{
+		/** dst = value */
+		CONST,
+		/** dst = a */
+		COPY,
+		/** dst = a + b */
+		ADD,
+		/** dst = a - b */
+		SUB,
+		/** dst = a * b */
+		MUL,
+		/** dst = a / b */
+		DIV,
+		/** dst = a % b */
+		MOD,
+		/** dst = -a */
+		NEG,
+		/** dst = the global variable name */
+		LOAD,
+		/** the global variable name = a */
+		STORE,
+		/** dst = the procedure name called with args */
+		CALL,
+		/** prints a on its own line */
+		PRINT,
+		/** dst = an int read from the input */
+		READ,
+		/** goes to target */
+		JUMP,
+		/** goes to target if a relop b holds, otherwise to other */
+		BRANCH,
+		/** leaves the function, with the value a, or with none if a is -1 */
+		RETURN
+	}
+
+	private static final int[] NONE = new int[0];
+
+	private final Op op;
+	private final int dst;
+	private final int a;
+	private final int b;
+	private final int value;
+	private final String name;
+	private final int[] args;
+	private final BasicBlock target;
+	private final BasicBlock other;
+
+	/**
+	 * Creates a Quad. Only the factory methods call this, so every Quad has the
+	 * fields its operator needs.
+	 * @param o the operator.
+	 * @param d the register written, or -1.
+	 * @param x the first register read, or -1.
+	 * @param y the second register read, or -1.
+	 * @param v the constant, or the slot of a global variable.
+	 * @param n the global variable, procedure or relative operator, or null.
+	 * @param regs the argument registers of a CALL.
+	 * @param t the block a JUMP or BRANCH goes to, or null.
+	 * @param f the block a BRANCH goes to when its relation does not hold, or null.
+	 */
+	private Quad(Op o, int d, int x, int y, int v, String n, int[] regs, BasicBlock t,
+				 BasicBlock f)
+	{
+		op = o;
+		dst = d;
+		a = x;
+		b = y;
+		value = v;
+		name = n;
+		args = regs;
+		target = t;
+		other = f;
+	}
+
+	/**
+	 * Makes dst = value.
+	 * @param dst the register written.
+	 * @param value the constant.
+	 * @return the Quad.
+	 */
+	public static Quad constant(int dst, int value)
+	{
+		return new Quad(Op.CONST, dst, -1, -1, value, null, NONE, null, null);
+	}
+
+	/**
+	 * Makes dst = a.
+	 * @param dst the register written.
+	 * @param a the register read.
+	 * @return the Quad.
+	 */
+	public static Quad copy(int dst, int a)
+	{
+		return new Quad(Op.COPY, dst, a, -1, 0, null, NONE, null, null);
+	}
+
+	/**
+	 * Makes dst = a op b.
+	 * @param op ADD, SUB, MUL, DIV or MOD.
+	 * @param dst the register written.
+	 * @param a the left register.
+	 * @param b the right register.
+	 * @return the Quad.
+	 * @throws IllegalArgumentException if op is not an arithmetic operator.
+	 */
+	public static Quad binary(Op op, int dst, int a, int b)
+	{
+		if (op.compareTo(Op.ADD) < 0 || op.compareTo(Op.MOD) > 0)
+			throw new IllegalArgumentException(op + " is not an arithmetic operator.");
+		return new Quad(op, dst, a, b, 0, null, NONE, null, null);
+	}
+
+	/**
+	 * Makes dst = -a.
+	 * @param dst the register written.
+	 * @param a the register read.
+	 * @return the Quad.
+	 */
+	public static Quad negate(int dst, int a)
+	{
+		return new Quad(Op.NEG, dst, a, -1, 0, null, NONE, null, null);
+	}
+
+	/**
+	 * Makes a read of a global variable.
+	 * @param dst the register written.
+	 * @param slot the slot of the variable.
+	 * @param name the name of the variable.
+	 * @return the Quad.
+	 */
+	public static Quad load(int dst, int slot, String name)
+	{
+		return new Quad(Op.LOAD, dst, -1, -1, slot, name, NONE, null, null);
+	}
+
+	/**
+	 * Makes a write of a global variable.
+	 * @param slot the slot of the variable.
+	 * @param name the name of the variable.
+	 * @param a the register holding the value.
+	 * @return the Quad.
+	 */
+	public static Quad store(int slot, String name, int a)
+	{
+		return new Quad(Op.STORE, -1, a, -1, slot, name, NONE, null, null);
+	}
+
+	/**
+	 * Makes a call of a procedure.
+	 * @param dst the register the value of the call is written to.
+	 * @param proc the name of the procedure.
+	 * @param args the registers holding the arguments, in order.
+	 * @return the Quad.
+	 */
+	public static Quad call(int dst, String proc, int[] args)
+	{
+		return new Quad(Op.CALL, dst, -1, -1, 0, proc, args, null, null);
+	}
+
+	/**
+	 * Makes a print of a register.
+	 * @param a the register.
+	 * @return the Quad.
+	 */
+	public static Quad print(int a)
+	{
+		return new Quad(Op.PRINT, -1, a, -1, 0, null, NONE, null, null);
+	}
+
+	/**
+	 * Makes a read of an int from the input.
+	 * @param dst the register written.
+	 * @return the Quad.
+	 */
+	public static Quad read(int dst)
+	{
+		return new Quad(Op.READ, dst, -1, -1, 0, null, NONE, null, null);
+	}
+
+	/**
+	 * Makes a jump.
+	 * @param target the block to go to.
+	 * @return the Quad.
+	 */
+	public static Quad jump(BasicBlock target)
+	{
+		return new Quad(Op.JUMP, -1, -1, -1, 0, null, NONE, target, null);
+	}
+
+	/**
+	 * Makes a conditional branch.
+	 * @param relop the relative operator: =, &lt;&gt;, &lt;, &gt;, &lt;= or &gt;=.
+	 * @param a the left register.
+	 * @param b the right register.
+	 * @param ifTrue the block to go to when a relop b holds.
+	 * @param ifFalse the block to go to when it does not.
+	 * @return the Quad.
+	 */
+	public static Quad branch(String relop, int a, int b, BasicBlock ifTrue,
+							  BasicBlock ifFalse)
+	{
+		return new Quad(Op.BRANCH, -1, a, b, 0, relop, NONE, ifTrue, ifFalse);
+	}
+
+	/**
+	 * Makes a return from the function.
+	 * @param a the register holding the value returned, or -1 for the main program.
+	 * @return the Quad.
+	 */
+	public static Quad ret(int a)
+	{
+		return new Quad(Op.RETURN, -1, a, -1, 0, null, NONE, null, null);
+	}
+
+	/**
+	 * Gets the operator.
+	 * @return the operator.
+	 */
+	public Op getOp()
+	{
+		return op;
+	}
+
+	/**
+	 * Gets the register the Quad writes.
+	 * @return the register, or -1 if it writes none.
+	 */
+	public int getDst()
+	{
+		return dst;
+	}
+
+	/**
+	 * Gets the first register the Quad reads.
+	 * @return the register, or -1.
+	 */
+	public int getA()
+	{
+		return a;
+	}
+
+	/**
+	 * Gets the second register the Quad reads.
+	 * @return the register, or -1.
+	 */
+	public int getB()
+	{
+		return b;
+	}
+
+	/**
+	 * Gets the constant of a CONST, or the slot of the global of a LOAD or STORE.
+	 * @return the number.
+	 */
+	public int getValue()
+	{
+		return value;
+	}
+
+	/**
+	 * Gets the global variable of a LOAD or STORE, the procedure of a CALL, or the
+	 * relative operator of a BRANCH.
+	 * @return the name, or null.
+	 */
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * Gets the argument registers of a CALL.
+	 * @return the registers, which must not be changed; empty for other operators.
+	 */
+	public int[] getArgs()
+	{
+		return args;
+	}
+
+	/**
+	 * Gets the block a JUMP goes to, or a BRANCH goes to when its relation holds.
+	 * @return the block, or null.
+	 */
+	public BasicBlock getTarget()
+	{
+		return target;
+	}
+
+	/**
+	 * Gets the block a BRANCH goes to when its relation does not hold.
+	 * @return the block, or null.
+	 */
+	public BasicBlock getOther()
+	{
+		return other;
+	}
+
+	/**
+	 * Checks if the Quad ends a BasicBlock.
+	 * @return true for JUMP, BRANCH and RETURN; otherwise, false.
+	 */
+	public boolean isTerminator()
+	{
+		return op == Op.JUMP || op == Op.BRANCH || op == Op.RETURN;
+	}
+
+	/**
+	 * Gets every register the Quad reads.
+	 * @return the registers, in the order they are read.
+	 */
+	public int[] getUses()
+	{
+		if (op == Op.CALL)
+			return args.clone();
+		if (b >= 0)
+			return new int[] {a, b};
+		if (a >= 0)
+			return new int[] {a};
+		return NONE;
+	}
+
+	/**
+	 * Gets the Quad as a line of the IR dump, such as "v3 = v1 + v2".
+	 * @return the text.
+	 */
+	public String toString()
+	{
+		StringBuilder sb = new StringBuilder();
+		if (dst >= 0)
+			sb.append('v').append(dst).append(" = ");
+		switch (op)
+		{
+			case CONST:
+				sb.append(value);
+				break;
+			case COPY:
+				sb.append('v').append(a);
+				break;
+			case ADD: case SUB: case MUL: case DIV: case MOD:
+				String symbol = "+-*/%".substring(op.ordinal() - Op.ADD.ordinal(),
+												  op.ordinal() - Op.ADD.ordinal() + 1);
+				sb.append('v').append(a).append(' ').append(symbol).append(" v").append(b);
+				break;
+			case NEG:
+				sb.append("-v").append(a);
+				break;
+			case LOAD:
+				sb.append("load ").append(name);
+				break;
+			case STORE:
+				sb.append("store ").append(name).append(", v").append(a);
+				break;
+			case CALL:
+				sb.append("call ").append(name).append('(');
+				for (int i = 0; i < args.length; i++)
+					sb.append(i == 0 ? "v" : ", v").append(args[i]);
+				sb.append(')');
+				break;
+			case PRINT:
+				sb.append("print v").append(a);
+				break;
+			case READ:
+				sb.append("read");
+				break;
+			case JUMP:
+				sb.append("goto ").append(target.getName());
+				break;
+			case BRANCH:
+				sb.append("if v").append(a).append(' ').append(name).append(" v").append(b)
+				  .append(" goto ").append(target.getName())
+				  .append(" else ").append(other.getName());
+				break;
+			default:
+				sb.append(a < 0 ? "return" : "return v" + a);
+				break;
+		}
+		return sb.toString();
+	}
+}
@@ -1,6 +1,10 @@
 package ast;
 import java.util.Scanner;
+import java.util.function.Consumer;
 import environment.Environment;
+import environment.Frame;
+import vm.Bytecode;
+import vm.BytecodeEmitter;
 
 /**
  * The Readln class uses user input to instantiate a variable. 
@@ -12,6 +16,8 @@ public class Readln extends Statement
 {
 	private String name;
 	private int val;
+	private int depth;
+	private int slot;
 	
 	/***
 	 * Instantiates a Readln object.
@@ -22,6 +28,15 @@ public class Readln extends Statement
 		name = nm;
 	}
 	
+	/**
+	 * Gets the name of the variable being read.
+	 * @return the name of the variable.
+	 */
+	public String getName()
+	{
+		return name;
+	}
+	
 	/**
 	 * Gives a value for the variable and passes it into the environment.
 	 * @param env the Environment has a map that stores variables.
@@ -35,4 +50,64 @@ public class Readln extends Statement
 		sc.close();
 		
 	}
+	
+	/**
+	 * Finds the Frame slot of the variable being read.
+	 * @param r the Resolver that knows where every variable lives.
+	 */
+	public void resolve(Resolver r)
+	{
+		depth = r.getDepth(name);
+		slot = r.getSlot(name);
+	}
+	
+	/**
+	 * Reads a value for the variable and stores it in its resolved Frame slot.
+	 * @param frame the Frame of the procedure or program being run.
+	 */
+	public void exec(Frame frame)
+	{
+		System.out.println("Input int val for the variable");
+		Scanner sc = new Scanner(System.in);
+		val = sc.nextInt();
+		frame.set(depth, slot, val);
+		sc.close();
+	}
+	
+	/**
+	 * Links the read into a closure, which reads the same way exec does.
+	 * @return a closure that reads the variable in a Frame.
+	 */
+	public Consumer<Frame> link()
+	{
+		return f -> exec(f);
+	}
+	
+	/**
+	 * Gets how many Frames up the variable lives, as found by the Resolver.
+	 * @return the depth of the variable.
+	 */
+	public int getDepth()
+	{
+		return depth;
+	}
+	
+	/**
+	 * Gets the Frame slot of the variable, as found by the Resolver.
+	 * @return the slot of the variable.
+	 */
+	public int getSlot()
+	{
+		return slot;
+	}
+	
+	/**
+	 * Reads an int and stores it in the variable's resolved slot.
+	 * @param b the BytecodeEmitter that collects the instructions.
+	 */
+	public void compile(BytecodeEmitter b)
+	{
+		b.emit(Bytecode.READ);
+		b.emitStore(depth, slot);
+	}
 }
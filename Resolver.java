@@ -0,0 +1,164 @@
+package ast;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import vm.Tiers;
+
+/**
+ * The Resolver runs over a parsed Program once, before it is executed, and works out
+ * where every variable lives. The global variables get slots in the global Frame, in
+ * the order they are declared. A procedure's Frame holds the procedure's name (which
+ * holds its return value) in slot 0, then its arguments, then its local variables.
+ * Inside a procedure, a name is looked up in the procedure first and in the globals
+ * second, like the Emitter does, so a procedure only ever sees its own variables and
+ * the global ones. A variable that was never declared becomes a new global, the same
+ * way Environment.setVariable puts it in the global Environment.
+ * Every Variable, Assignment, Readln and For stores the depth and slot it was given,
+ * and every ProcedureCall stores the ProcedureDeclaration it calls.
+ * A Resolver made with a Tiers hands it to every ProcedureDeclaration and While, so
+ * they count how often they run and switch to compiled code once they are hot.
+ * @author Rakesh Nori
+ * @version 6/27/2018
+ * Usage:
+ * Program prog = parser.parseProgram();
+ * prog.resolve(new Resolver());
+ * prog.exec(new Frame(prog.getFrameSize(), null));
+ */
+public class Resolver
+{
+	private List<String> globals = new ArrayList<String>();
+	private List<String> locals;
+	private HashMap<String, ProcedureDeclaration> procedures =
+			new HashMap<String, ProcedureDeclaration>();
+	private ProcedureDeclaration current;
+	private Tiers tiers;
+
+	/**
+	 * Creates a Resolver for a program that is only interpreted.
+	 */
+	public Resolver()
+	{
+	}
+
+	/**
+	 * Creates a Resolver for a program that runs with tiered execution.
+	 * @param t the Tiers that decides when to compile procedures and loops.
+	 */
+	public Resolver(Tiers t)
+	{
+		tiers = t;
+	}
+
+	/**
+	 * Gets the Tiers the program runs with.
+	 * @return the Tiers, or null if the program is only interpreted.
+	 */
+	public Tiers getTiers()
+	{
+		return tiers;
+	}
+
+	/**
+	 * Declares a global variable, unless it has been declared already.
+	 * @param name the name of the variable.
+	 */
+	public void declareGlobal(String name)
+	{
+		if (!globals.contains(name))
+			globals.add(name);
+	}
+
+	/**
+	 * Gets the number of slots the global Frame needs.
+	 * @return the number of global variables.
+	 */
+	public int getGlobalCount()
+	{
+		return globals.size();
+	}
+
+	/**
+	 * Declares a procedure so that calls to it can be resolved, even calls that come
+	 * before it in the program or from inside it.
+	 * @param p the ProcedureDeclaration.
+	 */
+	public void declareProcedure(ProcedureDeclaration p)
+	{
+		procedures.put(p.getName(), p);
+	}
+
+	/**
+	 * Gets a declared procedure.
+	 * @param name the name of the procedure.
+	 * @return the ProcedureDeclaration with that name.
+	 * @throws IllegalArgumentException if no procedure has that name.
+	 */
+	public ProcedureDeclaration getProcedure(String name)
+	{
+		ProcedureDeclaration p = procedures.get(name);
+		if (p == null)
+			throw new IllegalArgumentException("Procedure " + name + " was never declared.");
+		return p;
+	}
+
+	/**
+	 * Starts resolving the body of a procedure.
+	 * @param p the ProcedureDeclaration.
+	 * @param names the names in the procedure's Frame, in slot order.
+	 */
+	public void enterProcedure(ProcedureDeclaration p, List<String> names)
+	{
+		current = p;
+		locals = names;
+	}
+
+	/**
+	 * Goes back to resolving the main statement of the program.
+	 */
+	public void leaveProcedure()
+	{
+		current = null;
+		locals = null;
+	}
+
+	/**
+	 * Gets the procedure whose body is being resolved.
+	 * @return the ProcedureDeclaration, or null in the main statement.
+	 */
+	public ProcedureDeclaration getCurrentProcedure()
+	{
+		return current;
+	}
+
+	/**
+	 * Finds how many Frames up a variable lives.
+	 * @param name the name of the variable.
+	 * @return 0 if it is in the current Frame, or 1 if it is a global inside a procedure.
+	 */
+	public int getDepth(String name)
+	{
+		if (locals == null || locals.contains(name))
+			return 0;
+		return 1;
+	}
+
+	/**
+	 * Finds the slot of a variable in its Frame, declaring it as a global if it has not
+	 * been seen before.
+	 * @param name the name of the variable.
+	 * @return the slot of the variable.
+	 */
+	public int getSlot(String name)
+	{
+		if (locals != null)
+		{
+			int local = locals.lastIndexOf(name);
+			if (local >= 0)
+				return local;
+		}
+		declareGlobal(name);
+		return globals.indexOf(name);
+	}
+}
@@ -7,14 +7,21 @@ import java.io.*;
  * @version 4/6/2018
  * Usage:
  * Use the Scanner to generate lexemes in a given file or String.
+ * The Scanner is also a TokenStream, so the Parser can read typed tokens from it.
  *
  */
-public class Scanner
+public class Scanner implements TokenStream
 {
     private BufferedReader in;
     private char currentChar;
     private boolean eof;
     private int line;
+    private int tokenLine;
+    private SymbolTable symbols = new SymbolTable();
+    private TokenKind kind = TokenKind.EOF;
+    private String symbol;
+    private int value;
+    private boolean lastToken;
     /**
      * Scanner constructor for construction of a scanner that 
      * uses an InputStream object for input.  
@@ -42,6 +49,7 @@ public class Scanner
         in = new BufferedReader(new StringReader(inString));
         eof = false;
         getNextChar();
+        line = 1;
     }
     /**
      * Processes the next char for in the input stream 
@@ -364,7 +372,7 @@ public class Scanner
      */
     public String nextToken() throws ScanErrorException, IOException
     {
-        while(isWhiteSpace(currentChar) && hasNext())
+        while(hasNext() && isWhiteSpace(currentChar))
         	eat(currentChar);
         while (isSingleComment(currentChar) || isBlockComment(currentChar))
         {
@@ -376,12 +384,17 @@ public class Scanner
         	else
         	{
         		while (!isClosingBlockComment(currentChar))
+        		{
+        			if (currentChar == '\n')
+        				line++;
         			eat(currentChar);
+        		}
         		eat(currentChar);
         	}
-        	while(isWhiteSpace(currentChar) && hasNext())
+        	while(hasNext() && isWhiteSpace(currentChar))
         		eat(currentChar);
         }
+        tokenLine = line;
         if (!hasNext())
         	return "EOF";
         else if (isLetter(currentChar))
@@ -394,6 +407,82 @@ public class Scanner
         	throw new ScanErrorException("Illegal character on line " + line + ": " + currentChar);
     }  
     
+    /**
+     * Moves to the next token and works out its kind. The String from nextToken is
+     * looked up in the SymbolTable, which resolves reserved words and interns
+     * identifiers. The "\nEOF" that nextToken puts on the last lexeme is removed
+     * and turned into a separate EOF token.
+     * @return the kind of the new current token, EOF at the end of the input.
+     * @throws ScanErrorException if an illegal character is present.
+     * @throws IOException if the BufferedReader's mark or reset method fail.
+     */
+    public TokenKind next() throws ScanErrorException, IOException
+    {
+        symbol = null;
+        if (lastToken)
+        {
+            kind = TokenKind.EOF;
+            return kind;
+        }
+        String token = nextToken();
+        if (token.endsWith("\nEOF"))
+        {
+            token = token.substring(0, token.length() - 4);
+            lastToken = true;
+        }
+        if (token.equals("EOF") && !hasNext())
+            kind = TokenKind.EOF;
+        else if (isDigit(token.charAt(0)))
+        {
+            kind = TokenKind.NUMBER;
+            value = Integer.parseInt(token);
+        }
+        else
+        {
+            int entry = symbols.find(token);
+            kind = symbols.getKind(entry);
+            symbol = symbols.getName(entry);
+        }
+        return kind;
+    }
+
+    /**
+     * Gets the kind of the current token.
+     * @return the kind of the current token.
+     */
+    public TokenKind getKind()
+    {
+        return kind;
+    }
+
+    /**
+     * Gets the interned name of the current identifier, or the spelling
+     * of the current reserved word or operator.
+     * @return the symbol of the current token, null for a number.
+     */
+    public String getSymbol()
+    {
+        return symbol;
+    }
+
+    /**
+     * Gets the value of the current token if it is a number.
+     * @return the value of the current number.
+     */
+    public int getValue()
+    {
+        return value;
+    }
+
+    /**
+     * Gets the line the current token starts on.
+     * @return the line number of the current token.
+     */
+    public int getTokenLine()
+    {
+        return tokenLine;
+    }
+
     /**
      * The main method for the Scanner class that tests with text files.
      * @param args list of arguments from the command line
@@ -0,0 +1,133 @@
+package scanner;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * SourceBuffer gives random access to the whole text of a source file without
+ * copying it. It is either backed by chars (a char[] or a CharBuffer) or by the
+ * bytes of a memory-mapped file, which are read as single byte (ASCII / Latin-1)
+ * characters.
+ * @author Rakesh Nori
+ * @version 6/8/2018
+ * Usage:
+ * SourceBuffer src = SourceBuffer.map(new File(<file name>));
+ * BufferScanner lex = new BufferScanner(src);
+ */
+public class SourceBuffer
+{
+    private CharBuffer chars;
+    private ByteBuffer bytes;
+    private int length;
+
+    /**
+     * Creates a SourceBuffer over the given characters. The array is not copied.
+     * @param text the characters of the source.
+     */
+    public SourceBuffer(char[] text)
+    {
+        this(CharBuffer.wrap(text));
+    }
+
+    /**
+     * Creates a SourceBuffer over the remaining characters of a CharBuffer.
+     * The buffer is not copied.
+     * @param text the characters of the source.
+     */
+    public SourceBuffer(CharBuffer text)
+    {
+        chars = text.slice();
+        length = chars.remaining();
+    }
+
+    /**
+     * Creates a SourceBuffer over the remaining bytes of a ByteBuffer,
+     * every byte being one character.
+     * @param text the bytes of the source.
+     */
+    public SourceBuffer(ByteBuffer text)
+    {
+        bytes = text.slice();
+        length = bytes.remaining();
+    }
+
+    /**
+     * Memory-maps a whole file read-only. The file is never read into the heap,
+     * the operating system pages it in as the scanner moves through it.
+     * @param file the file to map.
+     * @return a SourceBuffer backed by the mapped file.
+     * @throws IOException if the file cannot be opened or mapped.
+     */
+    public static SourceBuffer map(File file) throws IOException
+    {
+        try (FileChannel channel = new RandomAccessFile(file, "r").getChannel())
+        {
+            return new SourceBuffer(channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                                                channel.size()));
+        }
+    }
+
+    /**
+     * Gets the number of characters in the source.
+     * @return the length of the source.
+     */
+    public int length()
+    {
+        return length;
+    }
+
+    /**
+     * Gets the character at the given offset.
+     * @param index the offset of the character, between 0 and length() - 1.
+     * @return the character at that offset.
+     */
+    public char charAt(int index)
+    {
+        if (chars != null)
+            return chars.get(index);
+        return (char)(bytes.get(index) & 0xFF);
+    }
+
+    /**
+     * Checks if the characters between start and end are the same as the given String,
+     * without creating a new String.
+     * @param start the offset of the first character.
+     * @param end the offset after the last character.
+     * @param s the String being compared.
+     * @return true if the characters match; otherwise,
+     * 		   false.
+     */
+    public boolean regionEquals(int start, int end, String s)
+    {
+        if (end - start != s.length())
+            return false;
+        for (int i = start; i < end; i++)
+        {
+            if (charAt(i) != s.charAt(i - start))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Makes a String out of the characters between start and end.
+     * This is the only place where the source is copied.
+     * @param start the offset of the first character.
+     * @param end the offset after the last character.
+     * @return the characters as a new String.
+     */
+    public String substring(int start, int end)
+    {
+        if (chars != null)
+        {
+            if (chars.hasArray())
+                return new String(chars.array(), chars.arrayOffset() + start, end - start);
+            return chars.subSequence(start, end).toString();
+        }
+        byte[] copy = new byte[end - start];
+        bytes.get(start, copy);
+        return new String(copy, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -1,6 +1,11 @@
 package ast;
+import java.util.Set;
+import java.util.function.Consumer;
+
 import emitter.Emitter;
 import environment.Environment;
+import environment.Frame;
+import vm.BytecodeEmitter;
 /**
  * The Statement class is a general form of executing Statements from a file.
  * 
@@ -16,6 +21,54 @@ public abstract class Statement
 	 */
 	public abstract void exec(Environment env);
 	
+	/**
+	 * Binds the variables in the Statement to their Frame slots.
+	 * @param r the Resolver that knows the slot of every variable.
+	 */
+	public abstract void resolve(Resolver r);
+	
+	/**
+	 * Executes a Statement that has been resolved.
+	 * @param frame the Frame holding the variables the Statement can use.
+	 */
+	public abstract void exec(Frame frame);
+	
+	/**
+	 * Converts a resolved Statement once into a closure that runs it in a Frame. 
+	 * Operators, slots and procedures are bound when the closure is made, so 
+	 * running it does not look at any of them again.
+	 * @return the closure.
+	 */
+	public abstract Consumer<Frame> link();
+	
+	/**
+	 * Compiles the Statement to bytecode for the VirtualMachine.
+	 * @param b the BytecodeEmitter that collects the instructions.
+	 */
+	public abstract void compile(BytecodeEmitter b);
+	
+	/**
+	 * Compiles the Statement to bytecode as the last statement of a procedure, 
+	 * where a call of the procedure itself can become a jump. Statements that 
+	 * cannot end in such a call compile the same way as compile does.
+	 * @param b the BytecodeEmitter that collects the instructions.
+	 */
+	public void compileTail(BytecodeEmitter b)
+	{
+		compile(b);
+	}
+	
+	/**
+	 * Lets the expressions in the Statement evaluate independent calls of pure 
+	 * procedures at the same time. Statements without expressions have nothing to change.
+	 * @param pure the pure procedures, as found by Purity.
+	 * @param cutoff how many forks can enclose each other before evaluation 
+	 * 		  turns sequential.
+	 */
+	public void parallelize(Set<ProcedureDeclaration> pure, int cutoff)
+	{
+	}
+	
 	/**
 	 * Converts the instructions to MIPS. 
 	 * @param e the Emitter that writes the file.
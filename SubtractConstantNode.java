@@ -0,0 +1,70 @@
+package ast;
+
+import java.util.function.ToIntFunction;
+
+import environment.Environment;
+import environment.Frame;
+
+/**
+ * The SubtractConstantNode is the BinOp for "-" when the right side is a Number, such as 
+ * i - 1. It subtracts a constant from its left expression without evaluating the Number.
+ * @author Rakesh Nori
+ * @version 6/25/2018
+ */
+public class SubtractConstantNode extends BinOp
+{
+	private int k;
+	
+	/**
+	 * Creates a SubtractConstantNode.
+	 * @param a the first / left expression.
+	 * @param b the Number on the right.
+	 */
+	public SubtractConstantNode(Expression a, Number b)
+	{
+		super("-", a, b);
+		k = b.getValue();
+	}
+	
+	/**
+	 * Evaluates the left expression and uses the constant on it.
+	 * @param env the environment containing variables that can be used.
+	 * @return the left expression - the constant.
+	 */
+	public int eval(Environment env)
+	{
+		return exp1.eval(env) - k;
+	}
+	
+	/**
+	 * Evaluates the left expression in a Frame and uses the constant on it.
+	 * @param frame the Frame containing variables that can be used.
+	 * @return the left expression - the constant.
+	 */
+	public int eval(Frame frame)
+	{
+		return exp1.eval(frame) - k;
+	}
+	
+	/**
+	 * Links the left expression into a closure that subtracts the constant.
+	 * @return a closure that evaluates the left expression - the constant in a Frame.
+	 */
+	public ToIntFunction<Frame> link()
+	{
+		ToIntFunction<Frame> a = exp1.link();
+		int c = k;
+		return f -> a.applyAsInt(f) - c;
+	}
+	
+	/**
+	 * Uses the operator on two values that have already been evaluated.
+	 * @param a the value of the first / left expression.
+	 * @param b the value of the second / right expression.
+	 * @return a - b.
+	 */
+	public int apply(int a, int b)
+	{
+		return a - b;
+	}
+}
@@ -0,0 +1,178 @@
+package environment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The SymbolMap maps variable names to int values without boxing. It is an
+ * open-addressing table with linear probing: the names, their hashes and their values
+ * are kept in three parallel arrays. The names a scanner hands out are interned by its
+ * SymbolTable, so a key is first compared with ==, and the cached hash is checked
+ * before falling back to equals, which keeps a lookup of a name that is not there from
+ * comparing any characters. The table grows when it is half full, and entries are
+ * never removed, since an Environment never forgets a variable.
+ * @author Rakesh Nori
+ * @version 6/29/2018
+ */
+public class SymbolMap
+{
+	private String[] names = new String[16];
+	private int[] hashes = new int[16];
+	private int[] values = new int[16];
+	private int size;
+
+	/**
+	 * Finds the slot of a name, or the empty slot where it belongs.
+	 * @param name the name.
+	 * @param h the hash of the name.
+	 * @return the index of the slot.
+	 */
+	private int slot(String name, int h)
+	{
+		int mask = names.length - 1;
+		int i = h & mask;
+		while (names[i] != null)
+		{
+			if (names[i] == name || (hashes[i] == h && names[i].equals(name)))
+				return i;
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+
+	/**
+	 * Spreads the bits of a String's hash, so names that differ in their last
+	 * character do not all land next to each other.
+	 * @param name the name.
+	 * @return the hash used by the table.
+	 */
+	private static int hash(String name)
+	{
+		int h = name.hashCode();
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Finds a name.
+	 * @param name the name.
+	 * @return the index of its entry, to be passed to getAt and setAt,
+	 * 		   or -1 if the name is not in the map.
+	 */
+	public int find(String name)
+	{
+		int i = slot(name, hash(name));
+		return names[i] == null ? -1 : i;
+	}
+
+	/**
+	 * Checks if a name is in the map.
+	 * @param name the name.
+	 * @return true if the name has a value; otherwise, false.
+	 */
+	public boolean containsKey(String name)
+	{
+		return find(name) >= 0;
+	}
+
+	/**
+	 * Gets the value of an entry found by find.
+	 * @param index the index returned by find.
+	 * @return the value.
+	 */
+	public int getAt(int index)
+	{
+		return values[index];
+	}
+
+	/**
+	 * Sets the value of an entry found by find.
+	 * @param index the index returned by find.
+	 * @param value the new value.
+	 */
+	public void setAt(int index, int value)
+	{
+		values[index] = value;
+	}
+
+	/**
+	 * Gets the value of a name.
+	 * @param name the name.
+	 * @return the value.
+	 * @throws IllegalArgumentException if the name is not in the map.
+	 */
+	public int get(String name)
+	{
+		int i = find(name);
+		if (i < 0)
+			throw new IllegalArgumentException("Variable " + name + " does not exist.");
+		return values[i];
+	}
+
+	/**
+	 * Sets the value of a name, adding the name if it is not in the map.
+	 * @param name the name.
+	 * @param value the value.
+	 * @return true if the name was added; otherwise, false.
+	 */
+	public boolean put(String name, int value)
+	{
+		int h = hash(name);
+		int i = slot(name, h);
+		values[i] = value;
+		if (names[i] != null)
+			return false;
+		names[i] = name;
+		hashes[i] = h;
+		size++;
+		if (size * 2 > names.length)
+			grow();
+		return true;
+	}
+
+	/**
+	 * Doubles the table and puts every entry back in it.
+	 */
+	private void grow()
+	{
+		String[] oldNames = names;
+		int[] oldHashes = hashes;
+		int[] oldValues = values;
+		names = new String[oldNames.length * 2];
+		hashes = new int[names.length];
+		values = new int[names.length];
+		for (int j = 0; j < oldNames.length; j++)
+		{
+			if (oldNames[j] != null)
+			{
+				int i = slot(oldNames[j], oldHashes[j]);
+				names[i] = oldNames[j];
+				hashes[i] = oldHashes[j];
+				values[i] = oldValues[j];
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of names in the map.
+	 * @return the number of entries.
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Lists the names in the map.
+	 * @return every name, in table order.
+	 */
+	public List<String> keys()
+	{
+		List<String> keys = new ArrayList<String>(size);
+		for (String name : names)
+		{
+			if (name != null)
+				keys.add(name);
+		}
+		return keys;
+	}
+}
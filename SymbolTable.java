@@ -0,0 +1,178 @@
+package scanner;
+import java.nio.CharBuffer;
+
+/**
+ * SymbolTable interns the spelling of every identifier a scanner finds, so the same
+ * name is always the same String object and can be compared with ==. It is filled
+ * with the reserved words and operators first, so one lookup tells the scanner the
+ * kind of a token as well as its symbol. Lookups are done straight on the characters
+ * of a SourceBuffer; a String is only made the first time a name is seen.
+ * A SymbolTable is not thread safe, every scanner should have its own.
+ * @author Rakesh Nori
+ * @version 6/10/2018
+ */
+public class SymbolTable
+{
+    private String[] names;
+    private TokenKind[] kinds;
+    private int[] hashes;
+    private int size;
+
+    /**
+     * Creates a SymbolTable that already holds the reserved words and operators.
+     * "mod" is entered as another spelling of %.
+     */
+    public SymbolTable()
+    {
+        names = new String[256];
+        kinds = new TokenKind[256];
+        hashes = new int[256];
+        for (int i = 0; i < TokenKind.count(); i++)
+        {
+            TokenKind kind = TokenKind.of(i);
+            if (kind.getText() != null && kind != TokenKind.EOF)
+                add(kind.getText(), kind);
+        }
+        add("mod", TokenKind.MOD);
+    }
+
+    /**
+     * Computes the hash of some characters the same way String.hashCode does.
+     * @param src the buffer holding the characters.
+     * @param start the offset of the first character.
+     * @param end the offset after the last character.
+     * @return the hash of the characters.
+     */
+    private static int hash(SourceBuffer src, int start, int end)
+    {
+        int h = 0;
+        for (int i = start; i < end; i++)
+            h = 31 * h + src.charAt(i);
+        return h;
+    }
+
+    /**
+     * Finds the slot of a spelling, or the empty slot where it belongs.
+     * @param src the buffer holding the characters.
+     * @param start the offset of the first character.
+     * @param end the offset after the last character.
+     * @param h the hash of the characters.
+     * @return the index of the slot.
+     */
+    private int slot(SourceBuffer src, int start, int end, int h)
+    {
+        int mask = names.length - 1;
+        int i = h & mask;
+        while (names[i] != null)
+        {
+            if (hashes[i] == h && src.regionEquals(start, end, names[i]))
+                return i;
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * Adds a spelling with its kind. Used for the reserved words.
+     * @param name the spelling.
+     * @param kind the kind of token it is.
+     */
+    private void add(String name, TokenKind kind)
+    {
+        int i = find(new SourceBuffer(CharBuffer.wrap(name)), 0, name.length());
+        kinds[i] = kind;
+    }
+
+    /**
+     * Looks up some characters, entering them as a new identifier if they have
+     * not been seen before.
+     * @param src the buffer holding the characters.
+     * @param start the offset of the first character.
+     * @param end the offset after the last character.
+     * @return the index of the entry, to be passed to getName and getKind.
+     */
+    public int find(SourceBuffer src, int start, int end)
+    {
+        int h = hash(src, start, end);
+        int i = slot(src, start, end, h);
+        if (names[i] == null)
+        {
+            names[i] = src.substring(start, end);
+            kinds[i] = TokenKind.IDENTIFIER;
+            hashes[i] = h;
+            size++;
+            if (size * 2 > names.length)
+            {
+                grow();
+                i = slot(src, start, end, h);
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Looks up a String, entering it as a new identifier if it has not been seen before.
+     * @param s the spelling.
+     * @return the index of the entry, to be passed to getName and getKind.
+     */
+    public int find(String s)
+    {
+        return find(new SourceBuffer(CharBuffer.wrap(s)), 0, s.length());
+    }
+
+    /**
+     * Gets the interned spelling of an entry.
+     * @param index the index returned by find.
+     * @return the one String object used for that spelling.
+     */
+    public String getName(int index)
+    {
+        return names[index];
+    }
+
+    /**
+     * Gets the kind of an entry.
+     * @param index the index returned by find.
+     * @return the reserved word or operator kind, or IDENTIFIER.
+     */
+    public TokenKind getKind(int index)
+    {
+        return kinds[index];
+    }
+
+    /**
+     * Interns a String.
+     * @param s the spelling.
+     * @return the one String object used for that spelling.
+     */
+    public String intern(String s)
+    {
+        return names[find(s)];
+    }
+
+    /**
+     * Doubles the size of the table and re-enters every entry.
+     */
+    private void grow()
+    {
+        String[] oldNames = names;
+        TokenKind[] oldKinds = kinds;
+        int[] oldHashes = hashes;
+        names = new String[oldNames.length * 2];
+        kinds = new TokenKind[names.length];
+        hashes = new int[names.length];
+        int mask = names.length - 1;
+        for (int j = 0; j < oldNames.length; j++)
+        {
+            if (oldNames[j] != null)
+            {
+                int i = oldHashes[j] & mask;
+                while (names[i] != null)
+                    i = (i + 1) & mask;
+                names[i] = oldNames[j];
+                kinds[i] = oldKinds[j];
+                hashes[i] = oldHashes[j];
+            }
+        }
+    }
+}
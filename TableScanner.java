@@ -0,0 +1,367 @@
+package scanner;
+import java.io.*;
+
+/**
+ * TableScanner is a scanner driven by two precomputed tables instead of a chain of
+ * predicate methods. CLASSES maps each of the 128 ASCII characters to a character class,
+ * and NEXT is the transition table of a DFA over those classes that recognizes
+ * identifiers, numbers, every operator (including :=, <=, <> and >=), whitespace and
+ * the three kinds of comments. Looking at the next character is one array index,
+ * there is never a mark or a reset. It produces the same tokens as Scanner and
+ * BufferScanner. As in Scanner, the '*' of an opening can start a closing, so the
+ * opening of a block comment moves straight to the state that has just seen a '*',
+ * and a number that is too large fails in Integer.parseInt. The one difference is a
+ * block comment that is never closed: Scanner never returns from it, and
+ * TableScanner ends it at the end of the input.
+ * @author Rakesh Nori
+ * @version 6/12/2018
+ * Usage:
+ * TableScanner lex = new TableScanner(SourceBuffer.map(new File(<file name>)));
+ * while (lex.next() != TokenKind.EOF)
+ *     System.out.println(lex.getLexeme());
+ */
+public class TableScanner implements TokenStream
+{
+    private static final int C_OTHER = 0;
+    private static final int C_SPACE = 1;
+    private static final int C_NEWLINE = 2;
+    private static final int C_LETTER = 3;
+    private static final int C_DIGIT = 4;
+    private static final int C_COLON = 5;
+    private static final int C_LESS = 6;
+    private static final int C_GREATER = 7;
+    private static final int C_EQUAL = 8;
+    private static final int C_SLASH = 9;
+    private static final int C_LPAREN = 10;
+    private static final int C_STAR = 11;
+    private static final int C_RPAREN = 12;
+    private static final int C_SIMPLE = 13;
+    private static final int C_END = 14;
+    private static final int NUM_CLASSES = 15;
+
+    private static final int START = 0;
+    private static final int SPACE = 1;
+    private static final int IDENT = 2;
+    private static final int NUMBER = 3;
+    private static final int OP = 4;
+    private static final int COLON = 5;
+    private static final int LESS = 6;
+    private static final int GREATER = 7;
+    private static final int SLASH = 8;
+    private static final int LPAREN = 9;
+    private static final int LINE_COMMENT = 10;
+    private static final int BLOCK = 11;
+    private static final int BLOCK_STAR = 12;
+    private static final int COMMENT_END = 13;
+    private static final int NUM_STATES = 14;
+
+    private static final int NONE = -1;
+    private static final int ERROR = -2;
+
+    private static final byte[] CLASSES = new byte[128];
+    private static final byte[] NEXT = new byte[NUM_STATES * NUM_CLASSES];
+    private static final boolean[] SKIP = new boolean[NUM_STATES];
+
+    static
+    {
+        for (char c = 'a'; c <= 'z'; c++)
+            CLASSES[c] = C_LETTER;
+        for (char c = 'A'; c <= 'Z'; c++)
+            CLASSES[c] = C_LETTER;
+        for (char c = '0'; c <= '9'; c++)
+            CLASSES[c] = C_DIGIT;
+        CLASSES[' '] = C_SPACE;
+        CLASSES['\t'] = C_SPACE;
+        CLASSES['\r'] = C_SPACE;
+        CLASSES['\n'] = C_NEWLINE;
+        CLASSES[':'] = C_COLON;
+        CLASSES['<'] = C_LESS;
+        CLASSES['>'] = C_GREATER;
+        CLASSES['='] = C_EQUAL;
+        CLASSES['/'] = C_SLASH;
+        CLASSES['('] = C_LPAREN;
+        CLASSES['*'] = C_STAR;
+        CLASSES[')'] = C_RPAREN;
+        CLASSES['+'] = C_SIMPLE;
+        CLASSES['-'] = C_SIMPLE;
+        CLASSES['%'] = C_SIMPLE;
+        CLASSES[';'] = C_SIMPLE;
+        CLASSES[','] = C_SIMPLE;
+        CLASSES['.'] = C_END;
+
+        java.util.Arrays.fill(NEXT, (byte)NONE);
+        move(START, C_OTHER, ERROR);
+        move(START, C_SPACE, SPACE);
+        move(START, C_NEWLINE, SPACE);
+        move(START, C_LETTER, IDENT);
+        move(START, C_DIGIT, NUMBER);
+        move(START, C_COLON, COLON);
+        move(START, C_LESS, LESS);
+        move(START, C_GREATER, GREATER);
+        move(START, C_EQUAL, OP);
+        move(START, C_SLASH, SLASH);
+        move(START, C_LPAREN, LPAREN);
+        move(START, C_STAR, OP);
+        move(START, C_RPAREN, OP);
+        move(START, C_SIMPLE, OP);
+        move(SPACE, C_SPACE, SPACE);
+        move(SPACE, C_NEWLINE, SPACE);
+        move(IDENT, C_LETTER, IDENT);
+        move(IDENT, C_DIGIT, IDENT);
+        move(NUMBER, C_DIGIT, NUMBER);
+        move(COLON, C_EQUAL, OP);
+        move(LESS, C_EQUAL, OP);
+        move(LESS, C_GREATER, OP);
+        move(GREATER, C_EQUAL, OP);
+        move(SLASH, C_SLASH, LINE_COMMENT);
+        move(SLASH, C_STAR, BLOCK_STAR);
+        move(LPAREN, C_STAR, BLOCK_STAR);
+        for (int c = 0; c < C_END; c++)
+        {
+            if (c != C_NEWLINE)
+                move(LINE_COMMENT, c, LINE_COMMENT);
+            move(BLOCK, c, c == C_STAR ? BLOCK_STAR : BLOCK);
+            move(BLOCK_STAR, c, BLOCK);
+        }
+        move(BLOCK_STAR, C_STAR, BLOCK_STAR);
+        move(BLOCK_STAR, C_SLASH, COMMENT_END);
+        move(BLOCK_STAR, C_RPAREN, COMMENT_END);
+
+        SKIP[SPACE] = true;
+        SKIP[LINE_COMMENT] = true;
+        SKIP[BLOCK] = true;
+        SKIP[BLOCK_STAR] = true;
+        SKIP[COMMENT_END] = true;
+    }
+
+    private SourceBuffer src;
+    private SymbolTable symbols;
+    private int pos;
+    private int limit;
+    private int line;
+    private TokenKind kind;
+    private String symbol;
+    private int value;
+    private int tokenStart;
+    private int tokenEnd;
+    private int tokenLine;
+
+    /**
+     * Creates a TableScanner over a SourceBuffer.
+     * @param source the text to scan.
+     */
+    public TableScanner(SourceBuffer source)
+    {
+        this(source, 0, source.length(), 1, new SymbolTable());
+    }
+
+    /**
+     * Creates a TableScanner over a part of a SourceBuffer.
+     * @param source the text to scan.
+     * @param from the offset where scanning starts.
+     * @param to the offset where the input ends.
+     * @param firstLine the line number at offset from.
+     * @param table the SymbolTable identifiers are interned in.
+     */
+    public TableScanner(SourceBuffer source, int from, int to, int firstLine, SymbolTable table)
+    {
+        src = source;
+        pos = from;
+        limit = to;
+        line = firstLine;
+        symbols = table;
+        kind = TokenKind.EOF;
+        tokenStart = from;
+        tokenEnd = from;
+    }
+
+    /**
+     * Adds a transition to the DFA.
+     * @param state the state the DFA is in.
+     * @param charClass the class of the next character.
+     * @param target the state the DFA moves to, or ERROR.
+     */
+    private static void move(int state, int charClass, int target)
+    {
+        NEXT[state * NUM_CLASSES + charClass] = (byte)target;
+    }
+
+    /**
+     * Gets the class of the character at an offset.
+     * @param index the offset of the character.
+     * @return the character class, C_END past the end of the input.
+     */
+    private int classAt(int index)
+    {
+        if (index >= limit)
+            return C_END;
+        char c = src.charAt(index);
+        if (c >= 128)
+            return C_OTHER;
+        return CLASSES[c];
+    }
+
+    /**
+     * Runs the DFA from the start state until it has no transition, skipping
+     * whitespace and comments, and leaves the offsets of the token it stopped on.
+     * @return the state the DFA accepted in, START at the end of the input.
+     * @throws ScanErrorException if an illegal character is present.
+     */
+    private int run() throws ScanErrorException
+    {
+        while (true)
+        {
+            int state = START;
+            tokenStart = pos;
+            tokenLine = line;
+            while (true)
+            {
+                int charClass = classAt(pos);
+                int target = NEXT[state * NUM_CLASSES + charClass];
+                if (target < 0)
+                {
+                    if (target == ERROR)
+                        throw new ScanErrorException("Illegal character on line " + line
+                                                     + ": " + src.charAt(pos));
+                    break;
+                }
+                if (charClass == C_NEWLINE)
+                    line++;
+                pos++;
+                state = target;
+            }
+            tokenEnd = pos;
+            if (!SKIP[state])
+                return state;
+        }
+    }
+
+    /**
+     * Moves to the next token and works out its kind.
+     * @return the kind of the new current token, EOF at the end of the input.
+     * @throws ScanErrorException if an illegal character is present.
+     * @throws NumberFormatException if a number is too large, as in Scanner.
+     */
+    public TokenKind next() throws ScanErrorException
+    {
+        int state = run();
+        symbol = null;
+        if (state == START)
+            kind = TokenKind.EOF;
+        else if (state == IDENT)
+        {
+            int entry = symbols.find(src, tokenStart, tokenEnd);
+            kind = symbols.getKind(entry);
+            symbol = symbols.getName(entry);
+        }
+        else if (state == NUMBER)
+        {
+            long n = 0;
+            for (int i = tokenStart; i < tokenEnd; i++)
+            {
+                n = n * 10 + (src.charAt(i) - '0');
+                if (n > Integer.MAX_VALUE)
+                {
+                    n = Integer.parseInt(src.substring(tokenStart, tokenEnd));
+                    break;
+                }
+            }
+            kind = TokenKind.NUMBER;
+            value = (int)n;
+        }
+        else
+        {
+            char second = 0;
+            if (tokenEnd - tokenStart == 2)
+                second = src.charAt(tokenStart + 1);
+            kind = BufferScanner.operatorKind(src.charAt(tokenStart), second);
+            symbol = kind.getText();
+        }
+        return kind;
+    }
+
+    /**
+     * Gets the kind of the current token.
+     * @return the kind of the current token.
+     */
+    public TokenKind getKind()
+    {
+        return kind;
+    }
+
+    /**
+     * Gets the interned name of the current identifier, or the spelling
+     * of the current reserved word or operator.
+     * @return the symbol of the current token, null for a number.
+     */
+    public String getSymbol()
+    {
+        return symbol;
+    }
+
+    /**
+     * Gets the value of the current token if it is a number.
+     * @return the value of the current number.
+     */
+    public int getValue()
+    {
+        return value;
+    }
+
+    /**
+     * Gets the line the current token is on.
+     * @return the line number of the current token.
+     */
+    public int getTokenLine()
+    {
+        return tokenLine;
+    }
+
+    /**
+     * Gets the offset of the first character of the current token.
+     * @return the start offset of the current token.
+     */
+    public int getTokenStart()
+    {
+        return tokenStart;
+    }
+
+    /**
+     * Gets the offset after the last character of the current token.
+     * @return the end offset of the current token.
+     */
+    public int getTokenEnd()
+    {
+        return tokenEnd;
+    }
+
+    /**
+     * Makes a String out of the current token.
+     * @return the lexeme of the current token, or "EOF" at the end of the input.
+     */
+    public String getLexeme()
+    {
+        if (kind == TokenKind.EOF)
+            return "EOF";
+        return src.substring(tokenStart, tokenEnd);
+    }
+
+    /**
+     * The main method that scans a file with the table driven DFA.
+     * @param args list of arguments from the command line, the first one
+     * 		  being the name of the file to scan.
+     * @throws ScanErrorException if an illegal character is present in the file.
+     * @throws IOException if the file cannot be mapped.
+     */
+    public static void main(String [] args) throws ScanErrorException, IOException
+    {
+        String name = "ScannerTest.txt";
+        if (args.length > 0)
+            name = args[0];
+        TableScanner sc = new TableScanner(SourceBuffer.map(new File(name)));
+        while (sc.next() != TokenKind.EOF)
+        {
+            System.out.println(sc.getLexeme());
+        }
+    }
+}
@@ -0,0 +1,388 @@
+package vm;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import ast.Assignment;
+import ast.BinOp;
+import ast.Block;
+import ast.Condition;
+import ast.Expression;
+import ast.For;
+import ast.If;
+import ast.Negate;
+import ast.Number;
+import ast.ProcedureCall;
+import ast.ProcedureDeclaration;
+import ast.Program;
+import ast.Readln;
+import ast.Statement;
+import ast.Variable;
+import ast.While;
+import ast.Writeln;
+
+/**
+ * Tiers decides when a resolved Program stops interpreting a procedure or a WHILE loop
+ * and runs compiled code instead. Every ProcedureDeclaration counts its calls and every
+ * While counts its back-edges while they are interpreted on Frames, and once a count
+ * reaches its threshold they ask Tiers for compiled code. The first request compiles
+ * every procedure and every WHILE loop of the program with JvmCompiler.compileTiers,
+ * and each later request only looks up its method in that class. The compiled code
+ * reads and writes the same global slots as the interpreter, so the two tiers can be
+ * mixed freely, and a loop that becomes hot finishes its remaining iterations in
+ * compiled code. Every switch to compiled code is recorded, so the thresholds can be
+ * tuned by looking at which procedures and loops got compiled and when.
+ * Compiled code calls procedures straight through their methods, which would skip the
+ * MemoTable of a memoized procedure, so a procedure or loop that can reach a memoized
+ * procedure, directly or through other calls, is never compiled and stays
+ * interpreted. The program has to be memoized before any of it becomes hot.
+ * @author Rakesh Nori
+ * @version 6/27/2018
+ * Usage:
+ * Tiers tiers = new Tiers();
+ * prog.resolve(new Resolver(tiers));
+ * prog.exec(new Frame(prog.getFrameSize(), null));
+ * System.out.println(tiers.getTransitions());
+ */
+public class Tiers
+{
+	/** How many interpreted calls make a procedure hot, unless set otherwise. */
+	public static final int INVOCATION_THRESHOLD = 1000;
+	/** How many interpreted iterations make a WHILE loop hot, unless set otherwise. */
+	public static final int BACK_EDGE_THRESHOLD = 10000;
+
+	private int invocationThreshold;
+	private int backEdgeThreshold;
+	private Program program;
+	private List<While> loops = new ArrayList<While>();
+	private List<ProcedureDeclaration> owners = new ArrayList<ProcedureDeclaration>();
+	private MethodHandles.Lookup compiled;
+	private Set<String> interpreted;
+	private List<String> transitions = new ArrayList<String>();
+
+	/**
+	 * Creates a Tiers with the default thresholds.
+	 */
+	public Tiers()
+	{
+		this(INVOCATION_THRESHOLD, BACK_EDGE_THRESHOLD);
+	}
+
+	/**
+	 * Creates a Tiers.
+	 * @param invocations how many interpreted calls make a procedure hot.
+	 * @param backEdges how many interpreted iterations make a WHILE loop hot.
+	 */
+	public Tiers(int invocations, int backEdges)
+	{
+		invocationThreshold = invocations;
+		backEdgeThreshold = backEdges;
+	}
+
+	/**
+	 * Gets how many interpreted calls make a procedure hot.
+	 * @return the invocation threshold.
+	 */
+	public int getInvocationThreshold()
+	{
+		return invocationThreshold;
+	}
+
+	/**
+	 * Sets how many interpreted calls make a procedure hot.
+	 * @param invocations the invocation threshold.
+	 */
+	public void setInvocationThreshold(int invocations)
+	{
+		invocationThreshold = invocations;
+	}
+
+	/**
+	 * Gets how many interpreted iterations make a WHILE loop hot.
+	 * @return the back-edge threshold.
+	 */
+	public int getBackEdgeThreshold()
+	{
+		return backEdgeThreshold;
+	}
+
+	/**
+	 * Sets how many interpreted iterations make a WHILE loop hot.
+	 * @param backEdges the back-edge threshold.
+	 */
+	public void setBackEdgeThreshold(int backEdges)
+	{
+		backEdgeThreshold = backEdges;
+	}
+
+	/**
+	 * Registers a WHILE loop while the program is being resolved.
+	 * @param w the While loop.
+	 * @param owner the procedure the loop is in, or null for the main statement.
+	 */
+	public void register(While w, ProcedureDeclaration owner)
+	{
+		loops.add(w);
+		owners.add(owner);
+	}
+
+	/**
+	 * Attaches the Program once it has been resolved, so it can be compiled later.
+	 * @param prog the resolved Program.
+	 */
+	public void attach(Program prog)
+	{
+		program = prog;
+	}
+
+	/**
+	 * Compiles the whole program the first time any of it becomes hot.
+	 * @return a Lookup on the compiled class.
+	 * @throws IllegalStateException if no Program has been attached.
+	 */
+	private MethodHandles.Lookup compiled()
+	{
+		if (program == null)
+			throw new IllegalStateException("No resolved Program is attached.");
+		if (compiled == null)
+		{
+			interpreted = findInterpreted();
+			compiled = new JvmCompiler().compileTiers(program, loops, owners);
+		}
+		return compiled;
+	}
+
+	/**
+	 * Finds the procedures that have to stay interpreted: the memoized ones, and every
+	 * procedure that calls one of them, directly or through other procedures.
+	 * @return the names of the procedures.
+	 */
+	private Set<String> findInterpreted()
+	{
+		Set<String> names = new HashSet<String>();
+		for (ProcedureDeclaration p : program.getProcedures())
+		{
+			if (p.getMemo() != null)
+				names.add(p.getName());
+		}
+		boolean changed = true;
+		while (changed)
+		{
+			changed = false;
+			for (ProcedureDeclaration p : program.getProcedures())
+			{
+				if (!names.contains(p.getName()) && calls(p.getBody(), names))
+				{
+					names.add(p.getName());
+					changed = true;
+				}
+			}
+		}
+		return names;
+	}
+
+	/**
+	 * Checks if a Statement can call one of the given procedures.
+	 * @param s the Statement.
+	 * @param names the names of the procedures.
+	 * @return true if it calls one of them, or is a kind of Statement this does not
+	 * 		   know; otherwise, false.
+	 */
+	private static boolean calls(Statement s, Set<String> names)
+	{
+		if (s instanceof Block)
+		{
+			for (Statement inner : ((Block)s).getStatements())
+			{
+				if (calls(inner, names))
+					return true;
+			}
+			return false;
+		}
+		if (s instanceof Assignment)
+			return calls(((Assignment)s).getExpression(), names);
+		if (s instanceof Writeln)
+			return calls(((Writeln)s).getExpression(), names);
+		if (s instanceof Readln)
+			return false;
+		if (s instanceof If)
+		{
+			If f = (If)s;
+			return calls(f.getCondition(), names) || calls(f.getThen(), names)
+				   || (f.getElse() != null && calls(f.getElse(), names));
+		}
+		if (s instanceof While)
+			return calls(((While)s).getCondition(), names) || calls(((While)s).getBody(), names);
+		if (s instanceof For)
+		{
+			For f = (For)s;
+			return calls(f.getStart(), names) || calls(f.getLimit(), names)
+				   || calls(f.getBody(), names);
+		}
+		return true;
+	}
+
+	/**
+	 * Checks if an Expression can call one of the given procedures.
+	 * @param e the Expression.
+	 * @param names the names of the procedures.
+	 * @return true if it calls one of them, or is a kind of Expression this does not
+	 * 		   know; otherwise, false.
+	 */
+	private static boolean calls(Expression e, Set<String> names)
+	{
+		if (e instanceof Number || e instanceof Variable)
+			return false;
+		if (e instanceof BinOp)
+			return calls(((BinOp)e).getLeft(), names) || calls(((BinOp)e).getRight(), names);
+		if (e instanceof Condition)
+			return calls(((Condition)e).getLeft(), names)
+				   || calls(((Condition)e).getRight(), names);
+		if (e instanceof Negate)
+			return calls(((Negate)e).getExpression(), names);
+		if (e instanceof ProcedureCall)
+		{
+			ProcedureCall call = (ProcedureCall)e;
+			if (names.contains(call.getName()))
+				return true;
+			List<Expression> args = call.getArgs();
+			for (Expression arg : args == null ? new ArrayList<Expression>() : args)
+			{
+				if (calls(arg, names))
+					return true;
+			}
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Gets compiled code for a procedure that has become hot.
+	 * @param p the ProcedureDeclaration.
+	 * @param calls how many times it was called while interpreted.
+	 * @return a MethodHandle that takes the global slots and an array of the arguments
+	 * 		   and returns the value of the call, for call, or null if the procedure
+	 * 		   has to stay interpreted because it can reach a memoized procedure.
+	 */
+	public synchronized MethodHandle compile(ProcedureDeclaration p, int calls)
+	{
+		int args = p.getArgs().size();
+		MethodType type = MethodType.methodType(int.class, int[].class);
+		for (int i = 0; i < args; i++)
+			type = type.appendParameterTypes(int.class);
+		try
+		{
+			MethodHandles.Lookup lookup = compiled();
+			if (interpreted.contains(p.getName()))
+				return null;
+			MethodHandle h = lookup.findStatic(lookup.lookupClass(), "proc" + p.getName(), type);
+			transitions.add("procedure " + p.getName() + " compiled after " + calls + " calls");
+			return h.asSpreader(int[].class, args);
+		}
+		catch (IllegalAccessException | NoSuchMethodException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Gets compiled code for a WHILE loop that has become hot.
+	 * @param w the While loop, which must have been registered.
+	 * @param backEdges how many iterations it ran while interpreted.
+	 * @return a MethodHandle that takes the global slots and the slots of the Frame
+	 * 		   the loop runs in, for run, or null if the loop has to stay interpreted
+	 * 		   because it can reach a memoized procedure.
+	 */
+	public synchronized MethodHandle compile(While w, int backEdges)
+	{
+		int index = loops.indexOf(w);
+		if (index < 0)
+			throw new IllegalStateException("The loop was never registered.");
+		try
+		{
+			MethodHandles.Lookup lookup = compiled();
+			if (calls(w.getCondition(), interpreted) || calls(w.getBody(), interpreted))
+				return null;
+			MethodHandle h = lookup.findStatic(lookup.lookupClass(), "loop" + index,
+					MethodType.methodType(void.class, int[].class, int[].class));
+			ProcedureDeclaration owner = owners.get(index);
+			transitions.add("loop " + index + " in "
+							+ (owner == null ? "the main statement" : owner.getName())
+							+ " compiled after " + backEdges + " iterations");
+			return h;
+		}
+		catch (IllegalAccessException | NoSuchMethodException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Gets every switch to compiled code so far, in order.
+	 * @return a description of each procedure and loop that was compiled.
+	 */
+	public synchronized List<String> getTransitions()
+	{
+		return Collections.unmodifiableList(new ArrayList<String>(transitions));
+	}
+
+	/**
+	 * Gets how many procedures and loops have switched to compiled code.
+	 * @return the number of transitions.
+	 */
+	public synchronized int getCompiledCount()
+	{
+		return transitions.size();
+	}
+
+	/**
+	 * Calls a compiled procedure.
+	 * @param h the MethodHandle from compile.
+	 * @param globals the slots of the global Frame.
+	 * @param args the values of the arguments.
+	 * @return the value the procedure assigned to its name.
+	 */
+	public static int call(MethodHandle h, int[] globals, int[] args)
+	{
+		try
+		{
+			return (int)h.invokeExact(globals, args);
+		}
+		catch (RuntimeException | Error e)
+		{
+			throw e;
+		}
+		catch (Throwable t)
+		{
+			throw new IllegalStateException(t);
+		}
+	}
+
+	/**
+	 * Runs a compiled WHILE loop until its condition is false.
+	 * @param h the MethodHandle from compile.
+	 * @param globals the slots of the global Frame.
+	 * @param frame the slots of the Frame the loop runs in.
+	 */
+	public static void run(MethodHandle h, int[] globals, int[] frame)
+	{
+		try
+		{
+			h.invokeExact(globals, frame);
+		}
+		catch (RuntimeException | Error e)
+		{
+			throw e;
+		}
+		catch (Throwable t)
+		{
+			throw new IllegalStateException(t);
+		}
+	}
+}
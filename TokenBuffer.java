@@ -0,0 +1,256 @@
+package scanner;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+/**
+ * TokenBuffer stores a list of scanned tokens in parallel primitive arrays instead of
+ * one object per token. It is also a TokenStream, so a Parser can read the tokens
+ * back from the start after the whole input has been scanned.
+ * @author Rakesh Nori
+ * @version 6/14/2018
+ */
+public class TokenBuffer implements TokenStream
+{
+    private SourceBuffer src;
+    private byte[] kinds;
+    private String[] symbols;
+    private int[] values;
+    private int[] lines;
+    private int[] starts;
+    private int[] ends;
+    private int size;
+    private int cursor;
+
+    /**
+     * Creates an empty TokenBuffer.
+     * @param source the text the tokens were scanned from, used by getLexeme.
+     */
+    public TokenBuffer(SourceBuffer source)
+    {
+        src = source;
+        kinds = new byte[64];
+        symbols = new String[64];
+        values = new int[64];
+        lines = new int[64];
+        starts = new int[64];
+        ends = new int[64];
+        cursor = -1;
+    }
+
+    /**
+     * Adds a token at the end of the buffer.
+     * @param kind the kind of the token.
+     * @param symbol the symbol of the token, null for a number.
+     * @param value the value of the token if it is a number.
+     * @param line the line the token is on.
+     * @param start the offset of the first character of the token.
+     * @param end the offset after the last character of the token.
+     */
+    public void add(TokenKind kind, String symbol, int value, int line, int start, int end)
+    {
+        if (size == kinds.length)
+            grow(size * 2);
+        kinds[size] = (byte)kind.ordinal();
+        symbols[size] = symbol;
+        values[size] = value;
+        lines[size] = line;
+        starts[size] = start;
+        ends[size] = end;
+        size++;
+    }
+
+    /**
+     * Adds the first count tokens of another buffer, moving their line numbers and
+     * replacing their symbols with the ones interned in the given table.
+     * @param other the buffer whose tokens are added.
+     * @param count how many of its tokens to add.
+     * @param lineOffset the amount added to every line number.
+     * @param table the SymbolTable the symbols are interned into.
+     */
+    public void append(TokenBuffer other, int count, int lineOffset, SymbolTable table)
+    {
+        if (size + count > kinds.length)
+            grow(Math.max(size * 2, size + count));
+        IdentityHashMap<String, String> interned = new IdentityHashMap<String, String>();
+        for (int i = 0; i < count; i++)
+        {
+            String symbol = other.symbols[i];
+            if (symbol != null)
+            {
+                String mine = interned.get(symbol);
+                if (mine == null)
+                {
+                    mine = table.intern(symbol);
+                    interned.put(symbol, mine);
+                }
+                symbol = mine;
+            }
+            symbols[size + i] = symbol;
+        }
+        System.arraycopy(other.kinds, 0, kinds, size, count);
+        System.arraycopy(other.values, 0, values, size, count);
+        System.arraycopy(other.starts, 0, starts, size, count);
+        System.arraycopy(other.ends, 0, ends, size, count);
+        for (int i = 0; i < count; i++)
+            lines[size + i] = other.lines[i] + lineOffset;
+        size += count;
+    }
+
+    /**
+     * Empties the buffer so its arrays can be filled again.
+     * @postcondition the buffer has no tokens and its stream is back at the start.
+     */
+    public void clear()
+    {
+        Arrays.fill(symbols, 0, size, null);
+        size = 0;
+        cursor = -1;
+    }
+
+    /**
+     * Makes every array in the buffer bigger.
+     * @param capacity the new length of the arrays.
+     */
+    private void grow(int capacity)
+    {
+        kinds = Arrays.copyOf(kinds, capacity);
+        symbols = Arrays.copyOf(symbols, capacity);
+        values = Arrays.copyOf(values, capacity);
+        lines = Arrays.copyOf(lines, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        ends = Arrays.copyOf(ends, capacity);
+    }
+
+    /**
+     * Gets the number of tokens in the buffer.
+     * @return the number of tokens.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Gets the kind of a token.
+     * @param i the index of the token.
+     * @return the kind of the token.
+     */
+    public TokenKind kindAt(int i)
+    {
+        return TokenKind.of(kinds[i]);
+    }
+
+    /**
+     * Gets the symbol of a token.
+     * @param i the index of the token.
+     * @return the symbol of the token, null for a number.
+     */
+    public String symbolAt(int i)
+    {
+        return symbols[i];
+    }
+
+    /**
+     * Gets the value of a token.
+     * @param i the index of the token.
+     * @return the value of the token if it is a number.
+     */
+    public int valueAt(int i)
+    {
+        return values[i];
+    }
+
+    /**
+     * Gets the line of a token.
+     * @param i the index of the token.
+     * @return the line the token is on.
+     */
+    public int lineAt(int i)
+    {
+        return lines[i];
+    }
+
+    /**
+     * Gets the start offset of a token.
+     * @param i the index of the token.
+     * @return the offset of the first character of the token.
+     */
+    public int startAt(int i)
+    {
+        return starts[i];
+    }
+
+    /**
+     * Gets the end offset of a token.
+     * @param i the index of the token.
+     * @return the offset after the last character of the token.
+     */
+    public int endAt(int i)
+    {
+        return ends[i];
+    }
+
+    /**
+     * Makes a String out of a token.
+     * @param i the index of the token.
+     * @return the lexeme of the token, or "EOF" for the end of the input.
+     */
+    public String getLexeme(int i)
+    {
+        if (kinds[i] == TokenKind.EOF.ordinal())
+            return "EOF";
+        return src.substring(starts[i], ends[i]);
+    }
+
+    /**
+     * Moves to the next token in the buffer. Once the last token has been
+     * reached, the stream stays on it.
+     * @return the kind of the new current token.
+     */
+    public TokenKind next()
+    {
+        if (cursor < size - 1)
+            cursor++;
+        if (cursor < 0)
+            return TokenKind.EOF;
+        return TokenKind.of(kinds[cursor]);
+    }
+
+    /**
+     * Gets the kind of the current token.
+     * @return the kind of the current token.
+     */
+    public TokenKind getKind()
+    {
+        if (cursor < 0)
+            return TokenKind.EOF;
+        return TokenKind.of(kinds[cursor]);
+    }
+
+    /**
+     * Gets the symbol of the current token.
+     * @return the symbol of the current token, null for a number.
+     */
+    public String getSymbol()
+    {
+        return symbols[cursor];
+    }
+
+    /**
+     * Gets the value of the current token if it is a number.
+     * @return the value of the current number.
+     */
+    public int getValue()
+    {
+        return values[cursor];
+    }
+
+    /**
+     * Gets the line the current token is on.
+     * @return the line number of the current token.
+     */
+    public int getTokenLine()
+    {
+        return lines[cursor];
+    }
+}
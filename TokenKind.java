@@ -0,0 +1,105 @@
+package scanner;
+
+/**
+ * TokenKind lists every kind of token the scanners can produce. Reserved words and
+ * operators each have their own kind, so the parser never has to compare Strings.
+ * @author Rakesh Nori
+ * @version 6/10/2018
+ */
+public enum TokenKind
+{
+    IDENTIFIER(null),
+    NUMBER(null),
+    EOF("EOF"),
+    VAR("VAR"),
+    PROCEDURE("PROCEDURE"),
+    BEGIN("BEGIN"),
+    END("END"),
+    WRITELN("WRITELN"),
+    READLN("READLN"),
+    IF("IF"),
+    THEN("THEN"),
+    ELSE("ELSE"),
+    WHILE("WHILE"),
+    DO("DO"),
+    FOR("FOR"),
+    TO("TO"),
+    ASSIGN(":="),
+    PLUS("+"),
+    MINUS("-"),
+    TIMES("*"),
+    DIVIDE("/"),
+    MOD("%"),
+    LPAREN("("),
+    RPAREN(")"),
+    SEMICOLON(";"),
+    COLON(":"),
+    COMMA(","),
+    EQUAL("="),
+    NOT_EQUAL("<>"),
+    LESS("<"),
+    LESS_EQUAL("<="),
+    GREATER(">"),
+    GREATER_EQUAL(">=");
+
+    private static final TokenKind[] KINDS = values();
+    private String text;
+
+    /**
+     * Creates a TokenKind.
+     * @param spelling how the token is written in the source,
+     * 		  or null if it depends on the token.
+     */
+    private TokenKind(String spelling)
+    {
+        text = spelling;
+    }
+
+    /**
+     * Gets how a token of this kind is written.
+     * @return the spelling of the token, or null for identifiers and numbers.
+     */
+    public String getText()
+    {
+        return text;
+    }
+
+    /**
+     * Checks if this kind is a reserved word.
+     * @return true if the kind is a reserved word; otherwise,
+     * 		   false.
+     */
+    public boolean isKeyword()
+    {
+        return compareTo(VAR) >= 0 && compareTo(TO) <= 0;
+    }
+
+    /**
+     * Checks if this kind is one of the relational operators used in a Condition.
+     * @return true if the kind is =, <>, <, <=, > or >=; otherwise,
+     * 		   false.
+     */
+    public boolean isRelational()
+    {
+        return compareTo(EQUAL) >= 0;
+    }
+
+    /**
+     * Gets the TokenKind with the given ordinal without copying the values array.
+     * @param ordinal the ordinal of the kind.
+     * @return the TokenKind with that ordinal.
+     */
+    public static TokenKind of(int ordinal)
+    {
+        return KINDS[ordinal];
+    }
+
+    /**
+     * Gets the number of kinds, used for sizing tables indexed by ordinal.
+     * @return the number of TokenKinds.
+     */
+    public static int count()
+    {
+        return KINDS.length;
+    }
+}
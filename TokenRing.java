@@ -0,0 +1,138 @@
+package scanner;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * TokenRing is a bounded ring of TokenBuffers shared by exactly one producer thread,
+ * which scans, and one consumer thread, which parses. It uses no locks: the producer
+ * only ever moves the tail and the consumer only ever moves the head, and each side
+ * publishes its move with an ordered write that the other side reads. When the ring is
+ * full the producer waits, which keeps the scanner from running too far ahead of the
+ * parser; when it is empty the consumer waits. The TokenBuffers are made once and
+ * reused, so passing tokens through the ring does not allocate.
+ * @author Rakesh Nori
+ * @version 6/16/2018
+ */
+public class TokenRing
+{
+    private TokenBuffer[] slots;
+    private int mask;
+    private AtomicLong head = new AtomicLong();
+    private AtomicLong tail = new AtomicLong();
+    private volatile boolean finished;
+    private volatile boolean closed;
+
+    /**
+     * Creates a TokenRing.
+     * @param capacity how many batches the ring holds, rounded up to a power of two;
+     * 		  one batch is enough, since head and tail count batches without wrapping.
+     * @param source the text being scanned, passed on to the TokenBuffers.
+     */
+    public TokenRing(int capacity, SourceBuffer source)
+    {
+        int size = capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        slots = new TokenBuffer[size];
+        for (int i = 0; i < size; i++)
+            slots[i] = new TokenBuffer(source);
+        mask = size - 1;
+    }
+
+    /**
+     * Waits a little, first by spinning, then by yielding, then by sleeping,
+     * depending on how long the caller has been waiting.
+     * @param tries how many times the caller has waited already.
+     */
+    private static void pause(int tries)
+    {
+        if (tries < 64)
+            Thread.onSpinWait();
+        else if (tries < 128)
+            Thread.yield();
+        else
+            LockSupport.parkNanos(20000);
+    }
+
+    /**
+     * Gets an empty batch to fill, waiting while the ring is full.
+     * Only the producer may call this.
+     * @return the cleared batch at the tail, or null if the ring was closed.
+     */
+    public TokenBuffer claim()
+    {
+        long t = tail.get();
+        int tries = 0;
+        while (t - head.get() == slots.length)
+        {
+            if (closed)
+                return null;
+            pause(tries++);
+        }
+        TokenBuffer batch = slots[(int)t & mask];
+        batch.clear();
+        return batch;
+    }
+
+    /**
+     * Hands the batch from the last claim over to the consumer.
+     * Only the producer may call this.
+     */
+    public void publish()
+    {
+        tail.lazySet(tail.get() + 1);
+    }
+
+    /**
+     * Tells the consumer that nothing more will be published.
+     * Only the producer may call this.
+     */
+    public void finish()
+    {
+        finished = true;
+    }
+
+    /**
+     * Gets the next filled batch, waiting while the ring is empty.
+     * Only the consumer may call this.
+     * @return the batch at the head, or null if the producer has finished
+     * 		   and every batch has been taken.
+     */
+    public TokenBuffer take()
+    {
+        long h = head.get();
+        int tries = 0;
+        while (h == tail.get())
+        {
+            if (finished && h == tail.get())
+                return null;
+            pause(tries++);
+        }
+        return slots[(int)h & mask];
+    }
+
+    /**
+     * Gives the batch from the last take back to the producer.
+     * Only the consumer may call this.
+     */
+    public void release()
+    {
+        head.lazySet(head.get() + 1);
+    }
+
+    /**
+     * Stops the producer from waiting for space, used when the consumer gives up early.
+     */
+    public void close()
+    {
+        closed = true;
+    }
+
+    /**
+     * Checks if the consumer has given up.
+     * @return true if close has been called; otherwise,
+     * 		   false.
+     */
+    public boolean isClosed()
+    {
+        return closed;
+    }
+}
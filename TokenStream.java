@@ -0,0 +1,45 @@
+package scanner;
+import java.io.IOException;
+
+/**
+ * TokenStream is the typed token interface the Parser reads from. Instead of
+ * returning every token as a String, a TokenStream moves to the next token and
+ * then describes the current one with a TokenKind, its interned symbol and its value.
+ * @author Rakesh Nori
+ * @version 6/10/2018
+ */
+public interface TokenStream
+{
+    /**
+     * Moves to the next token.
+     * @return the kind of the new current token, EOF at the end of the input.
+     * @throws ScanErrorException if an illegal character is present.
+     * @throws IOException if the input cannot be read.
+     */
+    TokenKind next() throws ScanErrorException, IOException;
+
+    /**
+     * Gets the kind of the current token.
+     * @return the kind of the current token.
+     */
+    TokenKind getKind();
+
+    /**
+     * Gets the symbol of the current token. Identifiers are interned,
+     * so two identifiers with the same name give the same String object.
+     * @return the identifier's name, or the spelling of a reserved word or operator.
+     */
+    String getSymbol();
+
+    /**
+     * Gets the value of the current token if it is a NUMBER.
+     * @return the integer value of the number.
+     */
+    int getValue();
+
+    /**
+     * Gets the line the current token is on.
+     * @return the line number of the current token.
+     */
+    int getTokenLine();
+}
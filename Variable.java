@@ -1,7 +1,13 @@
 package ast;
 
+import java.util.function.ToIntFunction;
+
 import emitter.Emitter;
+import emitter.Operand;
 import environment.Environment;
+import environment.Frame;
+import vm.Bytecode;
+import vm.BytecodeEmitter;
 
 /**
  * The Variable class holds a String name and has a value corresponding to it, 
@@ -12,6 +18,8 @@ import environment.Environment;
 public class Variable extends Expression
 {
 	private String name;
+	private int depth;
+	private int slot;
 	/**
 	 * Instantiates the Variable Object and gives it a name 
 	 * that can be used when accessing its value.
@@ -35,22 +43,96 @@ public class Variable extends Expression
 		return env.getVariable(name);
 	}
 	
+	/**
+	 * Finds the Frame slot of the variable.
+	 * @param r the Resolver that knows where every variable lives.
+	 */
+	public void resolve(Resolver r)
+	{
+		depth = r.getDepth(name);
+		slot = r.getSlot(name);
+	}
+	
+	/**
+	 * Reads the value of the variable from its resolved Frame slot.
+	 * @param frame the Frame of the procedure or program being run.
+	 * @return the Integer value of the Variable object.
+	 */
+	public int eval(Frame frame)
+	{
+		return frame.get(depth, slot);
+	}
+	
+	/**
+	 * Links the variable into a closure that reads its slot directly, from the 
+	 * Frame it is given or, for a global inside a procedure, from its parent.
+	 * @return a closure that evaluates the variable in a Frame.
+	 */
+	public ToIntFunction<Frame> link()
+	{
+		int s = slot;
+		if (depth == 0)
+			return f -> f.getSlots()[s];
+		return f -> f.getPadre().getSlots()[s];
+	}
+	
+	/**
+	 * Gets how many Frames up the variable lives, as found by the Resolver.
+	 * @return the depth of the variable.
+	 */
+	public int getDepth()
+	{
+		return depth;
+	}
+	
+	/**
+	 * Gets the Frame slot of the variable, as found by the Resolver.
+	 * @return the slot of the variable.
+	 */
+	public int getSlot()
+	{
+		return slot;
+	}
+	
+	/**
+	 * Pushes the value of the variable from its resolved slot.
+	 * @param b the BytecodeEmitter that collects the instructions.
+	 */
+	public void compile(BytecodeEmitter b)
+	{
+		b.emitLoad(depth, slot);
+	}
+	
+	/**
+	 * Gets the name of the Variable.
+	 * @return the name of the Variable.
+	 */
+	public String getName()
+	{
+		return name;
+	}
+	
 	/**
 	 * loads the value of a variable into $v0.
 	 * @param e the Emitter that converts code to the MIPS file.
 	 */
 	public void compile(Emitter e)
+	{
+		compileTo(e, "$v0");
+	}
+	
+	/**
+	 * Loads the value of the variable into a register, from the stack if it is local 
+	 * and from its label if it is global.
+	 * @param e the Emitter that converts code to the MIPS file.
+	 * @param reg the register to load the value into.
+	 */
+	public void compileTo(Emitter e, String reg)
 	{
 		if (e.isLocalVariable(name))
-		{
-			String s = "lw $v0, " + e.getOffset(name) + "($sp)";
-			e.emit(s);
-		}
+			e.emit("lw", Operand.register(reg), Operand.memory(e.getOffset(name), "$sp"));
 		else
-		{
-			e.emit("la $t0, var" + name);
-			e.emit("lw $v0, ($t0)");
-		}
+			e.emit("lw", Operand.register(reg), Operand.symbol("var" + name));
 	}
 	
 	/**
@@ -0,0 +1,303 @@
+package vm;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Scanner;
+
+/**
+ * The VirtualMachine runs Bytecode with one int array as its stack. A procedure's
+ * frame lives on the same stack: the caller pushes the return slot and the arguments,
+ * CALL makes room for the local variables above them, and RET drops everything but
+ * the return slot, which becomes the value of the call. The return addresses and
+ * saved frame pointers are kept on a separate int array. The main loop keeps the
+ * program counter, stack pointer, frame pointer and the value on top of the stack in
+ * local variables, so most instructions touch the stack array once or not at all, and
+ * it dispatches on the opcode with a switch. Nothing is allocated while it runs.
+ * Calls never recurse on the Java stack, so the depth of recursion is only limited by
+ * the size the stack array may grow to, which can be set with setStackLimit. This is
+ * the mode for programs that recurse deeper than the Java stack allows: a call takes
+ * a few slots of one flat int array instead of a Java stack frame, and no Java object
+ * is allocated per call.
+ * @author Rakesh Nori
+ * @version 7/1/2018
+ */
+public class VirtualMachine
+{
+	private Bytecode program;
+	private int[] globals;
+	private int[] stack = new int[1024];
+	private int[] calls = new int[64];
+	private int stackLimit = Integer.MAX_VALUE - 8;
+	private PrintStream out;
+	private Scanner in;
+
+	/**
+	 * Creates a VirtualMachine that prints to System.out.
+	 * @param b the compiled program.
+	 */
+	public VirtualMachine(Bytecode b)
+	{
+		this(b, System.out);
+	}
+
+	/**
+	 * Creates a VirtualMachine.
+	 * @param b the compiled program.
+	 * @param output where WRITELN prints.
+	 */
+	public VirtualMachine(Bytecode b, PrintStream output)
+	{
+		program = b;
+		out = output;
+		globals = new int[b.getGlobalCount()];
+	}
+
+	/**
+	 * Gets the global variables, in the slots the Resolver gave them.
+	 * @return the values of the global variables.
+	 */
+	public int[] getGlobals()
+	{
+		return globals;
+	}
+
+	/**
+	 * Sets how many slots the stack may grow to, which bounds how deep the program
+	 * can recurse. Every slot is 4 bytes, and every call also keeps 2 ints on a
+	 * separate array of return addresses, which is bounded by the same limit. The
+	 * limit holds from the next call of run.
+	 * @param slots the most slots the stack may have.
+	 */
+	public void setStackLimit(int slots)
+	{
+		stackLimit = slots;
+	}
+
+	/**
+	 * Gets how many slots the stack may grow to.
+	 * @return the most slots the stack may have.
+	 */
+	public int getStackLimit()
+	{
+		return stackLimit;
+	}
+
+	/**
+	 * Reads one int for READLN.
+	 * @return the int that was read.
+	 */
+	private int read()
+	{
+		System.out.println("Input int val for the variable");
+		if (in == null)
+			in = new Scanner(System.in);
+		return in.nextInt();
+	}
+
+	/**
+	 * Makes sure the stack has room up to the given height.
+	 * @param height the highest index that will be used, plus 1.
+	 * @throws IllegalStateException if the stack would grow past its limit.
+	 */
+	private void reserve(int height)
+	{
+		if (height > stackLimit)
+			throw new IllegalStateException("The program needs more than " + stackLimit
+											+ " stack slots; its recursion is too deep.");
+		if (height > stack.length)
+		{
+			long grown = Math.max(height, stack.length * 2L);
+			stack = Arrays.copyOf(stack, (int)Math.min(grown, stackLimit));
+		}
+	}
+
+	/**
+	 * Makes sure the array of return addresses has room up to the given depth. Every
+	 * call takes at least its return slot on the stack, so the array never needs more
+	 * than 2 ints for every slot the stack may have.
+	 * @param depth the highest index that will be used, plus 1.
+	 * @throws IllegalStateException if the array would grow past that bound.
+	 */
+	private void reserveCalls(int depth)
+	{
+		long limit = Math.min(2L * stackLimit, Integer.MAX_VALUE - 8);
+		if (depth > limit)
+			throw new IllegalStateException("The program makes more than " + limit / 2
+											+ " nested calls; its recursion is too deep.");
+		if (depth > calls.length)
+		{
+			long grown = Math.max(depth, calls.length * 2L);
+			calls = Arrays.copyOf(calls, (int)Math.min(grown, limit));
+		}
+	}
+
+	/**
+	 * Runs the program from the start of the main statement until HALT.
+	 * @throws ArithmeticException if the program divides by zero.
+	 */
+	public void run()
+	{
+		int[] code = program.getCode();
+		int[] entries = program.getEntries();
+		int[] argCounts = program.getArgCounts();
+		int[] frameSizes = program.getFrameSizes();
+		int[] maxStacks = program.getMaxStacks();
+		int[] g = globals;
+		if (stack.length > stackLimit)
+			stack = new int[Math.max(stackLimit, 0)];
+		reserve(program.getMainStack() + 1);
+		int[] s = stack;
+		int pc = 0;
+		int sp = 0;
+		int fp = 0;
+		int depth = 0;
+		int tos = 0;
+		while (true)
+		{
+			switch (code[pc++])
+			{
+				case Bytecode.CONST:
+					s[sp++] = tos;
+					tos = code[pc++];
+					break;
+				case Bytecode.LOAD:
+					s[sp++] = tos;
+					tos = s[fp + code[pc++]];
+					break;
+				case Bytecode.STORE:
+					s[fp + code[pc++]] = tos;
+					tos = s[--sp];
+					break;
+				case Bytecode.GLOAD:
+					s[sp++] = tos;
+					tos = g[code[pc++]];
+					break;
+				case Bytecode.GSTORE:
+					g[code[pc++]] = tos;
+					tos = s[--sp];
+					break;
+				case Bytecode.ADD:
+					tos = s[--sp] + tos;
+					break;
+				case Bytecode.SUB:
+					tos = s[--sp] - tos;
+					break;
+				case Bytecode.MUL:
+					tos = s[--sp] * tos;
+					break;
+				case Bytecode.DIV:
+					tos = s[--sp] / tos;
+					break;
+				case Bytecode.MOD:
+					tos = s[--sp] % tos;
+					break;
+				case Bytecode.NEG:
+					tos = -tos;
+					break;
+				case Bytecode.EQ:
+					tos = s[--sp] == tos ? 1 : 0;
+					break;
+				case Bytecode.NE:
+					tos = s[--sp] != tos ? 1 : 0;
+					break;
+				case Bytecode.LT:
+					tos = s[--sp] < tos ? 1 : 0;
+					break;
+				case Bytecode.GT:
+					tos = s[--sp] > tos ? 1 : 0;
+					break;
+				case Bytecode.LE:
+					tos = s[--sp] <= tos ? 1 : 0;
+					break;
+				case Bytecode.GE:
+					tos = s[--sp] >= tos ? 1 : 0;
+					break;
+				case Bytecode.JUMP:
+					pc = code[pc];
+					break;
+				case Bytecode.JEQ:
+				{
+					boolean taken = s[--sp] == tos;
+					tos = s[--sp];
+					pc = taken ? code[pc] : pc + 1;
+					break;
+				}
+				case Bytecode.JNE:
+				{
+					boolean taken = s[--sp] != tos;
+					tos = s[--sp];
+					pc = taken ? code[pc] : pc + 1;
+					break;
+				}
+				case Bytecode.JLT:
+				{
+					boolean taken = s[--sp] < tos;
+					tos = s[--sp];
+					pc = taken ? code[pc] : pc + 1;
+					break;
+				}
+				case Bytecode.JGT:
+				{
+					boolean taken = s[--sp] > tos;
+					tos = s[--sp];
+					pc = taken ? code[pc] : pc + 1;
+					break;
+				}
+				case Bytecode.JLE:
+				{
+					boolean taken = s[--sp] <= tos;
+					tos = s[--sp];
+					pc = taken ? code[pc] : pc + 1;
+					break;
+				}
+				case Bytecode.JGE:
+				{
+					boolean taken = s[--sp] >= tos;
+					tos = s[--sp];
+					pc = taken ? code[pc] : pc + 1;
+					break;
+				}
+				case Bytecode.CALL:
+				{
+					int p = code[pc++];
+					s[sp++] = tos;
+					int base = sp - argCounts[p] - 1;
+					int top = base + frameSizes[p];
+					if (top + maxStacks[p] + 1 > s.length)
+					{
+						reserve(top + maxStacks[p] + 1);
+						s = stack;
+					}
+					Arrays.fill(s, sp, top, 0);
+					if (depth + 2 > calls.length)
+						reserveCalls(depth + 2);
+					calls[depth++] = pc;
+					calls[depth++] = fp;
+					fp = base;
+					sp = top;
+					pc = entries[p];
+					break;
+				}
+				case Bytecode.RET:
+					tos = s[fp];
+					sp = fp;
+					fp = calls[--depth];
+					pc = calls[--depth];
+					break;
+				case Bytecode.PRINT:
+					out.println(tos);
+					tos = s[--sp];
+					break;
+				case Bytecode.READ:
+					s[sp++] = tos;
+					tos = read();
+					break;
+				case Bytecode.HALT:
+					return;
+				default:
+					throw new IllegalStateException("Unknown opcode " + code[pc - 1]
+													+ " at " + (pc - 1) + ".");
+			}
+		}
+	}
+}
@@ -1,7 +1,17 @@
 package ast;
 
+import java.util.Set;
+import java.lang.invoke.MethodHandle;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
 import emitter.Emitter;
+import emitter.Operand;
 import environment.Environment;
+import environment.Frame;
+import vm.Bytecode;
+import vm.BytecodeEmitter;
+import vm.Tiers;
 
 /**
  * The While class uses a condition in order to repeat a given statement.
@@ -13,6 +23,10 @@ public class While extends Statement
 {
 	private Condition c;
 	private Statement res;
+	private Tiers tiers;
+	private int backEdges;
+	private MethodHandle compiled;
+	private boolean interpreted;
 	/**
 	 * Instantiates the While object by defining the condition being checked 
 	 * and the resulting statement.
@@ -41,6 +55,131 @@ public class While extends Statement
 		}
 	}
 	
+	/**
+	 * Resolves the condition and the body of the loop, and registers the loop 
+	 * with the Resolver's Tiers if it has one.
+	 * @param r the Resolver being used.
+	 */
+	public void resolve(Resolver r)
+	{
+		c.resolve(r);
+		res.resolve(r);
+		tiers = r.getTiers();
+		if (tiers != null)
+			tiers.register(this, r.getCurrentProcedure());
+	}
+	
+	/**
+	 * Parallelizes the condition and the statement in the loop.
+	 * @param pure the pure procedures, as found by Purity.
+	 * @param cutoff how many forks can enclose each other before evaluation 
+	 * 		  turns sequential.
+	 */
+	public void parallelize(Set<ProcedureDeclaration> pure, int cutoff)
+	{
+		c = c.parallelize(pure, cutoff);
+		res.parallelize(pure, cutoff);
+	}
+	
+	/**
+	 * Executes the result statement in a Frame until the condition is false. 
+	 * Every iteration is counted, and once the count reaches the back-edge threshold 
+	 * the loop is compiled and the remaining iterations run in compiled code, 
+	 * as do later executions of the loop. A loop that can reach a memoized procedure 
+	 * stays interpreted.
+	 * @param frame the Frame containing variables that are used in execution.
+	 * @postcondition the Condition has been evaluated to false.
+	 */
+	public void exec(Frame frame) 
+	{
+		if (compiled != null)
+		{
+			Tiers.run(compiled, frame.getGlobals().getSlots(), frame.getSlots());
+			return;
+		}
+		while (c.eval(frame) == 1)
+		{
+			res.exec(frame);
+			if (tiers != null && ++backEdges >= tiers.getBackEdgeThreshold() && !interpreted)
+			{
+				compiled = tiers.compile(this, backEdges);
+				interpreted = compiled == null;
+				if (compiled != null)
+				{
+					Tiers.run(compiled, frame.getGlobals().getSlots(), frame.getSlots());
+					return;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Links the condition and the body into one closure that loops. The closure 
+	 * does not count iterations for tiered execution.
+	 * @return a closure that runs the loop in a Frame.
+	 */
+	public Consumer<Frame> link()
+	{
+		ToIntFunction<Frame> test = c.link();
+		Consumer<Frame> body = res.link();
+		return f -> {
+			while (test.applyAsInt(f) == 1)
+				body.accept(f);
+		};
+	}
+	
+	/**
+	 * Gets how many iterations the loop ran while it was interpreted on Frames.
+	 * @return the number of back-edges counted.
+	 */
+	public int getBackEdgeCount()
+	{
+		return backEdges;
+	}
+	
+	/**
+	 * Checks if the loop has switched to compiled code.
+	 * @return true if the loop runs compiled code; otherwise, false.
+	 */
+	public boolean isCompiled()
+	{
+		return compiled != null;
+	}
+	
+	/**
+	 * Compiles the loop as a jump to the condition at the bottom, then the body, 
+	 * and the condition, which jumps back to the body while it is true.
+	 * @param b the BytecodeEmitter that collects the instructions.
+	 */
+	public void compile(BytecodeEmitter b)
+	{
+		int bodyLabel = b.newLabel();
+		int checkLabel = b.newLabel();
+		b.emitJump(Bytecode.JUMP, checkLabel);
+		b.placeLabel(bodyLabel);
+		res.compile(b);
+		b.placeLabel(checkLabel);
+		c.compile(b, bodyLabel, true);
+	}
+	
+	/**
+	 * Gets the condition of the loop.
+	 * @return the Condition that is checked before every iteration.
+	 */
+	public Condition getCondition()
+	{
+		return c;
+	}
+	
+	/**
+	 * Gets the body of the loop.
+	 * @return the Statement that is repeated.
+	 */
+	public Statement getBody()
+	{
+		return res;
+	}
+	
 	/**
 	 * Converts the code for a While loop to MIPS.
 	 * @param e the Emitter that prints MIPS code.
@@ -49,11 +188,11 @@ public class While extends Statement
 	{
 		String temp = "loop" + e.loopLabelID();
 		String etemp = "endloop" + e.endLoopLabelID();
-		e.emit(temp + ":");
+		e.emitLabel(temp);
 		c.compile(e, etemp);
 		res.compile(e);
-		e.emit("j " + temp);
-		e.emit(etemp + ":");
+		e.emit("j", Operand.symbol(temp));
+		e.emitLabel(etemp);
 	}
 
 }
@@ -1,7 +1,15 @@
 package ast;
 
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
 import emitter.Emitter;
+import emitter.Operand;
 import environment.Environment;
+import environment.Frame;
+import vm.Bytecode;
+import vm.BytecodeEmitter;
 
 /**
  * Writeln is a type of Statement that is responsible  
@@ -36,6 +44,66 @@ public class Writeln extends Statement
 		System.out.println(exp.eval(env));
 	}
 	
+	/**
+	 * Resolves the expression being printed.
+	 * @param r the Resolver being used.
+	 */
+	public void resolve(Resolver r)
+	{
+		exp.resolve(r);
+	}
+	
+	/**
+	 * Parallelizes the expression being printed.
+	 * @param pure the pure procedures, as found by Purity.
+	 * @param cutoff how many forks can enclose each other before evaluation 
+	 * 		  turns sequential.
+	 */
+	public void parallelize(Set<ProcedureDeclaration> pure, int cutoff)
+	{
+		exp = exp.parallelize(pure, cutoff);
+	}
+	
+	/**
+	 * Prints out the evaluation of the expression in a Frame.
+	 * @param frame the Frame that holds the variables used in the expression.
+	 * @postcondition the Integer value of the expression has been printed 
+	 * 				  to the console.
+	 */
+	public void exec(Frame frame)
+	{
+		System.out.println(exp.eval(frame));
+	}
+	
+	/**
+	 * Links the expression into a closure that prints it.
+	 * @return a closure that prints the value of the expression in a Frame.
+	 */
+	public Consumer<Frame> link()
+	{
+		ToIntFunction<Frame> a = exp.link();
+		return f -> System.out.println(a.applyAsInt(f));
+	}
+	
+	/**
+	 * Pushes the expression and prints it.
+	 * @param b the BytecodeEmitter that collects the instructions.
+	 */
+	public void compile(BytecodeEmitter b)
+	{
+		exp.compile(b);
+		b.emit(Bytecode.PRINT);
+	}
+	
+	/**
+	 * Gets the expression being printed.
+	 * @return the Expression whose value is printed.
+	 */
+	public Expression getExpression()
+	{
+		return exp;
+	}
+	
 	/**
 	 * @override
 	 * compiles the expression inside the statement 
@@ -44,11 +112,13 @@ public class Writeln extends Statement
 	public void compile(Emitter e)
 	{
 		exp.compile(e);
-		e.emit("move $a0, $v0");
-		e.emit("li $v0, 1");
+		Operand a0 = Operand.register("$a0");
+		Operand v0 = Operand.register("$v0");
+		e.emit("move", a0, v0);
+		e.emit("li", v0, Operand.immediate(1));
 		e.emit("syscall");
-		e.emit("la $a0, nl");
-		e.emit("li $v0, 4");
+		e.emit("la", a0, Operand.symbol("nl"));
+		e.emit("li", v0, Operand.immediate(4));
 		e.emit("syscall");
 	}
 }